@@ -0,0 +1,308 @@
+package bench;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+/**
+ * Generates synthetic database files in the {@code New_Entity} format of {@code data.db}
+ * <p>
+ * About one in nine rows is a {@link model.Person}. Every {@link model.Person} has five friendships and three
+ * owned products on average, but the second side of every correlation is drawn from a power-law distribution,
+ * so a few people and products are very popular like in real social graphs. The same number of rows and seed
+ * always produce the same file.
+ * <p>
+ * Usage: {@code java bench.DataGenerator <file> <rows> [seed]}
+ * <p>
+ * The benchmarks of this package generate their files on their own and are run with
+ * {@code java -cp <classpath> org.openjdk.jmh.Main <benchmark>}.
+ */
+public class DataGenerator {
+    /**
+     * The seed which is used if none is provided
+     */
+    public static final long DEFAULT_SEED = 42;
+
+    /**
+     * The exponent applied to a uniform random number to draw a popular entity
+     * Bigger exponents concentrate more correlations on fewer entities
+     */
+    private static final double SKEW = 2.5;
+
+    /**
+     * Used to create the names of people
+     */
+    private static final String[] FIRST_NAMES = {
+            "Ellis", "Mike", "Chad", "Francisco", "Wilbur", "Drew", "Kyle", "Jon", "Rafael", "Casey", "Angelo",
+            "James", "Rodolfo", "Raymond", "Ross", "Duane", "Adam", "Darryl", "Alberto", "Lucy", "Jane", "Bonnie",
+            "Deanna", "Lindsey", "Aubrey", "Carlos", "Philip", "Richard"
+    };
+
+    /**
+     * Used to create the names of people
+     */
+    private static final String[] LAST_NAMES = {
+            "Blair", "Houston", "Gardner", "Morales", "Ford", "Gill", "Kelly", "Jackson", "Fowler", "Murray",
+            "Bowman", "Todd", "Gregory", "Wong", "Olson", "Chavez", "Hunter", "Brown", "Boone", "Hampton",
+            "Alvarez", "Phelps", "Barnes", "Lawson", "Snyder", "Burke", "Crawford", "Mckenzie"
+    };
+
+    /**
+     * Used to create the names of products
+     */
+    private static final String[] PRODUCT_NAMES = {
+            "iPad", "iPhone", "MacBook Air", "MacBook Pro", "Galaxy Tab", "Galaxy", "ChromeBook", "Nexus", "Pixel",
+            "Surface", "ThinkPad", "Kindle"
+    };
+
+    /**
+     * Used to create the names of companies
+     */
+    private static final String[] COMPANY_NAMES = {
+            "Apple", "Samsung", "Google", "Microsoft", "Lenovo", "Amazon", "Sony", "Huawei"
+    };
+
+    // This class shouldn't be instantiated
+    private DataGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Verwendung: java bench.DataGenerator <Datei> <Zeilen> [Seed]");
+            return;
+        }
+
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        write(Paths.get(args[0]), Long.parseLong(args[1]), seed);
+    }
+
+    /**
+     * Get a generated file with the provided number of rows, which is only generated once per temporary directory
+     *
+     * @param rows The approximate number of rows
+     *
+     * @return The {@link Path} of the file
+     *
+     * @throws IOException If the file can't be written
+     */
+    public static synchronized Path cached(long rows) throws IOException {
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"), "produktdatenbank-bench");
+        Path file = dir.resolve("rows-" + rows + "-" + DEFAULT_SEED + ".db");
+
+        if (!Files.exists(file)) {
+            Files.createDirectories(dir);
+            Path tmp = dir.resolve(file.getFileName() + ".tmp");
+            write(tmp, rows, DEFAULT_SEED);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        return file;
+    }
+
+    /**
+     * Writes a generated file
+     *
+     * @param file The {@link Path} of the file
+     * @param rows The approximate number of rows
+     * @param seed The seed of the random numbers
+     *
+     * @throws IOException If the file can't be written
+     */
+    public static void write(Path file, long rows, long seed) throws IOException {
+        Random random = new Random(seed);
+
+        // Split the rows between the sections
+        int people = (int) Math.max(rows / 9, 10);
+        int products = Math.max(people / 50, 10);
+        int companies = Math.max(products / 20, 3);
+        long friendships = people * 5L;
+        long purchases = people * 3L;
+
+        // The products and companies start after the people like in data.db
+        int productOffset = people;
+        int companyOffset = people + products;
+
+        try (Out out = new Out(Files.newOutputStream(file))) {
+            out.text("New_Entity: \"person_id\", \"person_name\", \"person_gender\"\n");
+            for (int i = 0; i < people; i++) {
+                out.quoted(i).text(",\"")
+                        .text(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]).text(" ")
+                        .text(LAST_NAMES[random.nextInt(LAST_NAMES.length)]).text("\",")
+                        .text(random.nextBoolean() ? "\"Male\"\n" : "\"Female\"\n");
+            }
+
+            out.text("New_Entity: \"product_id\",\"product_name\"\n");
+            for (int i = 0; i < products; i++)
+                out.quoted(productOffset + i).text(",\"").text(PRODUCT_NAMES[i % PRODUCT_NAMES.length])
+                        .text(" ").number(i / PRODUCT_NAMES.length).text("\"\n");
+
+            out.text("New_Entity: \"company_id\",\"company_name\"\n");
+            for (int i = 0; i < companies; i++)
+                out.quoted(companyOffset + i).text(",\"").text(COMPANY_NAMES[i % COMPANY_NAMES.length])
+                        .text(i < COMPANY_NAMES.length ? "" : " " + i / COMPANY_NAMES.length).text("\"\n");
+
+            // The second person of every friendship follows a power law
+            out.text("New_Entity: \"person1_id\",\"person2_id\"\n");
+            Permutation popularPeople = new Permutation(people, random);
+            for (long i = 0; i < friendships; i++) {
+                int p1 = random.nextInt(people);
+                int p2 = popularPeople.get(skewed(random, people));
+                if (p1 == p2)
+                    p2 = (p2 + 1) % people;
+                out.quoted(p1).text(",").quoted(p2).text("\n");
+            }
+
+            // The owned products follow a power law as well
+            out.text("New_Entity: \"person_id\",\"product_id\"\n");
+            Permutation popularProducts = new Permutation(products, random);
+            for (long i = 0; i < purchases; i++)
+                out.quoted(random.nextInt(people)).text(",")
+                        .quoted(productOffset + popularProducts.get(skewed(random, products))).text("\n");
+
+            out.text("New_Entity: \"product_id\",\"company_id\"\n");
+            for (int i = 0; i < products; i++)
+                out.quoted(productOffset + i).text(",").quoted(companyOffset + random.nextInt(companies)).text("\n");
+        }
+    }
+
+    /**
+     * Draws a number, where small numbers are much more likely than big ones
+     *
+     * @param random The source of random numbers
+     * @param bound The exclusive upper bound
+     *
+     * @return The number
+     */
+    private static int skewed(Random random, int bound) {
+        return Math.min((int) (Math.pow(random.nextDouble(), SKEW) * bound), bound - 1);
+    }
+
+    /**
+     * A random permutation of the numbers up to a bound, which doesn't store the permutation
+     * Used to spread the popular entities over the whole file
+     */
+    private static class Permutation {
+        /**
+         * The exclusive upper bound
+         */
+        private final int bound;
+
+        /**
+         * The factor and summand of the linear permutation
+         */
+        private final long factor, offset;
+
+        /**
+         * Creates a new random permutation
+         *
+         * @param bound The exclusive upper bound
+         * @param random The source of random numbers
+         */
+        Permutation(int bound, Random random) {
+            this.bound = bound;
+            this.offset = random.nextInt(bound);
+
+            // The factor has to be coprime to the bound to get a permutation
+            long f = random.nextInt(bound) | 1;
+            while (gcd(f, bound) != 1)
+                f += 2;
+            this.factor = f;
+        }
+
+        /**
+         * Get the number at a position of the permutation
+         *
+         * @param i The position
+         *
+         * @return The number
+         */
+        int get(int i) {
+            return (int) ((i * factor + offset) % bound);
+        }
+
+        /**
+         * Get the greatest common divisor of two numbers
+         */
+        private static long gcd(long a, long b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+    }
+
+    /**
+     * A buffered output for ASCII text and numbers
+     */
+    private static class Out implements AutoCloseable {
+        /**
+         * The wrapped stream
+         */
+        private final OutputStream stream;
+
+        /**
+         * Used to format numbers without creating {@link String Strings}
+         */
+        private final byte[] digits = new byte[11];
+
+        /**
+         * Creates a new output
+         *
+         * @param stream The stream to write to
+         */
+        Out(OutputStream stream) {
+            this.stream = new BufferedOutputStream(stream, 1 << 20);
+        }
+
+        /**
+         * Writes a {@link String}
+         *
+         * @param s The {@link String}
+         *
+         * @return This output
+         */
+        Out text(String s) throws IOException {
+            stream.write(s.getBytes(StandardCharsets.UTF_8));
+            return this;
+        }
+
+        /**
+         * Writes a non-negative number
+         *
+         * @param n The number
+         *
+         * @return This output
+         */
+        Out number(int n) throws IOException {
+            int pos = digits.length;
+            do {
+                digits[--pos] = (byte) ('0' + n % 10);
+                n /= 10;
+            } while (n > 0);
+            stream.write(digits, pos, digits.length - pos);
+            return this;
+        }
+
+        /**
+         * Writes a non-negative number in quotes
+         *
+         * @param n The number
+         *
+         * @return This output
+         */
+        Out quoted(int n) throws IOException {
+            stream.write('"');
+            number(n);
+            stream.write('"');
+            return this;
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package bench;
+
+import model.ColumnStore;
+import model.Database;
+import model.ParallelReader;
+import model.Snapshot;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+
+/**
+ * Compares the heap needed by a {@link Database} and by a {@link ColumnStore} containing the same generated file
+ * <p>
+ * The {@link Database} is read from the file, the {@link ColumnStore} from a {@link Snapshot} of it,
+ * so no entity is created for the {@link ColumnStore}. The names of the {@link ColumnStore} are stored outside of
+ * the heap and printed separately.
+ * <p>
+ * Usage: {@code java -Xmx4g bench.HeapComparison [rows]}, the default are 1000000 rows
+ */
+public class HeapComparison {
+    // This class shouldn't be instantiated
+    private HeapComparison() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        String file = DataGenerator.cached(rows).toString();
+        String snapshot = file + ".snapshot";
+
+        // Measure the database, which is dropped afterwards
+        long before = usedHeap();
+        Database db = ParallelReader.readFileToDatabase(file);
+        long database = usedHeap() - before;
+        Snapshot.write(db, snapshot);
+        Reference.reachabilityFence(db);
+        db = null;
+
+        // Measure the columns of the same content
+        before = usedHeap();
+        ColumnStore store = Snapshot.readColumns(snapshot);
+        long columns = usedHeap() - before;
+        long offHeap = store.offHeapSize();
+        Reference.reachabilityFence(store);
+
+        System.out.printf("Zeilen: %d%n", rows);
+        System.out.printf("Database:    %8.1f MB%n", database / 1e6);
+        System.out.printf("ColumnStore: %8.1f MB, dazu %.1f MB ausserhalb des Heaps%n", columns / 1e6, offHeap / 1e6);
+        System.out.printf("Verhaeltnis: %8.1f (%.1f mit den Namen ausserhalb des Heaps)%n",
+                (double) database / columns, (double) database / (columns + offHeap));
+    }
+
+    /**
+     * Get the number of bytes used on the heap after collecting the garbage
+     *
+     * @return The number of bytes
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting for the garbage collection
+     */
+    private static long usedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,62 @@
+package bench;
+
+import model.Database;
+import model.ParallelReader;
+import model.Reader;
+import model.Snapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to load generated files of different sizes
+ * <p>
+ * The sequential {@link Reader} is the baseline, the {@link ParallelReader} and the binary {@link Snapshot}
+ * are measured on the same content.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class LoadBenchmark {
+    /**
+     * The approximate number of rows of the loaded file
+     */
+    @Param({"10000", "1000000", "10000000"})
+    public long rows;
+
+    /**
+     * The path of the generated file
+     */
+    private String file;
+
+    /**
+     * The path of the snapshot of the generated file
+     */
+    private String snapshot;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = DataGenerator.cached(rows).toString();
+        snapshot = file + ".snapshot";
+        Snapshot.write(ParallelReader.readFileToDatabase(file), snapshot);
+    }
+
+    @Benchmark
+    public Database reader() {
+        return Reader.readFileToDatabase(file);
+    }
+
+    @Benchmark
+    public Database parallelReader() {
+        return ParallelReader.readFileToDatabase(file);
+    }
+
+    @Benchmark
+    public Database snapshot() throws IOException {
+        return Snapshot.read(snapshot);
+    }
+}
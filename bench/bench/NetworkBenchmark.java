@@ -0,0 +1,106 @@
+package bench;
+
+import model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the product and company networks of the {@link Database}
+ * <p>
+ * Every invocation queries the next {@link Person} of a fixed random sample, so popular and unpopular
+ * people are mixed like in real queries. The generic {@link Database#getNetwork} is measured as the baseline
+ * for the networks backed by the graph. The ranked network is measured with three hops,
+ * the recommendations with the best ten products.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class NetworkBenchmark {
+    /**
+     * The number of people in the sample
+     */
+    private static final int SAMPLE = 1024;
+
+    /**
+     * The approximate number of rows of the loaded file
+     */
+    @Param({"10000", "1000000"})
+    public long rows;
+
+    /**
+     * The loaded {@link Database}
+     */
+    private Database database;
+
+    /**
+     * The queried people
+     */
+    private Person[] sample;
+
+    /**
+     * The position of the next queried {@link Person} in the sample
+     */
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        database = ParallelReader.readFileToDatabase(DataGenerator.cached(rows).toString());
+
+        List<Person> people = database.getPeople();
+        Random random = new Random(DataGenerator.DEFAULT_SEED);
+        sample = new Person[SAMPLE];
+        for (int i = 0; i < SAMPLE; i++)
+            sample[i] = people.get(random.nextInt(people.size()));
+
+        // Build the graph before measuring
+        database.getProductNetwork(sample[0]);
+    }
+
+    /**
+     * Get the next {@link Person} to query
+     *
+     * @return The {@link Person}
+     */
+    private Person person() {
+        Person p = sample[next];
+        next = (next + 1) % SAMPLE;
+        return p;
+    }
+
+    @Benchmark
+    public List<Product> productNetwork() {
+        return database.getProductNetwork(person());
+    }
+
+    @Benchmark
+    public List<Company> companyNetwork() {
+        return database.getCompanyNetwork(person());
+    }
+
+    @Benchmark
+    public List<Product> genericProductNetwork() {
+        return database.getNetwork(person(), Person::getProducts);
+    }
+
+    @Benchmark
+    public List<Company> genericCompanyNetwork() {
+        return database.getNetwork(person(), Person::getCompanies);
+    }
+
+    @Benchmark
+    public List<Ranked<Product>> rankedProductNetwork() {
+        return database.getRankedProductNetwork(person(), 3, 10000);
+    }
+
+    @Benchmark
+    public List<Ranked<Product>> productRecommendations() {
+        return database.getProductRecommendations(person(), 10);
+    }
+}
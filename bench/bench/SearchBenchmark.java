@@ -0,0 +1,53 @@
+package bench;
+
+import model.Database;
+import model.ParallelReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the name searches of the {@link Database}
+ * <p>
+ * The search terms cover a term too short for the trigram index, a common and a rare one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class SearchBenchmark {
+    /**
+     * The approximate number of rows of the loaded file
+     */
+    @Param({"10000", "1000000"})
+    public long rows;
+
+    /**
+     * The term to search for
+     */
+    @Param({"an", "son", "ellis bl", "iPad 1"})
+    public String query;
+
+    /**
+     * The loaded {@link Database}
+     */
+    private Database database;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        database = ParallelReader.readFileToDatabase(DataGenerator.cached(rows).toString());
+    }
+
+    @Benchmark
+    public int peopleByName() {
+        return database.findPeopleByName(query).size();
+    }
+
+    @Benchmark
+    public int productsByName() {
+        return database.findProductsByName(query).size();
+    }
+}
@@ -1,11 +1,23 @@
 import model.*;
+import util.Metrics;
 import util.exceptions.InvalidNetworkException;
 import util.exceptions.NoSuchPersonException;
 import util.exceptions.NoSuchProductException;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
-import java.util.stream.Stream;
 
 public class Main {
     /**
@@ -14,15 +26,28 @@ public class Main {
     private static final boolean talkative = true;
 
     /**
-     * This represents the {@link Database}
+     * This regulates whether the file is read on every available core
      */
-    private static Database database;
+    private static final boolean parallelLoading = true;
+
+    /**
+     * This represents the {@link Database}, which the queries are run on
+     */
+    static Database database;
 
     /**
      * This will later be used for associating {@link Operation Operations.}
      */
     private static final Map<String, Operation> argsMap = new HashMap<>();
 
+    // Associate Strings with the corresponding Operations, before any query is run
+    static {
+        argsMap.put("--personensuche", Operation.SEARCH_PERSON);
+        argsMap.put("--produktsuche", Operation.SEARCH_PRODUCT);
+        argsMap.put("--produktnetzwerk", Operation.PRODUCT_NETWORK);
+        argsMap.put("--firmennetzwerk", Operation.COMPANY_NETWORK);
+    }
+
     /**
      * This {@link Enum} represents every supported Operation
      */
@@ -38,84 +63,248 @@ public class Main {
      */
     public static final String pathToFile = "data.db";
 
+    /**
+     * This represents the relative path of the binary snapshot of the database content
+     */
+    public static final String pathToSnapshot = pathToFile + ".snapshot";
+
+    /**
+     * This represents the relative path of the log containing every change since the snapshot was written
+     */
+    public static final String pathToLog = pathToFile + ".wal";
+
     public static void main(String[] args) {
-        // Associate Strings with the corresponding Operations
-        argsMap.put("--personensuche", Operation.SEARCH_PERSON);
-        argsMap.put("--produktsuche", Operation.SEARCH_PRODUCT);
-        argsMap.put("--produktnetzwerk", Operation.PRODUCT_NETWORK);
-        argsMap.put("--firmennetzwerk", Operation.COMPANY_NETWORK);
+        // Write the metrics in the interval of the system property, if they are collected
+        long interval = Long.getLong(Metrics.PROPERTY + ".interval", 0);
+        if (Metrics.ENABLED && interval > 0)
+            Metrics.startDump(interval, System.err);
 
-        database = Reader.readFileToDatabase(pathToFile);
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        database = loadDatabase();
+        if (Metrics.ENABLED)
+            Metrics.histogram("load.ns").recordSince(start);
 
         if (database != null) {
+            Writer output = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+
             // Go through every provided argument
             for (String s : args) {
                 String[] tmp = s.replace("\"", "").split("=");
                 try {
-                    Operation op = argsMap.get(tmp[0]);
-                    if (op != null && tmp.length == 2) {
-                        switch (op) {
-                            // Search for a person and print the results, if there are any
-                            case SEARCH_PERSON -> printStreamResults("der Person " + tmp[1], () -> {
-                                try {
-                                    return database.getPeopleByName(tmp[1]);
-                                } catch (NoSuchPersonException e) {
-                                    System.out.println(e.getMessage());
-                                }
-                                return null;
-                            });
-
-                            // Search for a product and print the results, if there are any
-                            case SEARCH_PRODUCT -> printStreamResults("dem Produkt " + tmp[1], () -> {
-                                try {
-                                    return database.getProductsByName(tmp[1]);
-                                } catch (NoSuchProductException e) {
-                                    System.out.println(e.getMessage());
-                                }
-                                return null;
-                            });
-
-                            // Get the product network of the specified person
-                            case PRODUCT_NETWORK -> getNetwork(Integer.parseInt(tmp[1]), "Produkt");
-
-                            // Get the company network of the specified person
-                            case COMPANY_NETWORK -> getNetwork(Integer.parseInt(tmp[1]), "Firmen");
+                    if ("--batch".equals(tmp[0]) && tmp.length == 2)
+                        runBatch(tmp[1], output);
+                    else if ("--netzwerkexport".equals(tmp[0]) && tmp.length == 2)
+                        exportNetworks(tmp[1]);
+                    else if ("--server".equals(tmp[0]) && tmp.length == 2) {
+                        output.flush();
+                        try (QueryServer server = new QueryServer(tmp[1])) {
+                            server.serve();
                         }
-                    }
+                    } else
+                        output.write(runQuery(s));
                 } catch (Exception e) {
                     // Print unhandled exceptions
                     e.printStackTrace();
                 }
             }
+
+            try {
+                output.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+
+            // Write the collected metrics
+            if (Metrics.ENABLED)
+                System.err.print(Metrics.dumpAll());
         } else
             System.out.println("Die angegebene Datei " + pathToFile + " ist fehlerhaft!");
     }
 
     /**
-     * This method prints the content of the provided {@link Stream}
+     * Runs a single query
+     * May be called by many threads at once, as long as the {@link Database} isn't changed
+     *
+     * @param query The query in the same form as an argument, e.g. {@code --produktnetzwerk=12}
+     *
+     * @return The output of the query, which is empty if the query isn't supported
+     */
+    static String runQuery(String query) {
+        StringBuilder out = new StringBuilder();
+        try {
+            answerQuery(out, query);
+        } catch (Exception e) {
+            // Print unhandled exceptions
+            e.printStackTrace();
+        }
+        return out.toString();
+    }
+
+    /**
+     * Runs a single query without handling its exceptions
+     * May be called by many threads at once, as long as the {@link Database} isn't changed
+     *
+     * @param out The {@link StringBuilder} the output is appended to
+     * @param query The query in the same form as an argument, e.g. {@code --produktnetzwerk=12}
+     *
+     * @return True, if the query is supported
+     *
+     * @throws Exception If the query fails, e.g. because the {@link Person} doesn't exist
+     */
+    static boolean answerQuery(StringBuilder out, String query) throws Exception {
+        String[] tmp = query.replace("\"", "").split("=");
+        Operation op = argsMap.get(tmp[0]);
+        if (op == null || tmp.length != 2)
+            return false;
+
+        switch (op) {
+            // Search for a person and print the results, if there are any
+            case SEARCH_PERSON -> printSearchResults(out, "der Person " + tmp[1],
+                    database.findPeopleByName(tmp[1]), () -> new NoSuchPersonException(tmp[1]));
+
+            // Search for a product and print the results, if there are any
+            case SEARCH_PRODUCT -> printSearchResults(out, "dem Produkt " + tmp[1],
+                    database.findProductsByName(tmp[1]), () -> new NoSuchProductException(tmp[1]));
+
+            // Get the product network of the specified person
+            case PRODUCT_NETWORK -> getNetwork(out, Integer.parseInt(tmp[1]), "Produkt");
+
+            // Get the company network of the specified person
+            case COMPANY_NETWORK -> getNetwork(out, Integer.parseInt(tmp[1]), "Firmen");
+        }
+        return true;
+    }
+
+    /**
+     * Writes the product and company network of every {@link Person} to two binary files
+     *
+     * @param prefix The path of the files without their extension, the files end with {@code .produkte} and {@code .firmen}
+     *
+     * @throws IOException If a file can't be written
+     */
+    private static void exportNetworks(String prefix) throws IOException {
+        database.getAllProductNetworks().write(prefix + ".produkte");
+        database.getAllCompanyNetworks().write(prefix + ".firmen");
+    }
+
+    /**
+     * Runs every query of a file on a pool of workers and prints the results in the order of the queries
+     * Every line of the file contains one query in the same form as an argument, e.g. {@code --produktnetzwerk=12}
+     *
+     * @param source The path of the file, or {@code -} to read the queries from the standard input
+     * @param out The {@link Writer} the results are written to
+     *
+     * @throws Exception If the file can't be read or a worker fails unexpectedly
+     */
+    static void runBatch(String source, Writer out) throws Exception {
+        int workerCount = Runtime.getRuntime().availableProcessors();
+        ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+        Deque<Future<String>> pending = new ArrayDeque<>();
+
+        // Don't read the whole file ahead of the workers
+        int window = workerCount * 64;
+
+        BufferedReader in = "-".equals(source)
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Paths.get(source));
+
+        try (in) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank())
+                    continue;
+
+                String query = line.strip();
+                pending.add(workers.submit(() -> runQuery(query)));
+
+                // Write every finished result, which doesn't have to wait for an earlier one
+                while (!pending.isEmpty() && (pending.size() >= window || pending.peek().isDone()))
+                    out.write(pending.poll().get());
+            }
+
+            while (!pending.isEmpty())
+                out.write(pending.poll().get());
+        } finally {
+            workers.shutdownNow();
+            out.flush();
+        }
+    }
+
+    /**
+     * Loads the {@link Database} from its snapshot, if the snapshot is newer than the file
+     * Otherwise the file is read and a new snapshot is written for the next start
+     * Every change in the log is applied afterwards
      *
+     * @return The loaded {@link Database}, or null, if the file couldn't be read
+     */
+    private static Database loadDatabase() {
+        Database db = loadBase();
+
+        // Apply the changes, which were logged since the snapshot was written
+        if (db != null && new File(pathToLog).exists()) {
+            try (WriteAheadLog log = WriteAheadLog.open(db, pathToLog, WriteAheadLog.Durability.NONE, 0)) {
+                if (talkative && log.getReplayed() > 0)
+                    System.err.println(log.getReplayed() + " Aenderungen aus dem Log '" + pathToLog + "' wurden angewendet");
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+
+        return db;
+    }
+
+    /**
+     * Loads the {@link Database} from its snapshot, if the snapshot is newer than the file
+     * Otherwise the file is read and a new snapshot is written for the next start
+     *
+     * @return The loaded {@link Database}, or null, if the file couldn't be read
+     */
+    private static Database loadBase() {
+        // Use the snapshot, if the file hasn't changed since it was written
+        if (Snapshot.isUpToDate(pathToSnapshot, pathToFile)) {
+            try {
+                return Snapshot.read(pathToSnapshot);
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+
+        Database db = parallelLoading ? ParallelReader.readFileToDatabase(pathToFile) : Reader.readFileToDatabase(pathToFile);
+
+        if (db != null) {
+            try {
+                Snapshot.write(db, pathToSnapshot);
+            } catch (IOException e) {
+                System.err.println("Der Snapshot '" + pathToSnapshot + "' konnte nicht geschrieben werden: " + e.getMessage());
+            }
+        }
+
+        return db;
+    }
+
+    /**
+     * This method prints the results of a search
+     *
+     * @param out The {@link StringBuilder} the output is appended to
      * @param searchFor The sought identifier
-     * @param supplier The {@link Supplier} supplying the wanted {@link Stream}
+     * @param results The results of the search
+     * @param missing A {@link Supplier} supplying the {@link Exception} describing a search without results
      * @param <T> TypeParameter which only accepts children of {@link Parent}
      */
-    public static <T extends Parent> void printStreamResults(String searchFor, Supplier<Stream<T>> supplier) {
+    public static <T extends Parent> void printSearchResults(StringBuilder out, String searchFor, List<T> results, Supplier<Exception> missing) {
         if (talkative)
-            System.out.print("Die Suche nach " + searchFor + " ergab ");
-
-        // Check whether the stream is existing
-        if (supplier.get() != null) {
-            long resultCount = supplier.get().count();
+            out.append("Die Suche nach ").append(searchFor).append(" ergab ");
 
-            // Check whether the stream is not empty
-            if (resultCount > 0) {
-                if (talkative)
-                    System.out.println(resultCount + " Treffer:");
+        // Check whether there are any results
+        if (!results.isEmpty()) {
+            if (talkative)
+                out.append(results.size()).append(" Treffer:\n");
 
-                // Print stream content
-                supplier.get().forEach(p -> System.out.println(p.getName() + ", ID:" + p.getId()));
-            } else if (talkative)
-                System.out.println("keine Treffer!");
-        }
+            // Print the results
+            for (T p : results)
+                out.append(p.getName()).append(", ID:").append(p.getId()).append('\n');
+        } else
+            out.append(missing.get().getMessage()).append('\n');
     }
 
     /**
@@ -139,24 +328,25 @@ public class Main {
     /**
      * Get a network of a {@link Person}
      *
+     * @param out The {@link StringBuilder} the output is appended to
      * @param personId The id of the {@link Person}
      * @param network A {@link String} representing the network
 
      * @throws InvalidNetworkException If there is no network with the provided name
      * @throws NoSuchPersonException If the personId is invalid
      */
-    private static void getNetwork(int personId, String network) throws InvalidNetworkException, NoSuchPersonException {
+    private static void getNetwork(StringBuilder out, int personId, String network) throws InvalidNetworkException, NoSuchPersonException {
         Person person = database.getPersonById(personId);
 
         if (talkative)
-            System.out.println("Das " + network + "netzwerk von " + person.getName() + ", " + person.getId() + ":");
+            out.append("Das ").append(network).append("netzwerk von ").append(person.getName()).append(", ").append(person.getId()).append(":\n");
 
         // Switch network based on provided identifier
         // -> Switch functions
         if ("Produkt".equals(network))
-            System.out.println(createOutputString(database.getNetwork(person, Person::getProducts)));
+            out.append(createOutputString(database.getProductNetwork(person))).append('\n');
         else if ("Firmen".equals(network))
-            System.out.println(createOutputString(database.getNetwork(person, Person::getCompanies)));
+            out.append(createOutputString(database.getCompanyNetwork(person))).append('\n');
         else
             throw new InvalidNetworkException(network);
     }
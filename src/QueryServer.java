@@ -0,0 +1,206 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A server answering queries on the loaded {@link model.Database} over a local socket
+ * <p>
+ * Every request is a single line in the same form as an argument of {@link Main}, e.g. {@code --produktnetzwerk=12}.
+ * The response contains the lines {@link Main} would print, followed by a line containing only a {@code .}.
+ * Response lines starting with a {@code .} get another {@code .} in front of them.
+ * A request which isn't supported or fails is answered by a single line starting with {@link #ERROR}.
+ * Clients may send many requests without waiting for the responses, which are sent in the order of the requests.
+ */
+public class QueryServer implements Closeable {
+    /**
+     * The line ending every response
+     */
+    private static final String END = ".";
+
+    /**
+     * The start of the line answering a request which isn't supported or fails
+     */
+    private static final String ERROR = "Fehler: ";
+
+    /**
+     * Accepts the connections
+     */
+    private final ServerSocketChannel server;
+
+    /**
+     * The path of the Unix domain socket, or null if the server uses TCP
+     */
+    private final Path socketFile;
+
+    /**
+     * Runs every connection on its own thread
+     */
+    private final ExecutorService connections = createExecutor();
+
+    /**
+     * Creates a new server
+     *
+     * @param address A port number to listen on the loopback interface, or the path of a Unix domain socket
+     *
+     * @throws IOException If the socket can't be opened
+     */
+    public QueryServer(String address) throws IOException {
+        SocketAddress socketAddress;
+
+        if (address.matches("\\d+")) {
+            server = ServerSocketChannel.open(StandardProtocolFamily.INET);
+            socketAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+            socketFile = null;
+        } else {
+            // Remove the socket of a previous run, but never any other file
+            socketFile = Paths.get(address);
+            deleteSocket(socketFile);
+
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            socketAddress = UnixDomainSocketAddress.of(socketFile);
+        }
+
+        server.bind(socketAddress);
+    }
+
+    /**
+     * Accepts connections until the server is closed
+     *
+     * @throws IOException If accepting a connection fails
+     */
+    public void serve() throws IOException {
+        System.err.println("Der Server wartet auf Anfragen an " + server.getLocalAddress());
+
+        while (server.isOpen()) {
+            SocketChannel client;
+            try {
+                client = server.accept();
+            } catch (IOException e) {
+                // The server was closed
+                if (!server.isOpen())
+                    return;
+                throw e;
+            }
+
+            connections.execute(() -> handle(client));
+        }
+    }
+
+    /**
+     * Answers every request of a connection until the client closes it
+     *
+     * @param client The connection
+     */
+    private void handle(SocketChannel client) {
+        try (client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(client), StandardCharsets.UTF_8), 1 << 16)) {
+            String request;
+            while ((request = in.readLine()) != null) {
+                String response = answer(request.strip());
+                for (String line : response.isEmpty() ? new String[0] : response.split("\n")) {
+                    if (line.startsWith(END))
+                        out.write(END);
+                    out.write(line);
+                    out.write('\n');
+                }
+                out.write(END);
+                out.write('\n');
+
+                // Send the responses of pipelined requests together
+                if (!in.ready())
+                    out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Die Verbindung wurde unterbrochen: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops accepting connections and removes the Unix domain socket
+     *
+     * @throws IOException If the socket can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        connections.shutdown();
+        if (socketFile != null)
+            deleteSocket(socketFile);
+    }
+
+    /**
+     * Answers a single request
+     *
+     * @param request The request in the same form as an argument of {@link Main}
+     *
+     * @return The lines of the response, or a single error line, if the request isn't supported or fails
+     */
+    private static String answer(String request) {
+        StringBuilder out = new StringBuilder();
+        try {
+            if (Main.answerQuery(out, request))
+                return out.toString();
+            return ERROR + "Die Anfrage " + request + " wird nicht unterstuetzt!";
+        } catch (Exception e) {
+            // Partial output is dropped, the client only gets the error
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return ERROR + message.replace('\n', ' ');
+        }
+    }
+
+    /**
+     * Deletes the Unix domain socket at a path, if there is one
+     *
+     * @param path The path of the socket
+     *
+     * @throws IOException If the path exists, but isn't a socket, or it can't be deleted
+     */
+    private static void deleteSocket(Path path) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+
+        if (!attributes.isOther())
+            throw new IOException("Die Datei " + path + " ist kein Socket und wird nicht geloescht!");
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Creates an {@link ExecutorService} running every task on a new virtual thread
+     * Virtual threads need Java 21, older versions use a pool of platform threads instead
+     *
+     * @return The {@link ExecutorService}
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
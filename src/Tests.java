@@ -1,17 +1,66 @@
 import jdk.jfr.StackTrace;
+import model.ColumnStore;
+import model.Company;
+import model.ConcurrentDatabase;
 import model.Database;
+import model.DatabaseView;
+import model.ErrorSink;
+import model.NetworkCache;
+import model.NetworkTable;
+import model.ParallelReader;
+import model.Parent;
 import model.Person;
 import model.Product;
+import model.Ranked;
+import model.ReadOnlyCompany;
+import model.ReadOnlyEntity;
+import model.ReadOnlyPerson;
+import model.ReadOnlyProduct;
 import model.Reader;
+import model.Snapshot;
+import model.WriteAheadLog;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.opentest4j.AssertionFailedError;
+import util.CompressedBitmap;
+import util.CustomComparator;
 import util.Gender;
+import util.Histogram;
+import util.IndexedList;
+import util.IntIntMap;
+import util.IntObjectMap;
+import util.LongObjectMap;
+import util.Metrics;
+import util.RowTokenizer;
+import util.ScratchBitSet;
+import util.exceptions.NoSuchCompanyException;
 import util.exceptions.NoSuchPersonException;
 import util.exceptions.NoSuchProductException;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 public class Tests {
@@ -94,4 +143,1342 @@ public class Tests {
             Assertions.assertEquals("Samsung", Main.createOutputString(database.getNetwork(database.getPersonById(23), Person::getCompanies)));
         }
     }
+
+    @Test
+    public void test_runBatch() throws Exception {
+        if (database != null) {
+            // More queries than the workers may run ahead, slow and fast ones mixed, blank lines are skipped
+            Random random = new Random(7);
+            StringBuilder queries = new StringBuilder();
+            StringBuilder expected = new StringBuilder();
+            Main.database = database;
+            try {
+                for (int i = 0; i < 5_000; i++) {
+                    int person = database.getPeople().get(random.nextInt(database.getPeople().size())).getId();
+                    String query = switch (random.nextInt(5)) {
+                        case 0 -> "--produktnetzwerk=" + person;
+                        case 1 -> "--firmennetzwerk=" + person;
+                        case 2 -> "--personensuche=" + database.getPeople().get(random.nextInt(database.getPeople().size())).getName().substring(0, 2);
+                        case 3 -> "--unbekannt=" + i;
+                        default -> " ";
+                    };
+                    queries.append(query).append('\n');
+                    if (!query.isBlank())
+                        expected.append(Main.runQuery(query));
+                }
+
+                Path file = writeTempFile(queries.toString());
+                try {
+                    StringWriter out = new StringWriter();
+                    Main.runBatch(file.toString(), out);
+                    Assertions.assertTrue(expected.indexOf("Das Produktnetzwerk von ") >= 0);
+                    Assertions.assertEquals(expected.toString(), out.toString());
+                } finally {
+                    Files.delete(file);
+                }
+            } finally {
+                Main.database = null;
+            }
+        }
+    }
+
+    @Test
+    public void test_queryServer() throws Exception {
+        if (database != null) {
+            // A product starting with a '.' is the first one of the network of the person
+            Person p = database.getPersonById(1);
+            database.addProduct(9000, new Product(9000, ".Net Framework"));
+            p.getFriends().get(0).buyProduct(database.getProductById(9000));
+            String network = Main.createOutputString(database.getProductNetwork(p));
+            Assertions.assertTrue(network.startsWith(".Net Framework,"), network);
+
+            Path directory = Files.createTempDirectory("produktdatenbank");
+            Path socket = directory.resolve("server.sock");
+            Main.database = database;
+            try (QueryServer server = new QueryServer(socket.toString())) {
+                Thread serving = new Thread(() -> {
+                    try {
+                        server.serve();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                });
+                serving.setDaemon(true);
+                serving.start();
+
+                // Every request is sent before any response is read
+                String response;
+                try (SocketChannel client = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+                    client.write(StandardCharsets.UTF_8.encode("--produktnetzwerk=1\n--unbekannt=1\n--produktnetzwerk=999999\n--firmennetzwerk=1\n"));
+                    client.shutdownOutput();
+                    response = new String(Channels.newInputStream(client).readAllBytes(), StandardCharsets.UTF_8);
+                }
+
+                Assertions.assertEquals("Das Produktnetzwerk von " + p.getName() + ", 1:\n." + network + "\n.\n"
+                        + "Fehler: Die Anfrage --unbekannt=1 wird nicht unterstuetzt!\n.\n"
+                        + "Fehler: " + new NoSuchPersonException(999999).getMessage() + "\n.\n"
+                        + Main.runQuery("--firmennetzwerk=1") + ".\n", response);
+            } finally {
+                Main.database = null;
+                Files.delete(directory);
+            }
+        }
+    }
+
+    @Test
+    public void test_parallelReader() throws IOException {
+        // Invalid entries and every kind of line break have to be read like Reader does
+        Path file = writeTempFile("New_Entity: \"person_id\", \"person_name\", \"person_gender\"\n"
+                + "\"1\",\"Ellis Blair\",\"Male\"\r\"2\",\"Mike Houston\",\"Male\"\r\n\"x\",\"Broken\",\"Male\"\n"
+                + "\"3\",\"Jane Doe\",\"Unknown\"\n\"4\",\"Jane Roe\",\"Female\"\n"
+                + "New_Entity: \"product_id\",\"product_name\"\n\"10\",\"iPad\"\n\"11\",\"iPhone\"\n"
+                + "New_Entity: \"company_id\",\"company_name\"\n\"20\",\"Apple\"\n"
+                + "New_Entity: \"person1_id\",\"person2_id\"\n\"1\",\"2\"\n\"1\",\"99\"\n\"2\",\"4\"\n"
+                + "New_Entity: \"person_id\",\"product_id\"\n\"1\",\"10\"\r\"2\",\"11\"\n\"4\",\"12\"\n"
+                + "New_Entity: \"product_id\",\"company_id\"\n\"10\",\"20\"\n\"11\",\"21\"\n");
+        try {
+            Map<String, Long> before = Reader.getErrorSink().getCounts();
+            Database expected = Reader.readFileToDatabase(file.toString());
+            Map<String, Long> errors = difference(before, Reader.getErrorSink().getCounts());
+
+            before = Reader.getErrorSink().getCounts();
+            Database actual = ParallelReader.readFileToDatabase(file.toString());
+
+            Assertions.assertEquals(describe(expected), describe(actual));
+            Assertions.assertEquals(errors, difference(before, Reader.getErrorSink().getCounts()));
+            Assertions.assertEquals(5, errors.values().stream().mapToLong(Long::longValue).sum());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void test_errorSink() throws InterruptedException {
+        PrintStream broken = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new IllegalStateException("Der Stream ist kaputt");
+            }
+        });
+        ErrorSink sink = new ErrorSink(broken, 2, Long.MAX_VALUE, 1);
+
+        // More lines than the ring buffer can hold mustn't block after writing failed
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++)
+                sink.log(i, "Test", "Zeile " + i);
+            sink.flush();
+        });
+        producer.start();
+        producer.join(10_000);
+
+        Assertions.assertFalse(producer.isAlive());
+        Assertions.assertEquals(Map.of("Test", 10L), sink.getCounts());
+    }
+
+    @Test
+    public void test_errorSinkCheckError() throws InterruptedException {
+        // A PrintStream doesn't throw, the lines it couldn't write are written to System.err instead
+        PrintStream failing = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Die Platte ist voll");
+            }
+        });
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(captured, true, StandardCharsets.UTF_8));
+        try {
+            ErrorSink sink = new ErrorSink(failing, 4, Long.MAX_VALUE, 1);
+            for (int i = 0; i < 3; i++)
+                sink.log(i, "Test", "Zeile " + i);
+            sink.flush();
+
+            // The background thread writes the lines after releasing the waiting threads
+            for (int i = 0; i < 100 && !captured.toString(StandardCharsets.UTF_8).contains("Zeile 2"); i++)
+                Thread.sleep(50);
+        } finally {
+            System.setErr(err);
+        }
+        String text = captured.toString(StandardCharsets.UTF_8);
+        Assertions.assertTrue(text.contains("Zeile 0") && text.contains("Zeile 2"), text);
+    }
+
+    @Test
+    public void test_applyDelta() throws IOException, NoSuchPersonException {
+        if (database != null) {
+            // Split the file into a base and a delta, the base keeps the first half of every entity
+            // and the correlations between those, the delta contains everything else
+            StringBuilder base = new StringBuilder();
+            StringBuilder delta = new StringBuilder();
+            List<Set<String>> baseIds = new ArrayList<>();
+            List<String> lines = Files.readAllLines(Path.of(Main.pathToFile));
+            int[] sizes = new int[6];
+            int section = -1;
+            for (String line : lines) {
+                if (line.startsWith("New_Entity"))
+                    section++;
+                else
+                    sizes[section]++;
+            }
+
+            section = -1;
+            int row = 0;
+            for (String line : lines) {
+                if (line.startsWith("New_Entity")) {
+                    section++;
+                    row = 0;
+                    baseIds.add(new HashSet<>());
+                    base.append(line).append('\n');
+                    delta.append(line).append('\n');
+                    continue;
+                }
+
+                String[] ids = line.replace("\"", "").split(",");
+                boolean inBase;
+                if (section < 3)
+                    inBase = row < sizes[section] / 2;
+                else if (section == 3)
+                    inBase = row % 2 == 0 && baseIds.get(0).contains(ids[0]) && baseIds.get(0).contains(ids[1]);
+                else if (section == 4)
+                    inBase = row % 2 == 0 && baseIds.get(0).contains(ids[0]) && baseIds.get(1).contains(ids[1]);
+                else
+                    inBase = row % 2 == 0 && baseIds.get(1).contains(ids[0]) && baseIds.get(2).contains(ids[1]);
+
+                if (inBase && section < 3)
+                    baseIds.get(section).add(ids[0]);
+                (inBase ? base : delta).append(line).append('\n');
+                row++;
+            }
+
+            Path baseFile = writeTempFile(base.toString());
+            Path deltaFile = writeTempFile(delta.toString());
+            try {
+                Database actual = Reader.readFileToDatabase(baseFile.toString());
+                Assertions.assertNotNull(actual);
+
+                // Build the graph first, so the delta has to be applied onto it
+                actual.getPeople().forEach(actual::getProductNetwork);
+                Assertions.assertTrue(Reader.applyDelta(actual, deltaFile.toString()));
+
+                // The order of the friends and products may differ, everything else has to be the same
+                Assertions.assertEquals(ids(database.getPeople()), ids(actual.getPeople()));
+                Assertions.assertEquals(ids(database.getProducts()), ids(actual.getProducts()));
+                Assertions.assertEquals(ids(database.getCompanies()), ids(actual.getCompanies()));
+                for (Person expected : database.getPeople()) {
+                    Person p = actual.getPersonById(expected.getId());
+                    Assertions.assertEquals(sortedIds(expected.getFriends()), sortedIds(p.getFriends()));
+                    Assertions.assertEquals(sortedIds(expected.getProducts()), sortedIds(p.getProducts()));
+                    Assertions.assertEquals(ids(database.getProductNetwork(expected)), ids(actual.getProductNetwork(p)));
+                    Assertions.assertEquals(ids(database.getCompanyNetwork(expected)), ids(actual.getCompanyNetwork(p)));
+                }
+                for (String name : new String[]{"a", "on", "Roger", "iP"}) {
+                    Assertions.assertEquals(ids(database.findPeopleByName(name)), ids(actual.findPeopleByName(name)));
+                    Assertions.assertEquals(ids(database.findProductsByName(name)), ids(actual.findProductsByName(name)));
+                }
+            } finally {
+                Files.delete(baseFile);
+                Files.delete(deltaFile);
+            }
+        }
+    }
+
+    @Test
+    public void test_rowTokenizer() {
+        RowTokenizer row = new RowTokenizer();
+
+        // The attributes have to be the same as the ones of the String based parsing
+        for (String line : new String[]{"", ",,", "\"\",\"\"", "\"1\",\"\"", "\"13\",\" Raymond Wong \",\"Male\"", "1,,2", "a\"b,c\"d", " , "}) {
+            String[] expected = line.replace("\"", "").split(",");
+            Assertions.assertEquals(expected.length, row.reset(line).getAttributeCount());
+            for (int i = 0; i < expected.length; i++)
+                Assertions.assertEquals(expected[i].strip(), row.getString(i));
+        }
+
+        // Numbers are only valid if Integer.parseInt accepts them
+        for (String number : new String[]{"0", "-0", "+7", "-2147483648", "2147483647", "2147483648", "12345678901", "-", "+", "1-", " 5", "5 ", "\"42\"", "4\"2", "0x1"}) {
+            long expected;
+            try {
+                expected = Integer.parseInt(number.replace("\"", ""));
+            } catch (NumberFormatException e) {
+                expected = RowTokenizer.INVALID;
+            }
+            Assertions.assertEquals(expected, row.reset(number + ",x").getInt(0));
+        }
+
+        // Stripped numbers and genders ignore spaces and quotes
+        Assertions.assertEquals(5, row.reset("1, \" 5\" ").getStrippedInt(1));
+        Assertions.assertEquals(RowTokenizer.INVALID, row.reset("1,5 5").getStrippedInt(1));
+        Assertions.assertEquals(Gender.FEMALE, row.reset("1,x,\" FeMale \"").getGender(2));
+        Assertions.assertNull(row.reset("1,x,males").getGender(2));
+
+        // Bytes are decoded as UTF-8, including the names outside of ASCII
+        byte[] bytes = "\"7\",\" J\u00fcrgen M\u00fcller \",\"MALE\"".getBytes(StandardCharsets.UTF_8);
+        row.reset(ByteBuffer.wrap(bytes), 0, bytes.length);
+        Assertions.assertEquals(3, row.getAttributeCount());
+        Assertions.assertEquals(7, row.getInt(0));
+        Assertions.assertEquals("J\u00fcrgen M\u00fcller", row.getString(1));
+        Assertions.assertEquals(Gender.MALE, row.getGender(2));
+    }
+
+    @Test
+    public void test_snapshot() throws IOException, NoSuchPersonException, NoSuchProductException {
+        if (database != null) {
+            Path file = Files.createTempFile("produktdatenbank", ".snapshot");
+            try {
+                // Changes after reading the file have to be part of the snapshot
+                Person p = database.getPersonById(13);
+                p.setName("Raymond Wong-Smith");
+                p.buyProduct(database.getProductById(205));
+
+                Snapshot.write(database, file.toString());
+                Database copy = Snapshot.read(file.toString());
+
+                Assertions.assertEquals(describe(database), describe(copy));
+                Assertions.assertEquals(1, copy.getPeopleByName("wong-smith").count());
+                Assertions.assertEquals(Main.createOutputString(database.getProductNetwork(p)),
+                        Main.createOutputString(copy.getProductNetwork(copy.getPersonById(13))));
+                Assertions.assertEquals(database.getPeople().size(), Snapshot.readColumns(file.toString()).getPeople().size());
+
+                // A file which isn't a snapshot is rejected
+                Files.writeString(file, "New_Entity:");
+                Assertions.assertThrows(IOException.class, () -> Snapshot.read(file.toString()));
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void test_columnStore() throws NoSuchPersonException {
+        if (database != null) {
+            ColumnStore store = ColumnStore.of(database);
+
+            // Every view has to show the same content as the entity it was created of
+            Assertions.assertEquals(ids(database.getPeople()), ids(store.getPeople()));
+            for (Person p : database.getPeople()) {
+                ReadOnlyPerson view = store.getPersonById(p.getId());
+                Assertions.assertEquals(p.toString(), view.toString());
+                Assertions.assertEquals(p.getGender(), view.getGender());
+                Assertions.assertEquals(ids(p.getFriends()), ids(view.getFriends()));
+                Assertions.assertEquals(ids(p.getProducts()), ids(view.getProducts()));
+                Assertions.assertEquals(view, store.getPeople().get(database.getPeople().indexOf(p)));
+            }
+            for (Product p : database.getProducts()) {
+                ReadOnlyProduct view = store.getProducts().get(database.getProducts().indexOf(p));
+                Assertions.assertEquals(p.toString(), view.toString());
+                Assertions.assertEquals(String.valueOf(p.getMadeBy()), String.valueOf(view.getMadeBy()));
+            }
+            for (Company c : database.getCompanies()) {
+                ReadOnlyCompany view = store.getCompanies().get(database.getCompanies().indexOf(c));
+                Assertions.assertEquals(ids(c.getProducts()), ids(view.getProducts()));
+            }
+            for (String name : new String[]{"", "a", "RO", "iP", "xyz"}) {
+                Assertions.assertEquals(ids(database.findPeopleByName(name)), ids(store.findPeopleByName(name)));
+                Assertions.assertEquals(ids(database.findProductsByName(name)), ids(store.findProductsByName(name)));
+            }
+        }
+    }
+
+    @Test
+    public void test_snapshotUpToDate() throws IOException {
+        Path file = writeTempFile("New_Entity:");
+        Path snapshot = Path.of(file + ".snapshot");
+        try {
+            Assertions.assertFalse(Snapshot.isUpToDate(snapshot.toString(), file.toString()));
+
+            // Only a snapshot written after the last change of the file is used
+            Files.writeString(snapshot, "");
+            long now = System.currentTimeMillis();
+            Assertions.assertTrue(file.toFile().setLastModified(now - 10_000) && snapshot.toFile().setLastModified(now));
+            Assertions.assertTrue(Snapshot.isUpToDate(snapshot.toString(), file.toString()));
+
+            Assertions.assertTrue(file.toFile().setLastModified(now));
+            Assertions.assertFalse(Snapshot.isUpToDate(snapshot.toString(), file.toString()));
+
+            Assertions.assertTrue(file.toFile().setLastModified(now + 10_000));
+            Assertions.assertFalse(Snapshot.isUpToDate(snapshot.toString(), file.toString()));
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void test_writeAheadLog() throws Exception {
+        if (database != null) {
+            Path log = Files.createTempFile("produktdatenbank", ".wal");
+            Path snapshot = Files.createTempFile("produktdatenbank", ".snapshot");
+            try {
+                // Every kind of change has to survive a restart
+                long beforeLast;
+                String expectedBeforeLast;
+                try (WriteAheadLog wal = WriteAheadLog.open(database, log.toString(), WriteAheadLog.Durability.ALWAYS, 0)) {
+                    Assertions.assertEquals(0, wal.getReplayed());
+                    database.addPerson(5000, new Person(5000, "Wal Tester", Gender.FEMALE));
+                    database.setFriends(5000, 1);
+                    database.setPersonProduct(5000, 205);
+                    database.getPersonById(13).setId(6000);
+                    database.getPersonById(6000).setGender(Gender.FEMALE);
+                    database.getPersonById(1).removeFriend(database.getPersonById(140));
+                    database.getProductById(205).setName("Tablet");
+
+                    beforeLast = Files.size(log);
+                    expectedBeforeLast = describe(database);
+                    database.getCompanies().get(0).setName("Obst");
+                }
+                String expected = describe(database);
+                Assertions.assertEquals(6000, database.findPeopleByName("Raymond").get(0).getId());
+
+                int records;
+                Database replayed = Reader.readFileToDatabase(Main.pathToFile);
+                try (WriteAheadLog wal = WriteAheadLog.open(replayed, log.toString(), WriteAheadLog.Durability.NONE, 0)) {
+                    records = wal.getReplayed();
+                    Assertions.assertTrue(records > 0);
+                    Assertions.assertEquals(expected, describe(replayed));
+                    Assertions.assertEquals("Raymond Wong", replayed.getPersonById(6000).getName());
+                }
+
+                // A record which was only partially written is dropped and cut off
+                long size = Files.size(log);
+                Files.write(log, new byte[]{0, 0, 0, 40, 10, 0}, StandardOpenOption.APPEND);
+                replayed = Reader.readFileToDatabase(Main.pathToFile);
+                try (WriteAheadLog wal = WriteAheadLog.open(replayed, log.toString(), WriteAheadLog.Durability.NONE, 0)) {
+                    Assertions.assertEquals(records, wal.getReplayed());
+                    Assertions.assertEquals(expected, describe(replayed));
+                    Assertions.assertEquals(size, Files.size(log));
+                }
+
+                // A record with a wrong checksum is dropped together with everything behind it
+                byte[] bytes = Files.readAllBytes(log);
+                bytes[bytes.length - 6]++;
+                Files.write(log, bytes);
+                replayed = Reader.readFileToDatabase(Main.pathToFile);
+                try (WriteAheadLog wal = WriteAheadLog.open(replayed, log.toString(), WriteAheadLog.Durability.NONE, 0)) {
+                    Assertions.assertEquals(expectedBeforeLast, describe(replayed));
+                    Assertions.assertEquals(beforeLast, Files.size(log));
+
+                    // After a checkpoint only the following changes are replayed on top of the snapshot,
+                    // there are enough of them to be read in several parts
+                    wal.checkpoint(snapshot.toString());
+                    for (int i = 0; i < 3_000; i++)
+                        replayed.getPersonById(2).setName("Nach dem Checkpoint umbenannt, zum " + i + ". Mal");
+                }
+                expected = describe(replayed);
+
+                Database restored = Snapshot.read(snapshot.toString());
+                try (WriteAheadLog wal = WriteAheadLog.open(restored, log.toString(), WriteAheadLog.Durability.NONE, 0)) {
+                    Assertions.assertEquals(3_000, wal.getReplayed());
+                    Assertions.assertEquals(expected, describe(restored));
+                }
+            } finally {
+                Files.delete(log);
+                Files.delete(snapshot);
+            }
+        }
+    }
+
+    @Test
+    public void test_writeAheadLogAddedEdges() throws Exception {
+        if (database != null) {
+            Path log = Files.createTempFile("produktdatenbank", ".wal");
+            try {
+                // The friends, products and companies, which entities already have when they are added, are logged with them
+                try (WriteAheadLog wal = WriteAheadLog.open(database, log.toString(), WriteAheadLog.Durability.ALWAYS, 0)) {
+                    Person p = new Person(5000, "Wal Vorher", Gender.MALE);
+                    p.buyProduct(database.getProductById(205));
+                    p.addFriend(database.getPersonById(1));
+                    database.getPersonById(1).addFriend(p);
+                    database.addPerson(5000, p);
+
+                    Product product = new Product(5001, "Wal Produkt");
+                    product.setMadeBy(database.getCompanies().get(0));
+                    database.getPersonById(2).buyProduct(product);
+                    database.addProduct(5001, product);
+
+                    Company company = new Company(5002, "Wal Firma");
+                    Product made = new Product(5003, "Wal Erzeugnis");
+                    made.setMadeBy(company);
+                    company.addProduct(made);
+                    database.addProduct(5003, made);
+                    database.addCompany(5002, company);
+                }
+
+                Database replayed = Reader.readFileToDatabase(Main.pathToFile);
+                try (WriteAheadLog wal = WriteAheadLog.open(replayed, log.toString(), WriteAheadLog.Durability.NONE, 0)) {
+                    Assertions.assertEquals(describe(database), describe(replayed));
+                    Assertions.assertEquals("205", ids(replayed.getPersonById(5000).getProducts()));
+                    Assertions.assertTrue(replayed.getPersonById(1).hasFriend(replayed.getPersonById(5000)));
+                }
+            } finally {
+                Files.delete(log);
+            }
+        }
+    }
+
+    @Test
+    public void test_nameIndex()throws NoSuchPersonException, NoSuchProductException {
+        if (database != null) {
+            // Every search, including the ones shorter than three characters, has to find the same as a scan
+            for (String name : new String[]{"", "a", "RO", "on", "ger", "Roger", "an B", "xyz", "iP", "ipad m"}) {
+                Assertions.assertEquals(scan(database.getPeople(), name), database.findPeopleByName(name));
+                Assertions.assertEquals(scan(database.getProducts(), name), database.findProductsByName(name));
+            }
+
+            // A renamed entity is only found by its new name
+            Person p = database.getPersonById(13);
+            p.setName("Zqxwv Bloggs");
+            Assertions.assertFalse(database.findPeopleByName("Raymond").contains(p));
+            Assertions.assertEquals(List.of(p), database.findPeopleByName("zqxw"));
+            Assertions.assertEquals(List.of(p), database.findPeopleByName("Zq"));
+            Assertions.assertEquals(scan(database.getPeople(), "Bloggs"), database.findPeopleByName("Bloggs"));
+
+            Product pr = database.getProductById(205);
+            pr.setName("Tablet");
+            Assertions.assertEquals(scan(database.getProducts(), "iPad"), database.findProductsByName("iPad"));
+            Assertions.assertEquals(List.of(pr), database.findProductsByName("tablet"));
+        }
+    }
+
+    @Test
+    public void test_networkTable() throws NoSuchPersonException, NoSuchProductException {
+        if (database != null) {
+            NetworkTable<Product> products = database.getAllProductNetworks();
+            NetworkTable<Company> companies = database.getAllCompanyNetworks();
+            String before = describe(database, products, companies);
+            Assertions.assertEquals(describe(database, null, null), before);
+
+            // Change the database after the graph was built, the new tables have to contain the changes
+            database.setFriends(1, 45);
+            database.getPersonById(45).buyProduct(database.getProductById(210));
+            Person p = database.getPersonById(13);
+            p.removeFriend(p.getFriends().get(0));
+            database.getProductById(205).setName("AAA Tablet");
+            database.getProductById(210).setMadeBy(database.getCompanies().get(0));
+            database.addPerson(7000, new Person(7000, "Neue Person", Gender.MALE));
+            database.setFriends(7000, 15);
+
+            Assertions.assertEquals(describe(database, null, null),
+                    describe(database, database.getAllProductNetworks(), database.getAllCompanyNetworks()));
+
+            // The old tables don't change
+            Assertions.assertEquals(before, describe(database, products, companies));
+            Assertions.assertEquals(database.getPeople().size() - 1, products.size());
+        }
+    }
+
+    @Test
+    public void test_renamedNetworks() {
+        if (database != null) {
+            // Build the graph before renaming
+            List<Person> people = database.getPeople();
+            people.forEach(database::getProductNetwork);
+
+            List<Product> products = database.getProducts();
+            products.get(0).setName("zzz");
+            products.get(products.size() - 1).setName("AAA");
+            products.get(1).setName(products.get(2).getName());
+            database.getCompanies().get(0).setName("Aaa");
+
+            // The renamed entities have to be sorted by their new names, like in the networks without the graph
+            for (Person p : people) {
+                // Entities with the same name are in the order they were first found in, with and without the graph
+                Assertions.assertEquals(database.getNetwork(p, Person::getProducts), database.getProductNetwork(p));
+                Assertions.assertEquals(database.getNetwork(p, Person::getCompanies), database.getCompanyNetwork(p));
+
+                List<Ranked<Product>> ranked = database.getRankedProductNetwork(p, 2, Integer.MAX_VALUE);
+                for (int i = 1; i < ranked.size(); i++) {
+                    Ranked<Product> a = ranked.get(i - 1), b = ranked.get(i);
+                    Assertions.assertTrue(a.getScore() > b.getScore()
+                            || a.getEntity().getSortKey().compareTo(b.getEntity().getSortKey()) <= 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_genericNetwork() throws NoSuchPersonException, NoSuchProductException, NoSuchCompanyException {
+        Database db = new Database();
+        db.addCompany(1, new Company(1, "Acme"));
+        db.addCompany(2, new Company(2, "Beta"));
+        db.addProduct(10, new Product(10, "Gleich"));
+        db.addProduct(11, new Product(11, "Gleich"));
+        db.addProduct(12, new Product(12, "Anders"));
+        db.addProduct(13, new Product(13, "Gleich"));
+        db.setManufacturer(11, 2);
+        db.setManufacturer(13, 1);
+        for (int id = 1; id <= 3; id++)
+            db.addPerson(id, new Person(id, "Person " + id, Gender.MALE));
+        db.setFriends(1, 2);
+        db.setFriends(1, 3);
+
+        // A product and a company, which aren't part of the database, with the same names as the ones of the database
+        Product foreign = new Product(99, "Gleich");
+        foreign.setMadeBy(new Company(98, "Acme"));
+
+        // The person only owns a product without a company, the friends own duplicates and the foreign product
+        db.setPersonProduct(1, 12);
+        db.setPersonProduct(2, 11);
+        db.getPersonById(2).buyProduct(foreign);
+        db.setPersonProduct(2, 12);
+        for (int id : new int[]{10, 11, 13})
+            db.setPersonProduct(3, id);
+        db.getPersonById(3).buyProduct(foreign);
+
+        // Entities with the same name are in the order they were found in, the null company of the person is removed
+        Person p = db.getPersonById(1);
+        Assertions.assertEquals("11,99,10,13", ids(db.getNetwork(p, Person::getProducts)));
+        Assertions.assertEquals("98,1,2", ids(db.getNetwork(p, Person::getCompanies)));
+
+        // Products and companies with the same positions are kept apart
+        List<Parent> mixed = db.getNetwork(p, f -> {
+            List<Parent> items = new ArrayList<>(f.getProducts());
+            f.getCompanies().stream().filter(c -> c != null).forEach(items::add);
+            return items;
+        });
+        Assertions.assertEquals(List.of(foreign.getMadeBy(), db.getCompanyById(1), db.getCompanyById(2),
+                db.getProductById(11), foreign, db.getProductById(10), db.getProductById(13)), mixed);
+    }
+
+    @Test
+    public void test_networkTies() throws NoSuchPersonException, NoSuchProductException, NoSuchCompanyException {
+        Database db = new Database();
+        db.addCompany(1, new Company(1, "Apple"));
+        db.addCompany(2, new Company(2, "APPLE"));
+        db.addProduct(10, new Product(10, "ipad"));
+        db.addProduct(11, new Product(11, "IPAD"));
+        db.setManufacturer(10, 1);
+        db.setManufacturer(11, 2);
+        for (int id = 1; id <= 3; id++)
+            db.addPerson(id, new Person(id, "Person " + id, Gender.MALE));
+        db.setFriends(1, 2);
+        db.setFriends(1, 3);
+        db.setPersonProduct(2, 11);
+        db.setPersonProduct(3, 10);
+
+        // Entities with the same name are in the order the friends were added, not in the order of the database
+        Person p = db.getPersonById(1);
+        Assertions.assertEquals("IPAD,ipad", Main.createOutputString(db.getProductNetwork(p)));
+        Assertions.assertEquals("APPLE,Apple", Main.createOutputString(db.getCompanyNetwork(p)));
+
+        // Entities added or renamed after the graph was built are ordered the same way
+        db.addProduct(12, new Product(12, "Ipad"));
+        db.setManufacturer(12, 1);
+        db.setPersonProduct(3, 12);
+        Assertions.assertEquals("IPAD,ipad,Ipad", Main.createOutputString(db.getProductNetwork(p)));
+        db.getProductById(11).setName("Zzz");
+        Assertions.assertEquals("ipad,Ipad,Zzz", Main.createOutputString(db.getProductNetwork(p)));
+        db.getProductById(11).setName("iPad");
+        Assertions.assertEquals("iPad,ipad,Ipad", Main.createOutputString(db.getProductNetwork(p)));
+
+        Assertions.assertEquals(db.getNetwork(p, Person::getProducts), db.getProductNetwork(p));
+        Assertions.assertEquals(db.getNetwork(p, Person::getCompanies), db.getCompanyNetwork(p));
+        Assertions.assertEquals(db.getProductNetwork(p), db.getAllProductNetworks().getNetwork(p));
+    }
+
+    @Test
+    public void test_owners() throws NoSuchPersonException, NoSuchProductException, NoSuchCompanyException {
+        Database db = new Database();
+        db.addCompany(1, new Company(1, "Acme"));
+        db.addCompany(2, new Company(2, "Beta"));
+        db.addProduct(10, new Product(10, "Produkt"));
+        db.setManufacturer(10, 1);
+        db.addPerson(1, new Person(1, "Person 1", Gender.MALE));
+        db.addPerson(2, new Person(2, "Person 2", Gender.FEMALE));
+
+        // A repeated purchase doesn't add the owner or the customer again
+        db.setPersonProduct(2, 10);
+        db.setPersonProduct(1, 10);
+        db.setPersonProduct(2, 10);
+        db.getPersonById(2).buyProduct(db.getProductById(10));
+        Product product = db.getProductById(10);
+        Assertions.assertEquals("1,2", ids(db.getOwners(product)));
+        Assertions.assertEquals("1,2", ids(db.getCustomers(db.getCompanyById(1))));
+
+        // The owners are only counted once, so they aren't customers of the previous company anymore
+        db.setManufacturer(10, 2);
+        Assertions.assertEquals("", ids(db.getCustomers(db.getCompanyById(1))));
+        Assertions.assertEquals("1,2", ids(db.getCustomers(db.getCompanyById(2))));
+    }
+
+    @Test
+    public void test_databaseView() throws NoSuchPersonException, NoSuchProductException, NoSuchCompanyException {
+        if (database != null) {
+            try (ConcurrentDatabase concurrent = new ConcurrentDatabase(database, 1_000)) {
+                DatabaseView before = concurrent.publish();
+                Map<Integer, String> networks = new HashMap<>();
+                for (Person p : before.getPeople())
+                    networks.put(p.getId(), ids(before.getProductNetwork(p.getId())) + " " + ids(before.getCompanyNetwork(p.getId())));
+
+                // Change correlations, names and companies and add new entities
+                Random random = new Random(7);
+                List<Person> people = database.getPeople();
+                List<Product> products = database.getProducts();
+                for (int i = 0; i < 200; i++) {
+                    int id = 100_000 + i;
+                    concurrent.addPerson(id, new Person(id, "Neu " + i, Gender.FEMALE));
+                    concurrent.setFriends(id, people.get(random.nextInt(people.size())).getId());
+                    concurrent.setFriends(people.get(random.nextInt(people.size())).getId(), people.get(random.nextInt(people.size())).getId());
+                    concurrent.setPersonProduct(people.get(random.nextInt(people.size())).getId(), products.get(random.nextInt(products.size())).getId());
+                }
+                concurrent.addProduct(100_000, new Product(100_000, "Aaa Neu"));
+                concurrent.setPersonProduct(100_000, 100_000);
+                concurrent.setManufacturer(100_000, database.getCompanies().get(0).getId());
+                concurrent.update(db -> {
+                    products.get(3).setName("Zzz");
+                    db.getCompanies().get(1).setName("Aaa");
+                });
+                DatabaseView after = concurrent.publish();
+
+                // The new version contains every change, the previous one none of them, but shares the renamed entities
+                for (Person p : people) {
+                    Assertions.assertEquals(database.getProductNetwork(p), after.getProductNetwork(p.getId()));
+                    Assertions.assertEquals(database.getCompanyNetwork(p), after.getCompanyNetwork(p.getId()));
+                    Assertions.assertEquals(database.getRankedProductNetwork(p, 2, 100).toString(), after.getRankedProductNetwork(p.getId(), 2, 100).toString());
+                }
+                for (Person p : before.getPeople())
+                    Assertions.assertEquals(networks.get(p.getId()), ids(before.getProductNetwork(p.getId())) + " " + ids(before.getCompanyNetwork(p.getId())));
+                Assertions.assertThrows(NoSuchPersonException.class, () -> before.getPersonById(100_000));
+                Assertions.assertEquals(List.of(products.get(products.size() - 1)), after.findProductsByName("aaa neu"));
+            }
+        }
+    }
+
+    @Test
+    public void test_indexedList() {
+        IndexedList<Person> list = new IndexedList<>();
+        List<Person> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Person p = new Person(i % 5, "Person " + i, Gender.MALE);
+            Assertions.assertTrue(list.add(p));
+            Assertions.assertFalse(list.add(p));
+            expected.add(p);
+        }
+        Assertions.assertEquals(expected, list);
+
+        // Changed ids and shared ids don't affect the positions
+        Person p = expected.get(7);
+        p.setId(1000);
+        Assertions.assertTrue(list.contains(p));
+        Assertions.assertEquals(7, list.indexOf(p));
+
+        // Removing moves the last element into the gap
+        Assertions.assertTrue(list.remove(p));
+        swapRemove(expected, expected.indexOf(p));
+        Assertions.assertEquals("Person 19", list.get(7).getName());
+        Assertions.assertEquals(swapRemove(expected, 0), list.remove(0));
+        Assertions.assertTrue(list.removeIf(e -> e.getName().endsWith("3")));
+        for (int i = 0; i < expected.size(); ) {
+            if (expected.get(i).getName().endsWith("3"))
+                swapRemove(expected, i);
+            else
+                i++;
+        }
+        Assertions.assertEquals(expected, list);
+        for (int i = 0; i < expected.size(); i++)
+            Assertions.assertEquals(i, list.indexOf(expected.get(i)));
+
+        // Setting, inserting and sorting
+        Person q = new Person(1, "Another", Gender.FEMALE);
+        Assertions.assertEquals(expected.set(2, q), list.set(2, q));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> list.set(0, q));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> list.add(0, q));
+        list.add(0, p);
+        expected.add(0, p);
+        list.sort(new CustomComparator<>());
+        expected.sort(new CustomComparator<>());
+        Assertions.assertEquals(expected, list);
+        Assertions.assertEquals(expected.size() - 1, list.indexOf(expected.get(expected.size() - 1)));
+        Assertions.assertFalse(list.contains(new Person(1, "Another", Gender.FEMALE)));
+
+        // Random changes have to keep every position like an ArrayList, whose last element fills the gaps
+        Random random = new Random(7);
+        Person[] people = new Person[300];
+        for (int i = 0; i < people.length; i++)
+            people[i] = new Person(i, "P" + i, Gender.MALE);
+        for (int i = 0; i < 20_000; i++) {
+            Person e = people[random.nextInt(people.length)];
+            if (random.nextInt(3) == 0)
+                Assertions.assertEquals(expected.contains(e) && swapRemove(expected, expected.indexOf(e)) == e, list.remove(e));
+            else
+                Assertions.assertEquals(!expected.contains(e) && expected.add(e), list.add(e));
+            Assertions.assertEquals(expected.indexOf(e), list.indexOf(e));
+        }
+        Assertions.assertEquals(expected, list);
+
+        // The lists of the entities can only be changed through the entities
+        if (database != null) {
+            Person owner = database.getPeople().get(0);
+            Assertions.assertThrows(UnsupportedOperationException.class, () -> owner.getFriends().clear());
+            Assertions.assertThrows(UnsupportedOperationException.class, () -> owner.getProducts().add(database.getProducts().get(0)));
+            Assertions.assertThrows(UnsupportedOperationException.class, () -> database.getCompanies().get(0).getProducts().remove(0));
+        }
+    }
+
+    @Test
+    public void test_scratchBitSet() {
+        ScratchBitSet bits = new ScratchBitSet(64);
+
+        // A word emptied by clearing its bits is drained once
+        bits.set(5);
+        bits.clear(5);
+        Assertions.assertTrue(bits.set(6));
+        Assertions.assertFalse(bits.set(6));
+        Assertions.assertArrayEquals(new int[]{6}, bits.drain());
+        Assertions.assertArrayEquals(new int[0], bits.drain());
+
+        // Random changes beyond the capacity have to match a BitSet
+        Random random = new Random(7);
+        BitSet expected = new BitSet();
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 500; i++) {
+                int bit = random.nextInt(1 << (6 + round % 10));
+                if (random.nextInt(3) == 0) {
+                    bits.clear(bit);
+                    expected.clear(bit);
+                } else {
+                    Assertions.assertEquals(!expected.get(bit), bits.set(bit));
+                    expected.set(bit);
+                }
+                Assertions.assertEquals(expected.get(bit), bits.get(bit));
+            }
+
+            if (round % 2 == 0) {
+                Assertions.assertArrayEquals(expected.stream().toArray(), bits.drain());
+            } else {
+                bits.clear();
+                Assertions.assertArrayEquals(new int[0], bits.drain());
+            }
+            expected.clear();
+        }
+    }
+
+    @Test
+    public void test_ownersOfAddedEntities() throws NoSuchPersonException, NoSuchProductException, NoSuchCompanyException {
+        Database db = new Database();
+        db.addProduct(10, new Product(10, "Produkt"));
+        Product product = db.getProductById(10);
+
+        // A person, who already owns a product when added, is an owner and a customer of its next company
+        Person p = new Person(1, "Person 1", Gender.MALE);
+        p.buyProduct(product);
+        db.addPerson(1, p);
+        db.addCompany(1, new Company(1, "Acme"));
+        product.setMadeBy(db.getCompanyById(1));
+        Assertions.assertEquals("1", ids(db.getOwners(product)));
+        Assertions.assertEquals("1", ids(db.getCustomers(db.getCompanyById(1))));
+
+        // A product bought before it was added, whose company is added last
+        Company later = new Company(2, "Beta");
+        Product other = new Product(11, "Anderes");
+        other.setMadeBy(later);
+        p.buyProduct(other);
+        db.addPerson(2, new Person(2, "Person 2", Gender.FEMALE));
+        db.getPersonById(2).buyProduct(other);
+        db.addProduct(11, other);
+        Assertions.assertEquals("1,2", ids(db.getOwners(other)));
+        Assertions.assertEquals("1", ids(db.getCustomers(db.getCompanyById(1))));
+        db.addCompany(2, later);
+        Assertions.assertEquals("1,2", ids(db.getCustomers(later)));
+        Assertions.assertEquals("1", ids(db.getCustomers(db.getCompanyById(1))));
+
+        // The company network of a friend contains the company, like the customers
+        db.addPerson(3, new Person(3, "Person 3", Gender.MALE));
+        db.setFriends(3, 1);
+        Assertions.assertEquals("1,2", ids(db.getCompanyNetwork(db.getPersonById(3))));
+    }
+
+    @Test
+    public void test_histogram() {
+        // Small values have a bucket of their own
+        Histogram histogram = new Histogram("test");
+        for (int i = 0; i < 16; i++)
+            histogram.record(i);
+        Assertions.assertEquals(7L, histogram.getP50());
+        Assertions.assertEquals(15L, histogram.getP99());
+        Assertions.assertEquals(0L, histogram.getPercentile(0));
+        Assertions.assertEquals(7.5, histogram.getMean());
+
+        // Negative values are recorded as 0, resetting removes every value
+        histogram.record(-5);
+        Assertions.assertEquals(17L, histogram.getCount());
+        Assertions.assertEquals(15L, histogram.getMax());
+        histogram.reset();
+        Assertions.assertEquals(0L, histogram.getCount());
+        Assertions.assertEquals(0L, histogram.getP999());
+
+        // Every percentile is at most a sixteenth bigger than the recorded value and never bigger than the maximum
+        Random random = new Random(7);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 40);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percentile : new double[]{1, 25, 50, 90, 99, 99.9, 100}) {
+            long expected = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+            long actual = histogram.getPercentile(percentile);
+            Assertions.assertTrue(actual >= expected && actual <= expected + expected / 16, percentile + ": " + actual + " / " + expected);
+        }
+        Assertions.assertEquals(values[values.length - 1], histogram.getPercentile(100));
+        Assertions.assertTrue(histogram.toString().startsWith("test: count=10000 "));
+    }
+
+    @Test
+    public void test_metrics() {
+        // Metrics with the same name are the same
+        LongAdder counter = Metrics.counter("test.counter");
+        Assertions.assertSame(counter, Metrics.counter("test.counter"));
+        Assertions.assertSame(Metrics.histogram("test.histogram"), Metrics.histogram("test.histogram"));
+        counter.add(3);
+        Metrics.histogram("test.histogram").record(5);
+
+        String dump = Metrics.dumpAll();
+        Assertions.assertTrue(dump.contains("test.counter: " + counter.sum() + "\n"));
+        Assertions.assertTrue(dump.contains(Metrics.histogram("test.histogram") + "\n"));
+
+        // Both readers record the duration of every set of entries of the file
+        if (Metrics.ENABLED) {
+            String[] operations = {"ADD_PERSON", "ADD_PRODUCT", "ADD_COMPANY", "SET_FRIEND", "SET_PERSON_PRODUCT", "SET_PRODUCT_COMPANY", "NONE"};
+            long[] before = new long[operations.length];
+            for (int i = 0; i < operations.length; i++)
+                before[i] = Metrics.histogram("reader.section." + operations[i] + ".ns").getCount();
+
+            Reader.readFileToDatabase(Main.pathToFile);
+            long[] sequential = new long[operations.length];
+            for (int i = 0; i < operations.length; i++)
+                sequential[i] = Metrics.histogram("reader.section." + operations[i] + ".ns").getCount() - before[i];
+
+            ParallelReader.readFileToDatabase(Main.pathToFile);
+            for (int i = 0; i < operations.length; i++)
+                Assertions.assertEquals(2 * sequential[i], Metrics.histogram("reader.section." + operations[i] + ".ns").getCount() - before[i]);
+            Assertions.assertEquals(6L, Arrays.stream(sequential).sum());
+        }
+    }
+
+    @Test
+    public void test_recommendations()throws NoSuchPersonException, NoSuchProductException, NoSuchCompanyException {
+        // Friend 2 and 3 own product 10, ties are sorted by name and the products of the person are left out
+        Database db = new Database();
+        for (int id = 1; id <= 4; id++)
+            db.addPerson(id, new Person(id, "Person " + id, Gender.MALE));
+        String[] names = {"B", "A", "C", "A", "D", "E"};
+        for (int i = 0; i < names.length; i++)
+            db.addProduct(10 + i, new Product(10 + i, names[i]));
+        db.addCompany(20, new Company(20, "Zeta"));
+        db.addCompany(21, new Company(21, "Alpha"));
+        db.addCompany(22, new Company(22, "Beta"));
+        int[][] madeBy = {{10, 20}, {11, 20}, {12, 21}, {13, 21}, {14, 22}, {15, 22}};
+        for (int[] pair : madeBy)
+            db.setManufacturer(pair[0], pair[1]);
+        int[][] owns = {{1, 14}, {2, 10}, {2, 11}, {2, 14}, {3, 10}, {3, 13}, {3, 14}, {4, 12}, {4, 14}, {4, 15}};
+        for (int[] pair : owns)
+            db.setPersonProduct(pair[0], pair[1]);
+        for (int id = 2; id <= 4; id++)
+            db.setFriends(1, id);
+
+        Person p = db.getPersonById(1);
+        Assertions.assertEquals("10:2,11:1,13:1,12:1,15:1", recommendations(db.getProductRecommendations(p, 10)));
+        Assertions.assertEquals("10:2,11:1", recommendations(db.getProductRecommendations(p, 2)));
+        Assertions.assertEquals("21:2,20:2", recommendations(db.getCompanyRecommendations(p, 10)));
+        Assertions.assertEquals("21:2", recommendations(db.getCompanyRecommendations(p, 1)));
+        Assertions.assertEquals("", recommendations(db.getProductRecommendations(new Person(1, "Fremd", Gender.MALE), 3)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> db.getProductRecommendations(p, 0));
+
+        // Every recommendation of the file has to match counting the friends of every candidate
+        if (database != null) {
+            for (Person q : database.getPeople()) {
+                for (int limit : new int[]{1, 3, 1000}) {
+                    Assertions.assertEquals(countRecommendations(database, q, limit, false), recommendations(database.getProductRecommendations(q, limit)));
+                    Assertions.assertEquals(countRecommendations(database, q, limit, true), recommendations(database.getCompanyRecommendations(q, limit)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_networkCache()throws NoSuchPersonException, NoSuchProductException, NoSuchCompanyException {
+        if (database != null) {
+            NetworkCache cache = database.getNetworkCache();
+            Person p = database.getPersonById(1);
+            Person friend = p.getFriends().get(0);
+
+            // The second query is answered by the cache
+            long hits = cache.getHits(), misses = cache.getMisses();
+            List<Product> products = database.getProductNetwork(p);
+            Assertions.assertEquals(misses + 1, cache.getMisses());
+            Assertions.assertSame(products.get(0), database.getProductNetwork(p).get(0));
+            Assertions.assertEquals(hits + 1, cache.getHits());
+
+            // A purchase of a friend removes the network
+            Product bought = null;
+            for (Product pr : database.getProducts())
+                if (!products.contains(pr) && !p.getProducts().contains(pr))
+                    bought = pr;
+            database.setPersonProduct(friend.getId(), bought.getId());
+            misses = cache.getMisses();
+            Assertions.assertTrue(database.getProductNetwork(p).contains(bought));
+            Assertions.assertEquals(misses + 1, cache.getMisses());
+            Assertions.assertEquals(database.getNetwork(p, Person::getProducts), database.getProductNetwork(p));
+
+            // A new company of a product only removes the company networks of its owners and their friends
+            Person stranger = null;
+            for (Person q : database.getPeople()) {
+                boolean depends = q.getProducts().contains(bought);
+                for (Person f : q.getFriends())
+                    depends |= f.getProducts().contains(bought);
+                if (!depends)
+                    stranger = q;
+            }
+            database.getCompanyNetwork(p);
+            database.getCompanyNetwork(stranger);
+            database.getProductNetwork(friend);
+            database.addCompany(9000, new Company(9000, "Neue Firma"));
+            database.setManufacturer(bought.getId(), 9000);
+            misses = cache.getMisses();
+            Assertions.assertEquals(database.getNetwork(p, Person::getCompanies), database.getCompanyNetwork(p));
+            Assertions.assertEquals(misses + 1, cache.getMisses());
+            database.getCompanyNetwork(stranger);
+            database.getProductNetwork(friend);
+            Assertions.assertEquals(misses + 1, cache.getMisses());
+
+            // A renamed product is sorted by its new name
+            database.getProductNetwork(p);
+            bought.setName("");
+            misses = cache.getMisses();
+            Assertions.assertSame(bought, database.getProductNetwork(p).get(0));
+            Assertions.assertEquals(misses + 1, cache.getMisses());
+
+            // A full cache drops networks, a cache without capacity doesn't store any
+            cache.setCapacity(16 * 20);
+            for (Person q : database.getPeople())
+                database.getProductNetwork(q);
+            Assertions.assertTrue(cache.size() > 0 && cache.size() <= 32);
+            cache.setCapacity(0);
+            database.getProductNetwork(p);
+            Assertions.assertEquals(0, cache.size());
+            Assertions.assertEquals(database.getNetwork(p, Person::getProducts), database.getProductNetwork(p));
+        }
+    }
+
+    @Test
+    public void test_compressedBitmap() {
+        // 4097 ints need a bitmap, removing one of them goes back to an array of 4096 ints
+        CompressedBitmap bits = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        for (int i = 0; i <= 4096; i++) {
+            Assertions.assertTrue(bits.add(3 * i));
+            expected.set(3 * i);
+        }
+        Assertions.assertFalse(bits.add(0));
+        Assertions.assertTrue(bits.remove(3));
+        Assertions.assertFalse(bits.remove(3));
+        expected.clear(3);
+        Assertions.assertArrayEquals(expected.stream().toArray(), bits.toArray());
+        Assertions.assertTrue(bits.add(4));
+        Assertions.assertTrue(bits.remove(4));
+        Assertions.assertArrayEquals(expected.stream().toArray(), bits.toArray());
+
+        // Random sets of array and bitmap containers have to match a BitSet, also after removing the ints of another one
+        Random random = new Random(7);
+        for (int round = 0; round < 30; round++) {
+            CompressedBitmap a = new CompressedBitmap(), b = new CompressedBitmap();
+            BitSet expectedA = new BitSet(), expectedB = new BitSet();
+            fill(a, expectedA, random);
+            fill(b, expectedB, random);
+
+            if (round % 2 == 0) {
+                for (int value : b.toArray()) {
+                    Assertions.assertEquals(expectedA.get(value), a.remove(value));
+                    expectedA.clear(value);
+                }
+            }
+
+            Assertions.assertArrayEquals(expectedA.stream().toArray(), a.toArray());
+            Assertions.assertEquals(expectedA.isEmpty(), a.isEmpty());
+            Assertions.assertArrayEquals(expectedB.stream().toArray(), b.toArray());
+            for (int i = 0; i < 1_000; i++) {
+                int value = random.nextInt(4 << 16);
+                Assertions.assertEquals(expectedA.get(value), a.contains(value));
+            }
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new CompressedBitmap().add(-1));
+    }
+
+    @Test
+    public void test_intIntMap() {
+        IntIntMap map = new IntIntMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        // Grow the map with negative keys and remove keys of long probe sequences
+        for (int i = 0; i < 20_000; i++) {
+            int key = (random.nextInt(4_000) - 1_000) << 16;
+            if (random.nextInt(3) == 0) {
+                Integer value = expected.remove(key);
+                Assertions.assertEquals(value == null ? IntIntMap.MISSING : value, map.remove(key));
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), map.size());
+        Assertions.assertTrue(map.capacity() >= 2 * map.size());
+        expected.forEach((key, value) -> Assertions.assertEquals((int) value, map.get(key)));
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        Assertions.assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).sorted().toArray(), keys);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> map.put(1, -1));
+
+        map.clear();
+        Assertions.assertEquals(0, map.size());
+        Assertions.assertEquals(IntIntMap.MISSING, map.get(keys[0]));
+    }
+
+    @Test
+    public void test_intObjectMap() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+
+        // Dense keys are stored directly and grow the map
+        for (int key = 0; key < 1_000; key++)
+            Assertions.assertEquals(expected.put(key, "d" + key), map.put(key, "d" + key));
+        Assertions.assertEquals("d999", map.put(999, "x"));
+        expected.put(999, "x");
+        Assertions.assertEquals("d5", map.remove(5));
+        Assertions.assertNull(map.remove(5));
+        Assertions.assertNull(map.remove(-1));
+        expected.remove(5);
+
+        // A key far away from the others and negative keys switch to the hash table
+        Assertions.assertNull(map.put(1_000_000, "far"));
+        expected.put(1_000_000, "far");
+        Random random = new Random(7);
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt() >> random.nextInt(32);
+            Assertions.assertEquals(expected.put(key, "h" + i), map.put(key, "h" + i));
+
+            // Removing keys mustn't break the probe sequences of the others
+            if (i % 3 == 0) {
+                int removed = random.nextBoolean() ? key : random.nextInt(2_000);
+                Assertions.assertEquals(expected.remove(removed), map.remove(removed));
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> Assertions.assertEquals(value, map.get(key)));
+        Assertions.assertNull(map.get(Integer.MIN_VALUE + 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    public void test_longObjectMap() {
+        LongObjectMap<String> map = new LongObjectMap<>(4);
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        // Grow the map and remove keys of long probe sequences
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(5_000) * 0x1_0000_0001L;
+            if (random.nextInt(3) == 0)
+                Assertions.assertEquals(expected.remove(key), map.remove(key));
+            else
+                Assertions.assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+        }
+
+        Assertions.assertEquals(expected.size(), map.size());
+        Assertions.assertTrue(map.capacity() >= 2 * map.size());
+        expected.forEach((key, value) -> Assertions.assertEquals(value, map.get(key)));
+        Assertions.assertNull(map.get(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+
+    /**
+     * Get the {@code id}'s of entities
+     *
+     * @param entities The entities
+     *
+     * @return The {@code id}'s separated by commas
+     */
+    private static String ids(List<? extends ReadOnlyEntity> entities) {
+        return entities.stream().map(e -> String.valueOf(e.getId())).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Get the sorted {@code id}'s of entities
+     *
+     * @param entities The entities
+     *
+     * @return The {@code id}'s in ascending order separated by commas
+     */
+    private static String sortedIds(List<? extends Parent> entities) {
+        return entities.stream().mapToInt(Parent::getId).sorted().mapToObj(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Describes recommendations by the {@code id} and the number of friends of every entity
+     *
+     * @param recommendations The recommendations
+     *
+     * @return The {@code id's} and numbers separated by commas
+     */
+    private static String recommendations(List<? extends Ranked<?>> recommendations) {
+        return recommendations.stream().map(r -> r.getEntity().getId() + ":" + (int) r.getScore()).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Get the recommendations of a {@link Person} by counting the friends owning every entity of the network
+     * The network is sorted by the number of friends, entities with the same number by name and position
+     *
+     * @param db The {@link Database}
+     * @param p The {@link Person}
+     * @param limit The maximal number of recommendations
+     * @param companies {@code true} for companies, {@code false} for products
+     *
+     * @return The recommendations like {@link #recommendations(List)} describes them
+     */
+    private static String countRecommendations(Database db, Person p, int limit, boolean companies) {
+        List<Parent> candidates = new ArrayList<>(companies ? db.getNetwork(p, Person::getCompanies) : db.getNetwork(p, Person::getProducts));
+        Map<Parent, Integer> counts = new HashMap<>();
+        for (Parent candidate : candidates) {
+            int count = 0;
+            for (Person f : p.getFriends())
+                if ((companies ? f.getCompanies() : f.getProducts()).contains(candidate))
+                    count++;
+            counts.put(candidate, count);
+        }
+
+        List<? extends Parent> positions = companies ? db.getCompanies() : db.getProducts();
+        candidates.sort(Comparator.<Parent>comparingInt(e -> -counts.get(e)).thenComparing(Parent::getSortKey).thenComparingInt(positions::indexOf));
+        return candidates.stream().limit(limit).map(e -> e.getId() + ":" + counts.get(e)).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Removes an element of a {@link List} like {@link IndexedList} does, by moving the last element into its place
+     *
+     * @param list The {@link List}
+     * @param index The position of the element
+     * @param <T> The type of the elements
+     *
+     * @return The removed element
+     */
+    private static <T> T swapRemove(List<T> list, int index) {
+        T element = list.get(index);
+        T last = list.remove(list.size() - 1);
+        if (index < list.size())
+            list.set(index, last);
+        return element;
+    }
+
+    /**
+     * Adds random ints of four chunks to a {@link CompressedBitmap} and a {@link BitSet}
+     * Every chunk is empty, sparse, dense or a long range, so both kinds of containers are used
+     *
+     * @param bits The {@link CompressedBitmap}
+     * @param expected The {@link BitSet}
+     * @param random The source of the random ints
+     */
+    private static void fill(CompressedBitmap bits, BitSet expected, Random random) {
+        for (int chunk = 0; chunk < 4; chunk++) {
+            int base = chunk << 16;
+            int kind = random.nextInt(4);
+            int count = kind == 1 ? random.nextInt(4096) : kind == 2 ? 4096 + random.nextInt(20_000) : 0;
+            for (int i = 0; i < count; i++) {
+                int value = base + random.nextInt(1 << 16);
+                Assertions.assertEquals(!expected.get(value), bits.add(value));
+                expected.set(value);
+            }
+            if (kind == 3) {
+                int from = base + random.nextInt(1 << 15);
+                int to = from + random.nextInt(1 << 15);
+                for (int value = from; value < to; value++) {
+                    bits.add(value);
+                    expected.set(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches the names of every entity without any index
+     *
+     * @param entities Every entity
+     * @param name The {@link String} to search for
+     * @param <T> The type of the entities
+     *
+     * @return A {@link List} of every entity whose name contains the {@link String}, ignoring the case
+     */
+    private static <T extends Parent> List<T> scan(List<T> entities, String name) {
+        return entities.stream().filter(e -> e.getName().toLowerCase().contains(name.toLowerCase())).collect(Collectors.toList());
+    }
+
+    /**
+     * Writes a temporary file
+     *
+     * @param content The content of the file
+     *
+     * @return The path to the file, which has to be deleted afterwards
+     * @throws IOException If the file can't be written
+     */
+    private static Path writeTempFile(String content) throws IOException {
+        Path file = Files.createTempFile("produktdatenbank", ".db");
+        Files.writeString(file, content);
+        return file;
+    }
+
+    /**
+     * Describes every entity of a database and its relations in a single {@link String}
+     *
+     * @param db The {@link Database}
+     *
+     * @return The description
+     */
+    private static String describe(Database db) {
+        StringBuilder text = new StringBuilder();
+        for (Person p : db.getPeople())
+            text.append(p).append(p.getGender()).append(p.getFriends()).append(p.getProducts()).append('\n');
+        for (Product p : db.getProducts())
+            text.append(p).append(p.getMadeBy()).append('\n');
+        for (Company c : db.getCompanies())
+            text.append(c).append(c.getProducts()).append('\n');
+        return text.toString();
+    }
+
+    /**
+     * Describes the product and company network of every {@link Person}, who is part of a table
+     *
+     * @param db The {@link Database}
+     * @param products The product networks, or null to query them one by one
+     * @param companies The company networks, or null to query them one by one
+     *
+     * @return The {@code id's} of every network, one line per {@link Person}
+     */
+    private static String describe(Database db, NetworkTable<Product> products, NetworkTable<Company> companies) {
+        StringBuilder text = new StringBuilder();
+        List<Person> people = products == null ? db.getPeople() : db.getPeople().subList(0, products.size());
+        for (Person p : people) {
+            text.append(p.getId()).append(": ")
+                    .append(ids(products == null ? db.getProductNetwork(p) : products.getNetwork(p))).append(" / ")
+                    .append(ids(companies == null ? db.getCompanyNetwork(p) : companies.getNetwork(p))).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Get the number of invalid lines, which were logged between two calls of {@link model.ErrorSink#getCounts()}
+     *
+     * @param before The counts of the first call
+     * @param after The counts of the second call
+     *
+     * @return The difference of the counts of every error
+     */
+    private static Map<String, Long> difference(Map<String, Long> before, Map<String, Long> after) {
+        Map<String, Long> result = new HashMap<>();
+        after.forEach((error, count) -> {
+            long difference = count - before.getOrDefault(error, 0L);
+            if (difference > 0)
+                result.put(error, difference);
+        });
+        return result;
+    }
 }
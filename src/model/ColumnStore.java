@@ -0,0 +1,668 @@
+package model;
+
+import util.Gender;
+import util.IntIntMap;
+import util.IntList;
+import util.exceptions.NoSuchCompanyException;
+import util.exceptions.NoSuchPersonException;
+import util.exceptions.NoSuchProductException;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * An immutable, columnar copy of the content of a {@link Database}, which needs a fraction of its memory
+ * <p>
+ * Every entity is represented by its position. The {@code id's} are stored in an int column for every kind of entity,
+ * the genders in a byte column. Every distinct name is stored once in a {@link NameDictionary} outside of the heap,
+ * every entity only has the handle of its name. The correlations are stored like in the {@link Graph},
+ * as consecutive rows of positions in shared int arrays.
+ * <p>
+ * No {@link Person}, {@link Product} or {@link Company} is stored. The returned entities are small views implementing
+ * {@link ReadOnlyPerson}, {@link ReadOnlyProduct} and {@link ReadOnlyCompany}, which are created on every access and only contain
+ * the store and the position. Their {@code id's}, names and correlations are read from the columns,
+ * so views of the same entity are equal, but not identical. The views have no methods to change them.
+ * A store can be created of a {@link Database} or read from a {@link Snapshot} without creating any entity.
+ */
+public class ColumnStore {
+    /**
+     * Every {@link Gender} based on its ordinal
+     */
+    private static final Gender[] GENDERS = Gender.values();
+
+    /**
+     * Contains the {@code id} of every {@link Person}, {@link Product} and {@link Company} based on their position
+     */
+    private final int[] personIds, productIds, companyIds;
+
+    /**
+     * Contains the handle of the name of every {@link Person}, {@link Product} and {@link Company}, or -1 if there is none
+     */
+    private final int[] personNames, productNames, companyNames;
+
+    /**
+     * Contains every distinct name
+     */
+    private final NameDictionary names;
+
+    /**
+     * Contains the ordinal of the {@link Gender} of every {@link Person}, or -1 if there is none
+     */
+    private final byte[] genders;
+
+    /**
+     * The friends of every {@link Person} are {@code friendTargets[friendOffsets[p]..friendOffsets[p + 1])}
+     */
+    private final int[] friendOffsets, friendTargets;
+
+    /**
+     * The products of every {@link Person} are {@code ownTargets[ownOffsets[p]..ownOffsets[p + 1])}
+     */
+    private final int[] ownOffsets, ownTargets;
+
+    /**
+     * The products of every {@link Company} are {@code madeTargets[madeOffsets[c]..madeOffsets[c + 1])}
+     */
+    private final int[] madeOffsets, madeTargets;
+
+    /**
+     * Contains the position of the {@link Company} of every {@link Product}, or -1 if there is none
+     */
+    private final int[] madeBy;
+
+    /**
+     * Contain the position of every {@link Person}, {@link Product} and {@link Company} based on their {@code id}
+     */
+    private final IntIntMap peopleMap, productsMap, companiesMap;
+
+    /**
+     * Creates a new store of its columns, which mustn't be changed afterwards
+     *
+     * @param personIds The {@code id} of every {@link Person}
+     * @param personNames The handle of the name of every {@link Person}
+     * @param genders The ordinal of the {@link Gender} of every {@link Person}
+     * @param productIds The {@code id} of every {@link Product}
+     * @param productNames The handle of the name of every {@link Product}
+     * @param companyIds The {@code id} of every {@link Company}
+     * @param companyNames The handle of the name of every {@link Company}
+     * @param names The {@link NameDictionary} containing every name
+     * @param friendOffsets The start of the friends of every {@link Person}, followed by the number of friendships
+     * @param friendTargets The positions of the friends
+     * @param ownOffsets The start of the products of every {@link Person}, followed by the number of owned products
+     * @param ownTargets The positions of the owned products
+     * @param madeOffsets The start of the products of every {@link Company}, followed by the number of made products
+     * @param madeTargets The positions of the made products
+     * @param madeBy The position of the {@link Company} of every {@link Product}
+     */
+    ColumnStore(int[] personIds, int[] personNames, byte[] genders, int[] productIds, int[] productNames,
+                int[] companyIds, int[] companyNames, NameDictionary names, int[] friendOffsets, int[] friendTargets,
+                int[] ownOffsets, int[] ownTargets, int[] madeOffsets, int[] madeTargets, int[] madeBy) {
+        this.personIds = personIds;
+        this.personNames = personNames;
+        this.genders = genders;
+        this.productIds = productIds;
+        this.productNames = productNames;
+        this.companyIds = companyIds;
+        this.companyNames = companyNames;
+        this.names = names;
+        this.friendOffsets = friendOffsets;
+        this.friendTargets = friendTargets;
+        this.ownOffsets = ownOffsets;
+        this.ownTargets = ownTargets;
+        this.madeOffsets = madeOffsets;
+        this.madeTargets = madeTargets;
+        this.madeBy = madeBy;
+
+        peopleMap = toMap(personIds);
+        productsMap = toMap(productIds);
+        companiesMap = toMap(companyIds);
+    }
+
+    /**
+     * Creates a new store containing every entity and correlation of a {@link Database}
+     * Has to be called while the {@link Database} isn't changed
+     *
+     * @param db The {@link Database}
+     *
+     * @return The store
+     */
+    public static ColumnStore of(Database db) {
+        List<Person> people = db.getPeople();
+        List<Product> products = db.getProducts();
+        List<Company> companies = db.getCompanies();
+
+        // Store every distinct name once
+        NameDictionary names = new NameDictionary(0);
+        int[] personNames = handles(people, names);
+        int[] productNames = handles(products, names);
+        int[] companyNames = handles(companies, names);
+
+        // Store the genders and the companies
+        byte[] genders = new byte[people.size()];
+        for (int i = 0; i < genders.length; i++) {
+            Gender gender = people.get(i).getGender();
+            genders[i] = (byte) (gender == null ? -1 : gender.ordinal());
+        }
+
+        int[] madeBy = new int[products.size()];
+        for (int i = 0; i < madeBy.length; i++)
+            madeBy[i] = Database.indexOf(companies, products.get(i).getMadeBy());
+
+        // Store every correlation as rows of positions
+        int[] friendOffsets = new int[people.size() + 1];
+        int[] friendTargets = rows(people, people, Person::getFriends, friendOffsets);
+        int[] ownOffsets = new int[people.size() + 1];
+        int[] ownTargets = rows(people, products, Person::getProducts, ownOffsets);
+        int[] madeOffsets = new int[companies.size() + 1];
+        int[] madeTargets = rows(companies, products, Company::getProducts, madeOffsets);
+
+        return new ColumnStore(ids(people), personNames, genders, ids(products), productNames, ids(companies), companyNames,
+                names, friendOffsets, friendTargets, ownOffsets, ownTargets, madeOffsets, madeTargets, madeBy);
+    }
+
+    /**
+     * Get a {@link Person} based on their {@code id}
+     *
+     * @param id The {@code id} to search for
+     *
+     * @return A view of the {@link Person} if the {@code id} is correct
+     *
+     * @throws NoSuchPersonException If no {@link Person} can be found with that {@code id}
+     */
+    public ReadOnlyPerson getPersonById(int id) throws NoSuchPersonException {
+        int pos = peopleMap.get(id);
+        if (pos != IntIntMap.MISSING)
+            return person(pos);
+        else
+            throw new NoSuchPersonException(id);
+    }
+
+    /**
+     * Get a {@link Product} based on their {@code id}
+     *
+     * @param id The {@code id} to search for
+     *
+     * @return A view of the {@link Product} if the {@code id} is correct
+     *
+     * @throws NoSuchProductException If no {@link Product} can be found with that {@code id}
+     */
+    public ReadOnlyProduct getProductById(int id) throws NoSuchProductException {
+        int pos = productsMap.get(id);
+        if (pos != IntIntMap.MISSING)
+            return product(pos);
+        else
+            throw new NoSuchProductException(id);
+    }
+
+    /**
+     * Get a {@link Company} based on their {@code id}
+     *
+     * @param id The {@code id} to search for
+     *
+     * @return A view of the {@link Company} if the {@code id} is correct
+     *
+     * @throws NoSuchCompanyException If no {@link Company} can be found with that {@code id}
+     */
+    public ReadOnlyCompany getCompanyById(int id) throws NoSuchCompanyException {
+        int pos = companiesMap.get(id);
+        if (pos != IntIntMap.MISSING)
+            return company(pos);
+        else
+            throw new NoSuchCompanyException(id);
+    }
+
+    /**
+     * Get every {@link Person}
+     *
+     * @return An unmodifiable {@link List} creating a view of every {@link Person} on access
+     */
+    public List<ReadOnlyPerson> getPeople() {
+        return new Row<>(null, 0, personIds.length, this::person);
+    }
+
+    /**
+     * Get every {@link Product}
+     *
+     * @return An unmodifiable {@link List} creating a view of every {@link Product} on access
+     */
+    public List<ReadOnlyProduct> getProducts() {
+        return new Row<>(null, 0, productIds.length, this::product);
+    }
+
+    /**
+     * Get every {@link Company}
+     *
+     * @return An unmodifiable {@link List} creating a view of every {@link Company} on access
+     */
+    public List<ReadOnlyCompany> getCompanies() {
+        return new Row<>(null, 0, companyIds.length, this::company);
+    }
+
+    /**
+     * Get all the {@link Person people} based on a provided {@link String}
+     *
+     * @param name The {@link String} to search for
+     *
+     * @return An unmodifiable {@link List} of views of every {@link Person} who's {@code name} contains the {@link String}, ignoring the case
+     *
+     * @see Database#findPeopleByName(String)
+     */
+    public List<ReadOnlyPerson> findPeopleByName(String name) {
+        return search(name, personNames, this::person);
+    }
+
+    /**
+     * Get all the {@link Product products} based on a provided {@link String}
+     *
+     * @param name The {@link String} to search for
+     *
+     * @return An unmodifiable {@link List} of views of every {@link Product} who's {@code name} contains the {@link String}, ignoring the case
+     *
+     * @see Database#findProductsByName(String)
+     */
+    public List<ReadOnlyProduct> findProductsByName(String name) {
+        return search(name, productNames, this::product);
+    }
+
+    /**
+     * Get the approximate number of bytes of every column and index on the heap
+     *
+     * @return The number of bytes
+     */
+    public long estimatedSize() {
+        long ints = (long) personIds.length + productIds.length + companyIds.length
+                + personNames.length + productNames.length + companyNames.length
+                + friendOffsets.length + friendTargets.length + ownOffsets.length + ownTargets.length
+                + madeOffsets.length + madeTargets.length + madeBy.length
+                + 2L * (peopleMap.capacity() + productsMap.capacity() + companiesMap.capacity());
+        return ints * Integer.BYTES + genders.length + names.heapSize();
+    }
+
+    /**
+     * Get the number of bytes of the names, which are stored outside of the heap
+     *
+     * @return The number of bytes
+     */
+    public long offHeapSize() {
+        return names.offHeapSize();
+    }
+
+    /**
+     * Creates a view of a {@link Person}
+     *
+     * @param pos The position of the {@link Person}
+     *
+     * @return The view
+     */
+    private ReadOnlyPerson person(int pos) {
+        return new PersonView(this, pos);
+    }
+
+    /**
+     * Creates a view of a {@link Product}
+     *
+     * @param pos The position of the {@link Product}
+     *
+     * @return The view
+     */
+    private ReadOnlyProduct product(int pos) {
+        return new ProductView(this, pos);
+    }
+
+    /**
+     * Creates a view of a {@link Company}
+     *
+     * @param pos The position of the {@link Company}
+     *
+     * @return The view, or null if the position is -1
+     */
+    private ReadOnlyCompany company(int pos) {
+        return pos < 0 ? null : new CompanyView(this, pos);
+    }
+
+    /**
+     * Get every entity of one kind whose name contains a {@link String}
+     *
+     * @param name The {@link String} to search for
+     * @param handles The handles of the names of the entities
+     * @param view Creates the view of a position
+     * @param <T> The type of the views
+     *
+     * @return An unmodifiable {@link List} of views of every matching entity in the order of their positions
+     */
+    private <T> List<T> search(String name, int[] handles, IntFunction<T> view) {
+        BitSet matches = names.search(name);
+        List<T> results = new ArrayList<>();
+        for (int i = 0; i < handles.length; i++)
+            if (handles[i] >= 0 && matches.get(handles[i]))
+                results.add(view.apply(i));
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Adds the names of every entity of one kind to a {@link NameDictionary}
+     *
+     * @param entities Every entity of one kind
+     * @param names The {@link NameDictionary}
+     *
+     * @return The handle of the name of every entity, or -1 if there is no name
+     */
+    private static int[] handles(List<? extends Parent> entities, NameDictionary names) {
+        int[] handles = new int[entities.size()];
+        for (int i = 0; i < handles.length; i++)
+            handles[i] = names.add(entities.get(i).getName());
+        return handles;
+    }
+
+    /**
+     * Get the {@code id} of every entity
+     *
+     * @param entities Every entity of one kind
+     *
+     * @return The {@code id's} based on the positions of the entities
+     */
+    private static int[] ids(List<? extends Parent> entities) {
+        int[] ids = new int[entities.size()];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = entities.get(i).getId();
+        return ids;
+    }
+
+    /**
+     * Stores a correlation as consecutive rows of positions
+     *
+     * @param sources Every source entity
+     * @param targets Every possible target entity
+     * @param func A {@link Function} returning the targets of a source
+     * @param offsets Receives the start of the row of every source, followed by the number of positions
+     * @param <S> The type of the sources
+     * @param <T> The type of the targets
+     *
+     * @return The positions of the targets, which are part of the {@link Database}
+     */
+    private static <S extends Parent, T extends Parent> int[] rows(List<S> sources, List<T> targets,
+                                                                   Function<S, List<T>> func, int[] offsets) {
+        IntList positions = new IntList();
+        for (int i = 0; i < sources.size(); i++) {
+            offsets[i] = positions.size();
+            for (T t : func.apply(sources.get(i))) {
+                int index = Database.indexOf(targets, t);
+                if (index >= 0)
+                    positions.add(index);
+            }
+        }
+        offsets[sources.size()] = positions.size();
+        return positions.toArray();
+    }
+
+    /**
+     * Creates an index of the positions of the entities based on their {@code id's}
+     *
+     * @param ids The {@code id's} based on the positions of the entities
+     *
+     * @return The index, entities with the same {@code id} are represented by the last one like in a {@link Database}
+     */
+    private static IntIntMap toMap(int[] ids) {
+        IntIntMap map = new IntIntMap(ids.length);
+        for (int i = 0; i < ids.length; i++)
+            map.put(ids[i], i);
+        return map;
+    }
+
+    /**
+     * An unmodifiable {@link List} of views, which are created of consecutive positions or a row of positions on access
+     *
+     * @param <T> The type of the views
+     */
+    private static class Row<T> extends AbstractList<T> implements RandomAccess {
+        /**
+         * The array containing the row, or null if the positions themselves are the elements
+         */
+        private final int[] targets;
+
+        /**
+         * The start and end of the row
+         */
+        private final int from, to;
+
+        /**
+         * Creates the view of a position
+         */
+        private final IntFunction<T> view;
+
+        /**
+         * Creates a new list
+         *
+         * @param targets The array containing the row, or null if the positions themselves are the elements
+         * @param from The start of the row
+         * @param to The end of the row
+         * @param view Creates the view of a position
+         */
+        private Row(int[] targets, int from, int to, IntFunction<T> view) {
+            this.targets = targets;
+            this.from = from;
+            this.to = to;
+            this.view = view;
+        }
+
+        @Override
+        public T get(int index) {
+            Objects.checkIndex(index, to - from);
+            return view.apply(targets == null ? from + index : targets[from + index]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * A view of a {@link Person} of a {@link ColumnStore}
+     */
+    private static final class PersonView implements ReadOnlyPerson {
+        /**
+         * The {@link ColumnStore} containing the {@link Person}
+         */
+        private final ColumnStore store;
+
+        /**
+         * The position of the {@link Person}
+         */
+        private final int pos;
+
+        /**
+         * Creates a new view
+         *
+         * @param store The {@link ColumnStore} containing the {@link Person}
+         * @param pos The position of the {@link Person}
+         */
+        private PersonView(ColumnStore store, int pos) {
+            this.store = store;
+            this.pos = pos;
+        }
+
+        @Override
+        public int getId() {
+            return store.personIds[pos];
+        }
+
+        @Override
+        public String getName() {
+            return store.names.get(store.personNames[pos]);
+        }
+
+        @Override
+        public String getSortKey() {
+            return store.names.getLowerCase(store.personNames[pos]);
+        }
+
+        @Override
+        public Gender getGender() {
+            byte gender = store.genders[pos];
+            return gender < 0 ? null : GENDERS[gender];
+        }
+
+        @Override
+        public List<ReadOnlyPerson> getFriends() {
+            return new Row<>(store.friendTargets, store.friendOffsets[pos], store.friendOffsets[pos + 1], store::person);
+        }
+
+        @Override
+        public List<ReadOnlyProduct> getProducts() {
+            return new Row<>(store.ownTargets, store.ownOffsets[pos], store.ownOffsets[pos + 1], store::product);
+        }
+
+        @Override
+        public List<ReadOnlyCompany> getCompanies() {
+            List<ReadOnlyCompany> companies = new ArrayList<>();
+            for (int i = store.ownOffsets[pos]; i < store.ownOffsets[pos + 1]; i++)
+                companies.add(store.company(store.madeBy[store.ownTargets[i]]));
+            return companies;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PersonView && ((PersonView) o).store == store && ((PersonView) o).pos == pos;
+        }
+
+        @Override
+        public int hashCode() {
+            return pos;
+        }
+
+        @Override
+        public String toString() {
+            return getId() + ": " + getName();
+        }
+    }
+
+    /**
+     * A view of a {@link Product} of a {@link ColumnStore}
+     */
+    private static final class ProductView implements ReadOnlyProduct {
+        /**
+         * The {@link ColumnStore} containing the {@link Product}
+         */
+        private final ColumnStore store;
+
+        /**
+         * The position of the {@link Product}
+         */
+        private final int pos;
+
+        /**
+         * Creates a new view
+         *
+         * @param store The {@link ColumnStore} containing the {@link Product}
+         * @param pos The position of the {@link Product}
+         */
+        private ProductView(ColumnStore store, int pos) {
+            this.store = store;
+            this.pos = pos;
+        }
+
+        @Override
+        public int getId() {
+            return store.productIds[pos];
+        }
+
+        @Override
+        public String getName() {
+            return store.names.get(store.productNames[pos]);
+        }
+
+        @Override
+        public String getSortKey() {
+            return store.names.getLowerCase(store.productNames[pos]);
+        }
+
+        @Override
+        public ReadOnlyCompany getMadeBy() {
+            return store.company(store.madeBy[pos]);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ProductView && ((ProductView) o).store == store && ((ProductView) o).pos == pos;
+        }
+
+        @Override
+        public int hashCode() {
+            return pos;
+        }
+
+        @Override
+        public String toString() {
+            return getId() + ": " + getName();
+        }
+    }
+
+    /**
+     * A view of a {@link Company} of a {@link ColumnStore}
+     */
+    private static final class CompanyView implements ReadOnlyCompany {
+        /**
+         * The {@link ColumnStore} containing the {@link Company}
+         */
+        private final ColumnStore store;
+
+        /**
+         * The position of the {@link Company}
+         */
+        private final int pos;
+
+        /**
+         * Creates a new view
+         *
+         * @param store The {@link ColumnStore} containing the {@link Company}
+         * @param pos The position of the {@link Company}
+         */
+        private CompanyView(ColumnStore store, int pos) {
+            this.store = store;
+            this.pos = pos;
+        }
+
+        @Override
+        public int getId() {
+            return store.companyIds[pos];
+        }
+
+        @Override
+        public String getName() {
+            return store.names.get(store.companyNames[pos]);
+        }
+
+        @Override
+        public String getSortKey() {
+            return store.names.getLowerCase(store.companyNames[pos]);
+        }
+
+        @Override
+        public List<ReadOnlyProduct> getProducts() {
+            return new Row<>(store.madeTargets, store.madeOffsets[pos], store.madeOffsets[pos + 1], store::product);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CompanyView && ((CompanyView) o).store == store && ((CompanyView) o).pos == pos;
+        }
+
+        @Override
+        public int hashCode() {
+            return pos;
+        }
+
+        @Override
+        public String toString() {
+            return getId() + ": " + getName();
+        }
+    }
+}
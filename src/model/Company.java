@@ -1,17 +1,25 @@
 package model;
 
-import java.util.ArrayList;
+import util.IndexedList;
+
+import java.util.Collections;
 import java.util.List;
 
 /**
  * A subclass of {@link Parent} representing a company
  */
-public class Company extends Parent {
+public class Company extends Parent implements ReadOnlyCompany {
 
     /**
-     * A {@link List} containing every {@link Product} this {@link Company} has made
+     * A {@link List} containing every {@link Product} this {@link Company} has made once
      */
-    private final List<Product> products;
+    private final IndexedList<Product> products;
+
+    /**
+     * An unmodifiable view of the products, changes have to go through the methods of the {@link Company},
+     * which update its log
+     */
+    private final List<Product> productsView;
 
     /**
      * Creates a new instance with the given params
@@ -24,29 +32,38 @@ public class Company extends Parent {
         super(id, name);
 
         // Init products list
-        products = new ArrayList<>();
+        products = new IndexedList<>();
+        productsView = Collections.unmodifiableList(products);
     }
 
     /**
-     * Add a {@link Product} to the {@link List}
+     * Add a {@link Product} to the {@link List}, if it isn't already part of it
      *
      * @param p The {@link Product} to add to the {@link List}
      */
     public void addProduct(Product p) {
-        products.add(p);
+        // Log the new product
+        WriteAheadLog log = log();
+        if (products.add(p) && log != null)
+            log.addCompanyProduct(this, p);
     }
 
     /**
      * Remove a {@link Product} from the {@link List}
      */
     public void removeProduct(Product p) {
-        products.remove(p);
+        // Log the removed product
+        WriteAheadLog log = log();
+        if (products.remove(p) && log != null)
+            log.removeCompanyProduct(this, p);
     }
 
     /**
      * Get every {@link Product} of this {@link Company}
+     *
+     * @return An unmodifiable {@link List} containing every {@link Product}
      */
     public List<Product> getProducts() {
-        return products;
+        return productsView;
     }
 }
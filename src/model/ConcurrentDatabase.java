@@ -0,0 +1,229 @@
+package model;
+
+import util.exceptions.NoSuchCompanyException;
+import util.exceptions.NoSuchPersonException;
+import util.exceptions.NoSuchProductException;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Database} which can be queried by many threads while other threads keep changing it
+ * <p>
+ * Writers change the wrapped {@link Database} one at a time. Readers never lock, they query the latest
+ * published {@link DatabaseView}, which is an immutable and consistent version of the {@link Database}.
+ * After a change a new version is published in the background. Changes arriving within a short delay
+ * are published together, so a stream of changes doesn't copy the {@link Database} for every single one.
+ * The background thread is stopped by {@link #close()}.
+ */
+public class ConcurrentDatabase implements AutoCloseable {
+    /**
+     * The default delay between a change and the publication of a new version in milliseconds
+     */
+    public static final long DEFAULT_DELAY = 10;
+
+    /**
+     * The wrapped {@link Database}, which may only be accessed while holding its lock
+     */
+    private final Database database;
+
+    /**
+     * The delay between a change and the publication of a new version in milliseconds
+     */
+    private final long delay;
+
+    /**
+     * The latest published version
+     */
+    private volatile DatabaseView view;
+
+    /**
+     * Represents whether a publication has been scheduled but didn't start yet
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Publishes the new versions in the background
+     */
+    private final ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "database-publisher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Creates a new instance with the default delay
+     *
+     * @param database The {@link Database} to wrap, which mustn't be changed directly anymore
+     */
+    public ConcurrentDatabase(Database database) {
+        this(database, DEFAULT_DELAY);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param database The {@link Database} to wrap, which mustn't be changed directly anymore
+     * @param delay The delay between a change and the publication of a new version in milliseconds
+     */
+    public ConcurrentDatabase(Database database, long delay) {
+        this.database = database;
+        this.delay = delay;
+        synchronized (database) {
+            this.view = new DatabaseView(database, null);
+        }
+    }
+
+    /**
+     * Get the latest published version
+     * Queries which have to see the same version should all be run on the returned {@link DatabaseView}
+     *
+     * @return The latest {@link DatabaseView}
+     */
+    public DatabaseView view() {
+        return view;
+    }
+
+    /**
+     * Publishes every change immediately
+     *
+     * @return The {@link DatabaseView} containing every change made before this call
+     */
+    public DatabaseView publish() {
+        synchronized (database) {
+            if (database.version != view.version)
+                view = new DatabaseView(database, view);
+            return view;
+        }
+    }
+
+    /**
+     * Add a {@link Person} to the {@link Database}
+     *
+     * @param id The {@code id} of the new {@link Person}
+     * @param p An instance of the new {@link Person}
+     */
+    public void addPerson(int id, Person p) {
+        synchronized (database) {
+            database.addPerson(id, p);
+        }
+        schedule();
+    }
+
+    /**
+     * Add a {@link Product} to the {@link Database}
+     *
+     * @param id The {@code id} of the new {@link Product}
+     * @param p An instance of the new {@link Product}
+     */
+    public void addProduct(int id, Product p) {
+        synchronized (database) {
+            database.addProduct(id, p);
+        }
+        schedule();
+    }
+
+    /**
+     * Add a {@link Company} to the {@link Database}
+     *
+     * @param id The {@code id} of the new {@link Company}
+     * @param c An instance of the new {@link Company}
+     */
+    public void addCompany(int id, Company c) {
+        synchronized (database) {
+            database.addCompany(id, c);
+        }
+        schedule();
+    }
+
+    /**
+     * Adds a 'friend' correlation
+     *
+     * @param id1 The {@code id} of the first {@link Person}
+     * @param id2 The {@code id} of the second {@link Person}
+     *
+     * @throws NoSuchPersonException If either of the provided {@code id}'s is invalid
+     */
+    public void setFriends(int id1, int id2) throws NoSuchPersonException {
+        synchronized (database) {
+            database.setFriends(id1, id2);
+        }
+        schedule();
+    }
+
+    /**
+     * Adds a {@link Product} to the {@link java.util.List} of owned products of a {@link Person}
+     *
+     * @param idPerson The {@code id} of the {@link Person}
+     * @param idProduct The {@code id} of the {@link Product}
+     *
+     * @throws NoSuchPersonException If the {@link Person} with the {@code id} can't be found
+     * @throws NoSuchProductException If the {@link Product} with the {@code id} can't be found
+     */
+    public void setPersonProduct(int idPerson, int idProduct) throws NoSuchPersonException, NoSuchProductException {
+        synchronized (database) {
+            database.setPersonProduct(idPerson, idProduct);
+        }
+        schedule();
+    }
+
+    /**
+     * Adds a {@link Product} to the {@link java.util.List} of produced products of a {@link Company}
+     *
+     * @param idProduct The {@code id} of the {@link Product}
+     * @param idCompany The {@code id} of the {@link Company}
+     *
+     * @throws NoSuchProductException If the {@link Product} with the {@code id} can't be found
+     * @throws NoSuchCompanyException If the {@link Company} with the {@code id} can't be found
+     */
+    public void setManufacturer(int idProduct, int idCompany) throws NoSuchProductException, NoSuchCompanyException {
+        synchronized (database) {
+            database.setManufacturer(idProduct, idCompany);
+        }
+        schedule();
+    }
+
+    /**
+     * Runs any other change, like renaming an entity or removing a friend, on the {@link Database}
+     * The change has to use the methods of the {@link Database} and its entities, so the next version contains it
+     *
+     * @param change The change
+     */
+    public void update(Consumer<Database> change) {
+        synchronized (database) {
+            change.accept(database);
+        }
+        schedule();
+    }
+
+    /**
+     * Publishes every pending change and stops the background thread
+     * Changes made afterwards are only published by calling {@link #publish()}
+     */
+    @Override
+    public void close() {
+        publisher.shutdownNow();
+        publish();
+    }
+
+    /**
+     * Schedules the publication of a new version, unless one is scheduled already
+     */
+    private void schedule() {
+        if (!publisher.isShutdown() && scheduled.compareAndSet(false, true)) {
+            try {
+                publisher.schedule(() -> {
+                    scheduled.set(false);
+                    publish();
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // The instance was closed meanwhile
+                scheduled.set(false);
+            }
+        }
+    }
+}
@@ -1,23 +1,49 @@
 package model;
 
+import util.CompressedBitmap;
 import util.CustomComparator;
+import util.Histogram;
+import util.IntIntMap;
+import util.IntList;
+import util.IntObjectMap;
+import util.Metrics;
 import util.exceptions.NoSuchCompanyException;
 import util.exceptions.NoSuchPersonException;
 import util.exceptions.NoSuchProductException;
 
 import java.util.*;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * A container to simulate a database, which provides countless useful operations
  */
 public class Database {
+    /**
+     * Contain the durations and the result sizes of the searches
+     */
+    private static final Histogram PEOPLE_SEARCH_TIME = Metrics.histogram("search.people.ns"),
+            PEOPLE_SEARCH_SIZE = Metrics.histogram("search.people.size"),
+            PRODUCTS_SEARCH_TIME = Metrics.histogram("search.products.ns"),
+            PRODUCTS_SEARCH_SIZE = Metrics.histogram("search.products.size");
+
+    /**
+     * Contain the durations and the result sizes of the network queries
+     */
+    private static final Histogram PRODUCT_NETWORK_TIME = Metrics.histogram("network.products.ns"),
+            PRODUCT_NETWORK_SIZE = Metrics.histogram("network.products.size"),
+            COMPANY_NETWORK_TIME = Metrics.histogram("network.companies.ns"),
+            COMPANY_NETWORK_SIZE = Metrics.histogram("network.companies.size");
+
+    /**
+     * Contains the durations of the recommendations
+     */
+    private static final Histogram RECOMMENDATION_TIME = Metrics.histogram("recommendation.ns");
+
     /**
      * Contains every {@link Person} based on their {@code id}
      */
-    private final Map<Integer, Person> peopleMap = new HashMap<>();
+    private final IntObjectMap<Person> peopleMap = new IntObjectMap<>();
 
     /**
      * Contains a {@link List} containing every {@link Person} in the {@link Database}
@@ -27,7 +53,7 @@ public class Database {
     /**
      * Contains every {@link Product} based on their {@code id}
      */
-    private final Map<Integer, Product> productsMap = new HashMap<>();
+    private final IntObjectMap<Product> productsMap = new IntObjectMap<>();
 
     /**
      * Contains a {@link List} containing every {@link Product} in the {@link Database}
@@ -37,13 +63,98 @@ public class Database {
     /**
      * Contains every {@link Company} based on their {@code id}
      */
-    private final Map<Integer, Company> companiesMap = new HashMap<>();
+    private final IntObjectMap<Company> companiesMap = new IntObjectMap<>();
 
     /**
      * Contains a {@link List} containing every {@link Company} in the {@link Database}
      */
     private final List<Company> companies = new ArrayList<>();
 
+    /**
+     * Contains an index over the names of every {@link Person} in the {@link Database}
+     */
+    private final NameIndex<Person> peopleIndex = new NameIndex<>(people);
+
+    /**
+     * Contains an index over the names of every {@link Product} in the {@link Database}
+     */
+    private final NameIndex<Product> productsIndex = new NameIndex<>(products);
+
+    /**
+     * Contains the {@link Graph} of every correlation, which is built on the first network query
+     */
+    private volatile Graph graph;
+
+    /**
+     * Contains the recently queried networks
+     */
+    private final NetworkCache networkCache = new NetworkCache();
+
+    /**
+     * Contains the positions of every {@link Person} whose friends or products changed after the {@link Graph} was built
+     */
+    private final BitSet changedPeople = new BitSet();
+
+    /**
+     * Contains the positions of every {@link Product} whose {@link Company} changed after the {@link Graph} was built
+     */
+    private final BitSet changedProducts = new BitSet();
+
+    /**
+     * Contain the positions of every {@link Product} and {@link Company} which was renamed after the {@link Graph} was built
+     * Their ranks in the {@link Graph} are outdated, so the network queries sort them by their current names
+     */
+    private final BitSet renamedProducts = new BitSet(), renamedCompanies = new BitSet();
+
+    /**
+     * Represents the number of changes after the {@link Graph} was built
+     */
+    private int changes;
+
+    /**
+     * Provides the changes after the {@link Graph} was built to the network queries
+     */
+    private final Graph.Overlay overlay = new Changes();
+
+    /**
+     * Count the changes of the people, products and companies themselves, like new or renamed entities
+     * A {@link DatabaseView} only copies the kinds of entities whose count has changed
+     */
+    int peopleVersion, productsVersion, companiesVersion;
+
+    /**
+     * Counts every change of the entities and their correlations
+     */
+    int version;
+
+    /**
+     * Contains the positions of the owners of every {@link Product} based on its position, or null if it has no owners
+     */
+    private CompressedBitmap[] owners = new CompressedBitmap[16];
+
+    /**
+     * Contains the number of owned products of every customer of every {@link Company} based on its position,
+     * or null if it has no customers. A customer owns at least one {@link Product} made by the {@link Company}
+     */
+    private IntIntMap[] customers = new IntIntMap[16];
+
+    /**
+     * Contains the positions of the people of the {@link Database}, who bought a {@link Product} before it was added
+     * They are indexed as owners once the {@link Product} is added
+     */
+    private final Map<Product, IntList> pendingOwners = new IdentityHashMap<>();
+
+    /**
+     * Contains the positions of the products of the {@link Database}, whose {@link Company} wasn't added yet
+     * Their owners are indexed as customers once the {@link Company} is added
+     */
+    private final Map<Company, IntList> pendingProducts = new IdentityHashMap<>();
+
+    /**
+     * Contains the {@link WriteAheadLog} every change is appended to, or null if changes aren't logged
+     */
+    WriteAheadLog log;
+
     /**
      * Add a {@link Person} to the {@link Database}
      *
@@ -52,7 +163,20 @@ public class Database {
      */
     public void addPerson(int id, Person p) {
         peopleMap.put(id, p);
+        p.index = people.size();
+        p.database = this;
         people.add(p);
+        peopleIndex.add(p);
+        peopleVersion++;
+        version++;
+
+        // Index the products the person already owns
+        for (Product pr : p.getProducts())
+            productBought(p, pr);
+
+        // Log the new person
+        if (log != null)
+            log.addPerson(p);
     }
 
     /**
@@ -63,7 +187,22 @@ public class Database {
      */
     public void addProduct(int id, Product p) {
         productsMap.put(id, p);
+        p.index = products.size();
+        p.database = this;
         products.add(p);
+        productsIndex.add(p);
+        productsVersion++;
+        version++;
+
+        // Index the company and the owners the product already has
+        pendingCompany(p);
+        IntList pending = pendingOwners.remove(p);
+        for (int i = 0; pending != null && i < pending.size(); i++)
+            productBought(people.get(pending.get(i)), p);
+
+        // Log the new product
+        if (log != null)
+            log.addProduct(p, pending);
     }
 
     /**
@@ -74,7 +213,23 @@ public class Database {
      */
     public void addCompany(int id, Company c) {
         companiesMap.put(id, c);
+        c.index = companies.size();
+        c.database = this;
         companies.add(c);
+        companiesVersion++;
+        version++;
+
+        // The owners of the products, which were made by the company before it was added, are now its customers
+        IntList pending = pendingProducts.remove(c);
+        for (int i = 0; pending != null && i < pending.size(); i++) {
+            Product p = products.get(pending.get(i));
+            if (p.getMadeBy() == c)
+                productChanged(p, null);
+        }
+
+        // Log the new company
+        if (log != null)
+            log.addCompany(c, pending);
     }
 
     /**
@@ -97,7 +252,16 @@ public class Database {
         if (p2 == null)
             throw new NoSuchPersonException(id2);
 
-        // Add 'friend' correlation
+        setFriends(p1, p2);
+    }
+
+    /**
+     * Adds a 'friend' correlation between two people of the {@link Database}
+     *
+     * @param p1 The first {@link Person}
+     * @param p2 The second {@link Person}
+     */
+    void setFriends(Person p1, Person p2) {
         p1.addFriend(p2);
         p2.addFriend(p1);
     }
@@ -148,11 +312,38 @@ public class Database {
         if (c == null)
             throw new NoSuchCompanyException(idProduct);
 
-        // Set corresponding correlations
+        setManufacturer(p, c);
+    }
+
+    /**
+     * Sets the {@link Company} of a {@link Product} of the {@link Database}
+     *
+     * @param p The {@link Product}
+     * @param c The {@link Company}
+     */
+    void setManufacturer(Product p, Company c) {
         p.setMadeBy(c);
         c.addProduct(p);
     }
 
+    /**
+     * Get all the {@link Person people} based on a provided {@link String} in a single pass
+     *
+     * @param name The {@link String} to search for
+     *
+     * @return An unmodifiable {@link List} of every {@link Person} who's {@code name} contains the {@link String}, which may be empty
+     */
+    public List<Person> findPeopleByName(String name) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        List<Person> results = peopleIndex.search(name);
+
+        if (Metrics.ENABLED) {
+            PEOPLE_SEARCH_TIME.recordSince(start);
+            PEOPLE_SEARCH_SIZE.record(results.size());
+        }
+        return Collections.unmodifiableList(results);
+    }
+
     /**
      * Get all the {@link Person people} based on a provided {@link String}
      *
@@ -163,16 +354,33 @@ public class Database {
      * @throws NoSuchPersonException If no {@link Person} could be found
      */
     public Stream<Person> getPeopleByName(String name) throws NoSuchPersonException {
-        // Get a stream with all people, who's name contains the specific string
-        Stream<Person> personStream = getPeople().stream().filter(p -> p.getName().toLowerCase().contains(name.toLowerCase()));
+        List<Person> results = findPeopleByName(name);
 
-        // Return the stream if it's not empty or throw an exception
-        if (personStream.count() > 0)
-            return getPeople().stream().filter(p -> p.getName().toLowerCase().contains(name.toLowerCase()));
+        // Return the results if there are any or throw an exception
+        if (!results.isEmpty())
+            return results.stream();
         else
             throw new NoSuchPersonException(name);
     }
 
+    /**
+     * Get all the {@link Product products} based on a provided {@link String} in a single pass
+     *
+     * @param name The {@link String} to search for
+     *
+     * @return An unmodifiable {@link List} of every {@link Product} who's {@code name} contains the {@link String}, which may be empty
+     */
+    public List<Product> findProductsByName(String name) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        List<Product> results = productsIndex.search(name);
+
+        if (Metrics.ENABLED) {
+            PRODUCTS_SEARCH_TIME.recordSince(start);
+            PRODUCTS_SEARCH_SIZE.record(results.size());
+        }
+        return Collections.unmodifiableList(results);
+    }
+
     /**
      * Get all the {@link Product products} based on a provided {@link String}
      *
@@ -183,19 +391,23 @@ public class Database {
      * @throws NoSuchProductException If no {@link Product} could be found
      */
     public Stream<Product> getProductsByName(String name) throws NoSuchProductException {
-        // Get a stream with all products, who's name contains the specific string
-        Stream<Product> productStream = getProducts().stream().filter(p -> p.getName().toLowerCase().contains(name.toLowerCase()));
+        List<Product> results = findProductsByName(name);
 
-        // Return the stream if it's not empty or throw an exception
-        if(productStream.count() > 0)
-            return getProducts().stream().filter(p -> p.getName().toLowerCase().contains(name.toLowerCase()));
+        // Return the results if there are any or throw an exception
+        if (!results.isEmpty())
+            return results.stream();
         else
             throw new NoSuchProductException(name);
     }
 
     /**
      * Get the {@link Product} or {@link Company} network of a {@link Person}
-     * Sorted in {@code ascending} order by the {@link CustomComparator}
+     * Sorted in {@code ascending} order by the {@link CustomComparator}, entities with the same name in the order
+     * they were first found in
+     * <p>
+     * The entities of the {@link Database} are marked by their positions in a {@link CompressedBitmap},
+     * so duplicates and the entities of the {@link Person} are dropped while collecting.
+     * Entities which aren't part of the {@link Database} are compared by {@link Object#equals(Object)}.
      *
      * @param p A {@link Person} to base the search on
      * @param func A {@link Function} which will be called for each friend of the provided {@link Person}
@@ -204,21 +416,637 @@ public class Database {
      * @return A {@link List} of {@link Person people} or {@link Product products} which match the required criteria
      */
     public <T extends Parent> List<T> getNetwork(Person p, Function<Person, List<T>> func) {
-        // Create a new ArrayList
+        // Mark the products/companies of the provided person
+        EntitySet own = new EntitySet();
+        for (T item : func.apply(p))
+            own.add(item);
+
+        // Add the other products/companies of every friend of the provided person once
+        EntitySet found = new EntitySet();
         List<T> results = new ArrayList<>();
+        for (Person f : p.getFriends()) {
+            for (T item : func.apply(f)) {
+                if (!own.contains(item) && found.add(item))
+                    results.add(item);
+            }
+        }
 
-        // Add all products/companies of every friend of the provided person
-        for (Person f : p.getFriends())
-            results.addAll(func.apply(f));
+        // Sort the list with the CustomComparator, which keeps entities with the same name in the order they were found
+        results.sort(new CustomComparator<>());
+        return results;
+    }
 
-        // Remove products/companies of the provided person
-        results.removeAll(func.apply(p));
+    /**
+     * Get the {@link Product} network of a {@link Person}
+     * Sorted in {@code ascending} order by the {@link CustomComparator},
+     * products with the same name in the order they were first found in
+     *
+     * @param p A {@link Person} to base the search on
+     *
+     * @return A {@link List} of every {@link Product} of the friends, which the {@link Person} doesn't own
+     */
+    public List<Product> getProductNetwork(Person p) {
+        // People which aren't part of the database aren't part of the graph either
+        if (indexOf(people, p) < 0)
+            return getNetwork(p, Person::getProducts);
 
-        // Sort the list with the CustomComparator
-        results.sort(new CustomComparator<>());
+        return toList(products, network(p.index, false));
+    }
+
+    /**
+     * Get the {@link Company} network of a {@link Person}
+     * Sorted in {@code ascending} order by the {@link CustomComparator},
+     * companies with the same name in the order they were first found in
+     *
+     * @param p A {@link Person} to base the search on
+     *
+     * @return A {@link List} of every {@link Company} of the products of the friends,
+     *         which didn't make any of the products of the {@link Person}
+     */
+    public List<Company> getCompanyNetwork(Person p) {
+        // People which aren't part of the database aren't part of the graph either
+        if (indexOf(people, p) < 0)
+            return getNetwork(p, Person::getCompanies);
+
+        return toList(companies, network(p.index, true));
+    }
+
+    /**
+     * Get the {@link Product products} of the people within a number of hops of a {@link Person}, ranked by how many and how close people own them
+     * Every friend adds {@code 1} to the score of each of their products, every friend of a friend {@code 0.5} and so on
+     *
+     * @param p A {@link Person} to base the search on
+     * @param hops The number of hops between 1 and 6, {@code 1} only includes the friends
+     * @param maxVisited The maximal number of reached people, the closest people are reached first
+     *
+     * @return A {@link List} of every {@link Product} of the reached people, which the {@link Person} doesn't own,
+     *         sorted by the score and the {@link CustomComparator}, or an empty {@link List} if the {@link Person} isn't part of the {@link Database}
+     */
+    public List<Ranked<Product>> getRankedProductNetwork(Person p, int hops, int maxVisited) {
+        if (indexOf(people, p) < 0)
+            return new ArrayList<>();
+
+        return toRanked(products, getGraph().rank(overlay, p.index, hops, maxVisited, false));
+    }
+
+    /**
+     * Get the {@link Company companies} of the products of the people within a number of hops of a {@link Person},
+     * ranked by how many and how close people own their products
+     * Every product of a friend adds {@code 1} to the score of its {@link Company}, every product of a friend of a friend {@code 0.5} and so on
+     *
+     * @param p A {@link Person} to base the search on
+     * @param hops The number of hops between 1 and 6, {@code 1} only includes the friends
+     * @param maxVisited The maximal number of reached people, the closest people are reached first
+     *
+     * @return A {@link List} of every {@link Company} of the products of the reached people, which didn't make any of the products
+     *         of the {@link Person}, sorted by the score and the {@link CustomComparator}, or an empty {@link List} if the {@link Person} isn't part of the {@link Database}
+     */
+    public List<Ranked<Company>> getRankedCompanyNetwork(Person p, int hops, int maxVisited) {
+        if (indexOf(people, p) < 0)
+            return new ArrayList<>();
+
+        return toRanked(companies, getGraph().rank(overlay, p.index, hops, maxVisited, true));
+    }
+
+    /**
+     * Get the {@link Product products} most friends of a {@link Person} own, which the {@link Person} doesn't own
+     * Only the best products are selected, the rest of the {@link Product} network is never sorted
+     *
+     * @param p A {@link Person} to base the search on
+     * @param limit The maximal number of products
+     *
+     * @return A {@link List} of at most {@code limit} products, sorted by the number of friends owning them and the {@link CustomComparator},
+     *         or an empty {@link List} if the {@link Person} isn't part of the {@link Database}
+     */
+    public List<Ranked<Product>> getProductRecommendations(Person p, int limit) {
+        return recommend(p, limit, false, products);
+    }
+
+    /**
+     * Get the {@link Company companies} of whose products most friends of a {@link Person} own one,
+     * which didn't make any of the products of the {@link Person}
+     * Only the best companies are selected, the rest of the {@link Company} network is never sorted
+     *
+     * @param p A {@link Person} to base the search on
+     * @param limit The maximal number of companies
+     *
+     * @return A {@link List} of at most {@code limit} companies, sorted by the number of friends owning one of their products and the {@link CustomComparator},
+     *         or an empty {@link List} if the {@link Person} isn't part of the {@link Database}
+     */
+    public List<Ranked<Company>> getCompanyRecommendations(Person p, int limit) {
+        return recommend(p, limit, true, companies);
+    }
+
+    /**
+     * Get the products or companies most friends of a {@link Person} own
+     *
+     * @param p A {@link Person} to base the search on
+     * @param limit The maximal number of products or companies
+     * @param companies {@code true} to recommend companies, {@code false} to recommend products
+     * @param list The {@link List} of the products or companies
+     * @param <T> A TypeParameter restricting this method to children of the superclass {@link Parent}
+     *
+     * @return A {@link List} of the recommended products or companies
+     */
+    private <T extends Parent> List<Ranked<T>> recommend(Person p, int limit, boolean companies, List<T> list) {
+        if (indexOf(people, p) < 0)
+            return new ArrayList<>();
+
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        List<Ranked<T>> results = toRanked(list, getGraph().recommend(overlay, p.index, limit, companies));
+
+        if (Metrics.ENABLED)
+            RECOMMENDATION_TIME.recordSince(start);
+        return results;
+    }
+
+    /**
+     * Get every {@link Person} owning a {@link Product}
+     * The owners are stored for every {@link Product}, so no other {@link Person} is looked at
+     *
+     * @param p The {@link Product}
+     *
+     * @return A {@link List} of every owner in the order of the {@link Database},
+     *         or an empty {@link List} if the {@link Product} isn't part of the {@link Database}
+     */
+    public List<Person> getOwners(Product p) {
+        if (indexOf(products, p) < 0 || p.index >= owners.length || owners[p.index] == null)
+            return new ArrayList<>();
+
+        return toList(people, owners[p.index].toArray());
+    }
+
+    /**
+     * Get every {@link Person} owning a {@link Product} made by a {@link Company}
+     * The customers are stored for every {@link Company}, so no other {@link Person} is looked at
+     *
+     * @param c The {@link Company}
+     *
+     * @return A {@link List} of every customer in the order of the {@link Database},
+     *         or an empty {@link List} if the {@link Company} isn't part of the {@link Database}
+     */
+    public List<Person> getCustomers(Company c) {
+        if (indexOf(companies, c) < 0 || c.index >= customers.length || customers[c.index] == null)
+            return new ArrayList<>();
+
+        int[] positions = customers[c.index].keys();
+        Arrays.sort(positions);
+        return toList(people, positions);
+    }
+
+    /**
+     * Get the {@link Product} network of every {@link Person} at once, which is much faster than querying them one by one
+     * Has to be called while the {@link Database} isn't changed
+     *
+     * @return The table containing the {@link Product} network of every {@link Person}
+     *
+     * @see #getProductNetwork(Person)
+     */
+    public NetworkTable<Product> getAllProductNetworks() {
+        return getGraph().networks(overlay, List.copyOf(people), List.copyOf(products), false);
+    }
+
+    /**
+     * Get the {@link Company} network of every {@link Person} at once, which is much faster than querying them one by one
+     * Has to be called while the {@link Database} isn't changed
+     *
+     * @return The table containing the {@link Company} network of every {@link Person}
+     *
+     * @see #getCompanyNetwork(Person)
+     */
+    public NetworkTable<Company> getAllCompanyNetworks() {
+        return getGraph().networks(overlay, List.copyOf(people), List.copyOf(companies), true);
+    }
+
+    /**
+     * Get the {@link NetworkCache} containing the recently queried networks
+     *
+     * @return The {@link NetworkCache}
+     */
+    public NetworkCache getNetworkCache() {
+        return networkCache;
+    }
+
+    /**
+     * Get the product or company network of a {@link Person} from the {@link NetworkCache} or the {@link Graph}
+     *
+     * @param person The position of the {@link Person}
+     * @param companies {@code true} for the company network, {@code false} for the product network
+     *
+     * @return The positions of the products or companies, which mustn't be changed
+     */
+    private int[] network(int person, boolean companies) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int generation = networkCache.generation();
+        int[] positions = networkCache.get(person, companies);
+        if (positions == null) {
+            positions = getGraph().network(overlay, person, companies);
+            networkCache.put(person, companies, positions, generation);
+        }
+
+        if (Metrics.ENABLED) {
+            (companies ? COMPANY_NETWORK_TIME : PRODUCT_NETWORK_TIME).recordSince(start);
+            (companies ? COMPANY_NETWORK_SIZE : PRODUCT_NETWORK_SIZE).record(positions.length);
+        }
+        return positions;
+    }
+
+    /**
+     * Get the {@link Graph} of every correlation
+     * The {@link Graph} is rebuilt if it doesn't exist yet or too many entities have changed since it was built
+     *
+     * @return The current {@link Graph}
+     */
+    Graph getGraph() {
+        Graph g = graph;
+        if (g != null && !g.isOutdated(changes))
+            return g;
+
+        synchronized (this) {
+            g = graph;
+            if (g == null || g.isOutdated(changes)) {
+                g = new Graph(people, products, companies);
+                changedPeople.clear();
+                changedProducts.clear();
+                renamedProducts.clear();
+                renamedCompanies.clear();
+                changes = 0;
+                graph = g;
+            }
+            return g;
+        }
+    }
+
+    /**
+     * Get an immutable copy of every change after the current {@link Graph} was built
+     * Has to be called while the {@link Database} isn't changed
+     *
+     * @param g The current {@link Graph}
+     *
+     * @return The changes, which only cost time and memory proportional to the number of changed entities
+     */
+    Graph.Delta delta(Graph g) {
+        IntObjectMap<int[]> friends = new IntObjectMap<>();
+        IntObjectMap<int[]> owned = new IntObjectMap<>();
+        IntIntMap madeBy = new IntIntMap(changedProducts.cardinality() + products.size() - g.productCount);
+        IntObjectMap<String> productKeys = new IntObjectMap<>();
+        IntObjectMap<String> companyKeys = new IntObjectMap<>();
+
+        // The rows of the changed and the new people
+        for (int i = changedPeople.nextSetBit(0); i >= 0; i = changedPeople.nextSetBit(i + 1)) {
+            friends.put(i, overlay.friends(i));
+            owned.put(i, overlay.products(i));
+        }
+        for (int i = g.personCount; i < people.size(); i++) {
+            friends.put(i, overlay.friends(i));
+            owned.put(i, overlay.products(i));
+        }
+
+        // The companies and names of the changed and the new products
+        for (int i = changedProducts.nextSetBit(0); i >= 0; i = changedProducts.nextSetBit(i + 1))
+            madeBy.put(i, overlay.companyOf(i) + 1);
+        for (int i = renamedProducts.nextSetBit(0); i >= 0; i = renamedProducts.nextSetBit(i + 1))
+            productKeys.put(i, products.get(i).getSortKey());
+        for (int i = g.productCount; i < products.size(); i++) {
+            madeBy.put(i, overlay.companyOf(i) + 1);
+            productKeys.put(i, products.get(i).getSortKey());
+        }
+
+        // The names of the changed and the new companies
+        for (int i = renamedCompanies.nextSetBit(0); i >= 0; i = renamedCompanies.nextSetBit(i + 1))
+            companyKeys.put(i, companies.get(i).getSortKey());
+        for (int i = g.companyCount; i < companies.size(); i++)
+            companyKeys.put(i, companies.get(i).getSortKey());
+
+        return new Graph.Delta(products.size(), companies.size(), friends, owned, madeBy, productKeys, companyKeys);
+    }
+
+    /**
+     * Marks a {@link Person} whose friends or products have changed
+     *
+     * @param p The changed {@link Person}
+     * @param bought {@code true} if the products have changed, {@code false} if the friends have changed
+     */
+    void personChanged(Person p, boolean bought) {
+        if (indexOf(people, p) < 0)
+            return;
+        version++;
+
+        if (graph != null && !changedPeople.get(p.index)) {
+            changedPeople.set(p.index);
+            changes++;
+        }
+
+        // The networks of the person and the ones of the friends contain the products of the person
+        networkCache.invalidate(p.index);
+        if (bought && networkCache.size() > 0) {
+            for (Person f : p.getFriends()) {
+                if (indexOf(people, f) >= 0)
+                    networkCache.invalidate(f.index);
+            }
+        }
+    }
+
+    /**
+     * Updates the reverse indices after a {@link Person} bought a {@link Product}
+     *
+     * @param pe The {@link Person}
+     * @param pr The bought {@link Product}
+     */
+    void productBought(Person pe, Product pr) {
+        if (indexOf(people, pe) < 0)
+            return;
 
-        // Remove all duplicates and return the list
-        return results.stream().distinct().collect(Collectors.toList());
+        // The product is indexed once it's added
+        if (indexOf(products, pr) < 0) {
+            pendingOwners.computeIfAbsent(pr, k -> new IntList(2)).add(pe.index);
+            return;
+        }
+
+        if (pr.index >= owners.length)
+            owners = Arrays.copyOf(owners, Math.max(owners.length * 2, pr.index + 1));
+        if (owners[pr.index] == null)
+            owners[pr.index] = new CompressedBitmap();
+        if (!owners[pr.index].add(pe.index))
+            return;
+
+        addCustomer(indexOf(companies, pr.getMadeBy()), pe.index, 1);
+    }
+
+    /**
+     * Remembers a {@link Product} of the {@link Database}, whose {@link Company} wasn't added yet
+     *
+     * @param p The {@link Product}
+     */
+    private void pendingCompany(Product p) {
+        Company c = p.getMadeBy();
+        if (c != null && indexOf(companies, c) < 0)
+            pendingProducts.computeIfAbsent(c, k -> new IntList(2)).addSorted(p.index);
+    }
+
+    /**
+     * Changes the number of owned products of a customer of a {@link Company}
+     *
+     * @param company The position of the {@link Company}, or -1 if there is none
+     * @param person The position of the {@link Person}
+     * @param delta The change of the number of owned products
+     */
+    private void addCustomer(int company, int person, int delta) {
+        if (company < 0)
+            return;
+
+        if (company >= customers.length)
+            customers = Arrays.copyOf(customers, Math.max(customers.length * 2, company + 1));
+        if (customers[company] == null)
+            customers[company] = new IntIntMap(4);
+
+        IntIntMap counts = customers[company];
+        int count = Math.max(counts.get(person), 0) + delta;
+        if (count > 0)
+            counts.put(person, count);
+        else
+            counts.remove(person);
+    }
+
+    /**
+     * Marks a {@link Product} whose {@link Company} has changed
+     *
+     * @param p The changed {@link Product}
+     * @param previous The previous {@link Company} of the {@link Product}, or null if there was none
+     */
+    void productChanged(Product p, Company previous) {
+        if (indexOf(products, p) < 0)
+            return;
+        version++;
+
+        // The owners of the product are now customers of the new company
+        int before = indexOf(companies, previous);
+        int after = indexOf(companies, p.getMadeBy());
+        pendingCompany(p);
+        CompressedBitmap productOwners = p.index < owners.length ? owners[p.index] : null;
+        if (before != after && productOwners != null) {
+            for (int owner : productOwners.toArray()) {
+                addCustomer(before, owner, -1);
+                addCustomer(after, owner, 1);
+            }
+        }
+
+        if (graph != null && !changedProducts.get(p.index)) {
+            changedProducts.set(p.index);
+            changes++;
+        }
+
+        // Only the company networks of the owners of the product and their friends depend on its company
+        if (productOwners != null) {
+            for (int owner : productOwners.toArray()) {
+                networkCache.invalidate(owner, true);
+                for (Person f : people.get(owner).getFriends()) {
+                    if (indexOf(people, f) >= 0)
+                        networkCache.invalidate(f.index, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the indices after an entity of the {@link Database} was renamed
+     *
+     * @param p The renamed entity
+     */
+    void nameChanged(Parent p) {
+        entityChanged(p);
+
+        if (p instanceof Person && indexOf(people, p) >= 0)
+            peopleIndex.rename((Person) p);
+        else if (p instanceof Product && indexOf(products, p) >= 0) {
+            productsIndex.rename((Product) p);
+
+            // The rank of the product is outdated and the order of the networks containing it has changed
+            renamed(renamedProducts, p.index);
+            networkCache.invalidate(false, (person, positions) -> contains(positions, p.index));
+        } else if (p instanceof Company && indexOf(companies, p) >= 0) {
+            renamed(renamedCompanies, p.index);
+            networkCache.invalidate(true, (person, positions) -> contains(positions, p.index));
+        }
+    }
+
+    /**
+     * Updates the lookup by {@code id} and logs the change after an entity of the {@link Database} got a new {@code id}
+     *
+     * @param p The changed entity
+     * @param previous The previous {@code id}
+     */
+    void idChanged(Parent p, int previous) {
+        if (p instanceof Person && indexOf(people, p) >= 0)
+            rekey(peopleMap, (Person) p, previous);
+        else if (p instanceof Product && indexOf(products, p) >= 0)
+            rekey(productsMap, (Product) p, previous);
+        else if (p instanceof Company && indexOf(companies, p) >= 0)
+            rekey(companiesMap, (Company) p, previous);
+        else
+            return;
+        entityChanged(p);
+
+        // Log the new id
+        if (log != null)
+            log.setId(p, previous);
+    }
+
+    /**
+     * Moves an entity to its new {@code id}, like adding it with the new {@code id} would
+     *
+     * @param map The entities based on their {@code id}
+     * @param p The entity
+     * @param previous The previous {@code id}
+     * @param <T> The type of the entity
+     */
+    private static <T extends Parent> void rekey(IntObjectMap<T> map, T p, int previous) {
+        if (map.get(previous) == p)
+            map.remove(previous);
+        map.put(p.getId(), p);
+    }
+
+    /**
+     * Counts a change of an entity of the {@link Database} itself, like a new name, {@code id} or gender
+     *
+     * @param p The changed entity
+     */
+    void entityChanged(Parent p) {
+        if (p instanceof Person && indexOf(people, p) >= 0)
+            peopleVersion++;
+        else if (p instanceof Product && indexOf(products, p) >= 0)
+            productsVersion++;
+        else if (p instanceof Company && indexOf(companies, p) >= 0)
+            companiesVersion++;
+        else
+            return;
+        version++;
+    }
+
+    /**
+     * Marks a renamed {@link Product} or {@link Company}, which is part of the {@link Graph}
+     *
+     * @param renamed The positions of the renamed products or companies
+     * @param position The position of the renamed entity
+     */
+    private void renamed(BitSet renamed, int position) {
+        Graph g = graph;
+        if (g != null && position < (renamed == renamedCompanies ? g.companyCount : g.productCount) && !renamed.get(position)) {
+            renamed.set(position);
+            changes++;
+        }
+    }
+
+    /**
+     * Checks whether an array contains a position
+     *
+     * @param positions The array
+     * @param position The position in question
+     *
+     * @return {@code true} if the array contains the position, {@code false} otherwise
+     */
+    private static boolean contains(int[] positions, int position) {
+        for (int pos : positions) {
+            if (pos == position)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the position of an entity in a {@link List} of the {@link Database}
+     *
+     * @param list The {@link List} of the {@link Database}
+     * @param p The entity
+     *
+     * @return The position or -1, if the entity isn't part of the {@link List}
+     */
+    static int indexOf(List<? extends Parent> list, Parent p) {
+        return p != null && p.index >= 0 && p.index < list.size() && list.get(p.index) == p ? p.index : -1;
+    }
+
+    /**
+     * Get the positions of the entities, which are part of a {@link List} of the {@link Database}
+     *
+     * @param items The entities
+     * @param list The {@link List} of the {@link Database}
+     *
+     * @return The positions of the entities, the ones which aren't part of the {@link List} are left out
+     */
+    private static int[] positions(List<? extends Parent> items, List<? extends Parent> list) {
+        int[] positions = new int[items.size()];
+        int count = 0;
+        for (Parent item : items) {
+            int pos = indexOf(list, item);
+            if (pos >= 0)
+                positions[count++] = pos;
+        }
+        return count == positions.length ? positions : Arrays.copyOf(positions, count);
+    }
+
+    /**
+     * Converts positions to a {@link List} of entities
+     *
+     * @param list The {@link List} of the {@link Database}
+     * @param positions The positions of the entities
+     * @param <T> A TypeParameter restricting this method to children of the superclass {@link Parent}
+     *
+     * @return A {@link List} containing the entities
+     */
+    private static <T extends Parent> List<T> toList(List<T> list, int[] positions) {
+        List<T> results = new ArrayList<>(positions.length);
+        for (int pos : positions)
+            results.add(list.get(pos));
+        return results;
+    }
+
+    /**
+     * Converts a {@link Graph.Ranking} to a {@link List} of ranked entities
+     *
+     * @param list The {@link List} of the {@link Database}
+     * @param ranking The ranked positions of the entities
+     * @param <T> A TypeParameter restricting this method to children of the superclass {@link Parent}
+     *
+     * @return A {@link List} containing the ranked entities
+     */
+    static <T extends Parent> List<Ranked<T>> toRanked(List<T> list, Graph.Ranking ranking) {
+        List<Ranked<T>> results = new ArrayList<>(ranking.items.length);
+        for (int i = 0; i < ranking.items.length; i++)
+            results.add(new Ranked<>(list.get(ranking.items[i]), ranking.scores[i], ranking.hops[i]));
+        return results;
+    }
+
+    /**
+     * Get a {@link Person} based on their {@code id} without throwing an exception
+     *
+     * @param id The {@code id} to search for
+     *
+     * @return The {@link Person}, or null if there is no {@link Person} with the {@code id}
+     */
+    Person findPerson(int id) {
+        return peopleMap.get(id);
+    }
+
+    /**
+     * Get a {@link Product} based on their {@code id} without throwing an exception
+     *
+     * @param id The {@code id} to search for
+     *
+     * @return The {@link Product}, or null if there is no {@link Product} with the {@code id}
+     */
+    Product findProduct(int id) {
+        return productsMap.get(id);
+    }
+
+    /**
+     * Get a {@link Company} based on their {@code id} without throwing an exception
+     *
+     * @param id The {@code id} to search for
+     *
+     * @return The {@link Company}, or null if there is no {@link Company} with the {@code id}
+     */
+    Company findCompany(int id) {
+        return companiesMap.get(id);
     }
 
     /**
@@ -298,4 +1126,115 @@ public class Database {
     public List<Company> getCompanies() {
         return companies;
     }
+
+    /**
+     * A set of entities, which stores the entities of the {@link Database} as their positions
+     * <p>
+     * Every entity has a {@link CompressedBitmap} of the {@link List} of the {@link Database} containing it,
+     * which is chosen for every entity, so entities of different types can be mixed.
+     * Entities which aren't part of the {@link Database}, including null, are stored in a {@link HashSet}.
+     */
+    private class EntitySet {
+        /**
+         * Contain the positions of the people, the products and the companies of the {@link Database}
+         */
+        private final CompressedBitmap personPositions = new CompressedBitmap(),
+                productPositions = new CompressedBitmap(), companyPositions = new CompressedBitmap();
+
+        /**
+         * Contains the entities which aren't part of the {@link Database}
+         */
+        private final Set<Parent> others = new HashSet<>();
+
+        /**
+         * Adds an entity
+         *
+         * @param item The entity to add, may be null
+         *
+         * @return {@code true} if the entity was added, {@code false} if it was already part of the set
+         */
+        boolean add(Parent item) {
+            CompressedBitmap positions = positions(item);
+            return positions != null ? positions.add(item.index) : others.add(item);
+        }
+
+        /**
+         * Checks whether an entity is part of the set
+         *
+         * @param item The entity in question, may be null
+         *
+         * @return {@code true} if the entity is part of the set, {@code false} otherwise
+         */
+        boolean contains(Parent item) {
+            CompressedBitmap positions = positions(item);
+            return positions != null ? positions.contains(item.index) : others.contains(item);
+        }
+
+        /**
+         * Get the positions of the {@link List} of the {@link Database} containing an entity
+         *
+         * @param item The entity
+         *
+         * @return The {@link CompressedBitmap} of the {@link List}, or null if the entity isn't part of the {@link Database}
+         */
+        private CompressedBitmap positions(Parent item) {
+            if (item instanceof Product)
+                return indexOf(products, item) >= 0 ? productPositions : null;
+            if (item instanceof Company)
+                return indexOf(companies, item) >= 0 ? companyPositions : null;
+            if (item instanceof Person)
+                return indexOf(people, item) >= 0 ? personPositions : null;
+            return null;
+        }
+    }
+
+    /**
+     * Provides the changes after the {@link Graph} was built, which are read from the entities themselves
+     */
+    private class Changes implements Graph.Overlay {
+        @Override
+        public boolean hasChanged(Graph g, int person) {
+            return person >= g.personCount || changedPeople.get(person);
+        }
+
+        @Override
+        public int[] friends(int person) {
+            return positions(people.get(person).getFriends(), people);
+        }
+
+        @Override
+        public int[] products(int person) {
+            return positions(people.get(person).getProducts(), products);
+        }
+
+        @Override
+        public boolean hasChangedProduct(Graph g, int product) {
+            return product >= g.productCount || changedProducts.get(product);
+        }
+
+        @Override
+        public int companyOf(int product) {
+            return indexOf(companies, products.get(product).getMadeBy());
+        }
+
+        @Override
+        public boolean isRenamed(Graph g, int item, boolean companies) {
+            return g == graph && (companies ? renamedCompanies : renamedProducts).get(item);
+        }
+
+        @Override
+        public boolean hasRenamed(Graph g, boolean companies) {
+            return g == graph && !(companies ? renamedCompanies : renamedProducts).isEmpty();
+        }
+
+        @Override
+        public int count(boolean companies) {
+            return companies ? Database.this.companies.size() : products.size();
+        }
+
+        @Override
+        public String sortKey(Graph g, int item, boolean companies) {
+            return (companies ? Database.this.companies : products).get(item).getSortKey();
+        }
+    }
 }
@@ -0,0 +1,439 @@
+package model;
+
+import util.IntObjectMap;
+import util.exceptions.NoSuchCompanyException;
+import util.exceptions.NoSuchPersonException;
+import util.exceptions.NoSuchProductException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * An immutable version of the content of a {@link Database}, which can be queried by any number of threads without locking
+ * <p>
+ * A view is created by a {@link ConcurrentDatabase} while no writer is active. The {@link Graph} of the correlations
+ * is shared with the {@link Database} and the previous views, every view only copies the changes made after
+ * the {@link Graph} was built into an immutable {@link Graph.Delta}. So a new view costs time proportional to
+ * the number of changed people and products, until the {@link Database} rebuilds its {@link Graph}.
+ * The lists of the entities, the maps of their {@code id}'s and the indices over their names are copied
+ * for every kind of entity, which was added, renamed or got a new {@code id} or gender, and are shared otherwise.
+ * This costs time proportional to the number of entities of the kind.
+ * <p>
+ * The entities themselves are shared with the {@link Database} and aren't copied. Every query of a view uses
+ * the {@code id}'s, names and correlations of the time the view was created, but the attributes of the returned
+ * entities may already contain newer changes. The friends and products of the returned entities belong to the writers
+ * and must not be read by queries, the networks of this view have to be used instead.
+ */
+public class DatabaseView {
+    /**
+     * Every {@link Person} of this version based on their position
+     */
+    private final List<Person> people;
+
+    /**
+     * Every {@link Product} of this version based on their position
+     */
+    private final List<Product> products;
+
+    /**
+     * Every {@link Company} of this version based on their position
+     */
+    private final List<Company> companies;
+
+    /**
+     * Contains every {@link Person} of this version based on their {@code id}
+     */
+    private final IntObjectMap<Person> peopleMap;
+
+    /**
+     * Contains every {@link Product} of this version based on their {@code id}
+     */
+    private final IntObjectMap<Product> productsMap;
+
+    /**
+     * Contains every {@link Company} of this version based on their {@code id}
+     */
+    private final IntObjectMap<Company> companiesMap;
+
+    /**
+     * Contains an index over the names of every {@link Person} of this version
+     */
+    private final NameIndex<Person> peopleIndex;
+
+    /**
+     * Contains an index over the names of every {@link Product} of this version
+     */
+    private final NameIndex<Product> productsIndex;
+
+    /**
+     * Contains the {@link Graph} of the correlations, which may have been built before this version
+     */
+    private final Graph graph;
+
+    /**
+     * Contains every change of this version after the {@link Graph} was built
+     */
+    private final Graph.Delta delta;
+
+    /**
+     * The counts of the changes of the {@link Database} at the time this version was created
+     */
+    final int peopleVersion, productsVersion, companiesVersion, version;
+
+    /**
+     * Creates a new version of a {@link Database}
+     * Has to be called while the {@link Database} isn't changed
+     *
+     * @param db The {@link Database}
+     * @param previous The previous version, or null if there is none
+     */
+    DatabaseView(Database db, DatabaseView previous) {
+        peopleVersion = db.peopleVersion;
+        productsVersion = db.productsVersion;
+        companiesVersion = db.companiesVersion;
+        version = db.version;
+
+        // Copy the people
+        if (previous == null || peopleVersion != previous.peopleVersion) {
+            this.people = List.copyOf(db.getPeople());
+            peopleMap = toMap(this.people);
+            peopleIndex = toIndex(this.people);
+        } else {
+            this.people = previous.people;
+            peopleMap = previous.peopleMap;
+            peopleIndex = previous.peopleIndex;
+        }
+
+        // Copy the products
+        if (previous == null || productsVersion != previous.productsVersion) {
+            this.products = List.copyOf(db.getProducts());
+            productsMap = toMap(this.products);
+            productsIndex = toIndex(this.products);
+        } else {
+            this.products = previous.products;
+            productsMap = previous.productsMap;
+            productsIndex = previous.productsIndex;
+        }
+
+        // Copy the companies
+        if (previous == null || companiesVersion != previous.companiesVersion) {
+            this.companies = List.copyOf(db.getCompanies());
+            companiesMap = toMap(this.companies);
+        } else {
+            this.companies = previous.companies;
+            companiesMap = previous.companiesMap;
+        }
+
+        // Share the graph and copy the changes after it was built
+        graph = db.getGraph();
+        delta = db.delta(graph);
+    }
+
+    /**
+     * Get a {@link Person} based on their {@code id}
+     *
+     * @param id The {@code id} to search for
+     *
+     * @return A {@link Person} if the {@code id} is correct
+     *
+     * @throws NoSuchPersonException If no {@link Person} can be found with that {@code id}
+     */
+    public Person getPersonById(int id) throws NoSuchPersonException {
+        Person p = peopleMap.get(id);
+        if (p != null)
+            return p;
+        else
+            throw new NoSuchPersonException(id);
+    }
+
+    /**
+     * Get a {@link Product} based on their {@code id}
+     *
+     * @param id The {@code id} to search for
+     *
+     * @return A {@link Product} if the {@code id} is correct
+     *
+     * @throws NoSuchProductException If no {@link Product} can be found with that {@code id}
+     */
+    public Product getProductById(int id) throws NoSuchProductException {
+        Product p = productsMap.get(id);
+        if (p != null)
+            return p;
+        else
+            throw new NoSuchProductException(id);
+    }
+
+    /**
+     * Get a {@link Company} based on their {@code id}
+     *
+     * @param id The {@code id} to search for
+     *
+     * @return A {@link Company} if the {@code id} is correct
+     *
+     * @throws NoSuchCompanyException If no {@link Company} can be found with that {@code id}
+     */
+    public Company getCompanyById(int id) throws NoSuchCompanyException {
+        Company c = companiesMap.get(id);
+        if (c != null)
+            return c;
+        else
+            throw new NoSuchCompanyException(id);
+    }
+
+    /**
+     * Get all the {@link Person people} based on a provided {@link String} in a single pass
+     *
+     * @param name The {@link String} to search for
+     *
+     * @return An unmodifiable {@link List} of every {@link Person} who's {@code name} contains the {@link String}, which may be empty
+     */
+    public List<Person> findPeopleByName(String name) {
+        return Collections.unmodifiableList(peopleIndex.search(name));
+    }
+
+    /**
+     * Get all the {@link Person people} based on a provided {@link String}
+     *
+     * @param name The {@link String} to search for
+     *
+     * @return A {@link Stream} of {@link Person} who's {@code name} contains a specific {@link String}
+     *
+     * @throws NoSuchPersonException If no {@link Person} could be found
+     */
+    public Stream<Person> getPeopleByName(String name) throws NoSuchPersonException {
+        List<Person> results = findPeopleByName(name);
+
+        // Return the results if there are any or throw an exception
+        if (!results.isEmpty())
+            return results.stream();
+        else
+            throw new NoSuchPersonException(name);
+    }
+
+    /**
+     * Get all the {@link Product products} based on a provided {@link String} in a single pass
+     *
+     * @param name The {@link String} to search for
+     *
+     * @return An unmodifiable {@link List} of every {@link Product} who's {@code name} contains the {@link String}, which may be empty
+     */
+    public List<Product> findProductsByName(String name) {
+        return Collections.unmodifiableList(productsIndex.search(name));
+    }
+
+    /**
+     * Get all the {@link Product products} based on a provided {@link String}
+     *
+     * @param name The {@link String} to search for
+     *
+     * @return A {@link Stream} of {@link Product} who's {@code name} contains a specific {@link String}
+     *
+     * @throws NoSuchProductException If no {@link Product} could be found
+     */
+    public Stream<Product> getProductsByName(String name) throws NoSuchProductException {
+        List<Product> results = findProductsByName(name);
+
+        // Return the results if there are any or throw an exception
+        if (!results.isEmpty())
+            return results.stream();
+        else
+            throw new NoSuchProductException(name);
+    }
+
+    /**
+     * Get the {@link Product} network of a {@link Person}
+     * Sorted in {@code ascending} order by the {@link util.CustomComparator},
+     * products with the same name in the order they were first found in
+     *
+     * @param id The {@code id} of the {@link Person} to base the search on
+     *
+     * @return A {@link List} of every {@link Product} of the friends, which the {@link Person} doesn't own
+     *
+     * @throws NoSuchPersonException If the {@link Person} isn't part of this version
+     */
+    public List<Product> getProductNetwork(int id) throws NoSuchPersonException {
+        return toList(products, graph.network(delta, getPersonById(id).index, false));
+    }
+
+    /**
+     * Get the {@link Company} network of a {@link Person}
+     * Sorted in {@code ascending} order by the {@link util.CustomComparator},
+     * companies with the same name in the order they were first found in
+     *
+     * @param id The {@code id} of the {@link Person} to base the search on
+     *
+     * @return A {@link List} of every {@link Company} of the products of the friends,
+     *         which didn't make any of the products of the {@link Person}
+     *
+     * @throws NoSuchPersonException If the {@link Person} isn't part of this version
+     */
+    public List<Company> getCompanyNetwork(int id) throws NoSuchPersonException {
+        return toList(companies, graph.network(delta, getPersonById(id).index, true));
+    }
+
+    /**
+     * Get the {@link Product products} of the people within a number of hops of a {@link Person}, ranked by how many and how close people own them
+     *
+     * @param id The {@code id} of the {@link Person} to base the search on
+     * @param hops The number of hops between 1 and 6, {@code 1} only includes the friends
+     * @param maxVisited The maximal number of reached people, the closest people are reached first
+     *
+     * @return A {@link List} of every {@link Product} of the reached people, which the {@link Person} doesn't own
+     *
+     * @throws NoSuchPersonException If the {@link Person} isn't part of this version
+     *
+     * @see Database#getRankedProductNetwork(Person, int, int)
+     */
+    public List<Ranked<Product>> getRankedProductNetwork(int id, int hops, int maxVisited) throws NoSuchPersonException {
+        return Database.toRanked(products, graph.rank(delta, getPersonById(id).index, hops, maxVisited, false));
+    }
+
+    /**
+     * Get the {@link Company companies} of the products of the people within a number of hops of a {@link Person},
+     * ranked by how many and how close people own their products
+     *
+     * @param id The {@code id} of the {@link Person} to base the search on
+     * @param hops The number of hops between 1 and 6, {@code 1} only includes the friends
+     * @param maxVisited The maximal number of reached people, the closest people are reached first
+     *
+     * @return A {@link List} of every {@link Company} of the products of the reached people,
+     *         which didn't make any of the products of the {@link Person}
+     *
+     * @throws NoSuchPersonException If the {@link Person} isn't part of this version
+     *
+     * @see Database#getRankedCompanyNetwork(Person, int, int)
+     */
+    public List<Ranked<Company>> getRankedCompanyNetwork(int id, int hops, int maxVisited) throws NoSuchPersonException {
+        return Database.toRanked(companies, graph.rank(delta, getPersonById(id).index, hops, maxVisited, true));
+    }
+
+    /**
+     * Get the {@link Product} network of every {@link Person} of this version at once
+     *
+     * @return The table containing the {@link Product} network of every {@link Person}
+     *
+     * @see Database#getAllProductNetworks()
+     */
+    public NetworkTable<Product> getAllProductNetworks() {
+        return graph.networks(delta, people, products, false);
+    }
+
+    /**
+     * Get the {@link Company} network of every {@link Person} of this version at once
+     *
+     * @return The table containing the {@link Company} network of every {@link Person}
+     *
+     * @see Database#getAllCompanyNetworks()
+     */
+    public NetworkTable<Company> getAllCompanyNetworks() {
+        return graph.networks(delta, people, companies, true);
+    }
+
+    /**
+     * Get the {@link Product products} most friends of a {@link Person} own, which the {@link Person} doesn't own
+     *
+     * @param id The {@code id} of the {@link Person} to base the search on
+     * @param limit The maximal number of products
+     *
+     * @return A {@link List} of at most {@code limit} products, sorted by the number of friends owning them
+     *
+     * @throws NoSuchPersonException If the {@link Person} isn't part of this version
+     *
+     * @see Database#getProductRecommendations(Person, int)
+     */
+    public List<Ranked<Product>> getProductRecommendations(int id, int limit) throws NoSuchPersonException {
+        return Database.toRanked(products, graph.recommend(delta, getPersonById(id).index, limit, false));
+    }
+
+    /**
+     * Get the {@link Company companies} of whose products most friends of a {@link Person} own one,
+     * which didn't make any of the products of the {@link Person}
+     *
+     * @param id The {@code id} of the {@link Person} to base the search on
+     * @param limit The maximal number of companies
+     *
+     * @return A {@link List} of at most {@code limit} companies, sorted by the number of friends owning one of their products
+     *
+     * @throws NoSuchPersonException If the {@link Person} isn't part of this version
+     *
+     * @see Database#getCompanyRecommendations(Person, int)
+     */
+    public List<Ranked<Company>> getCompanyRecommendations(int id, int limit) throws NoSuchPersonException {
+        return Database.toRanked(companies, graph.recommend(delta, getPersonById(id).index, limit, true));
+    }
+
+    /**
+     * Get every {@link Person} of this version
+     *
+     * @return An unmodifiable {@link List} containing every {@link Person}
+     */
+    public List<Person> getPeople() {
+        return people;
+    }
+
+    /**
+     * Get every {@link Product} of this version
+     *
+     * @return An unmodifiable {@link List} containing every {@link Product}
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * Get every {@link Company} of this version
+     *
+     * @return An unmodifiable {@link List} containing every {@link Company}
+     */
+    public List<Company> getCompanies() {
+        return companies;
+    }
+
+    /**
+     * Creates a map of entities based on their {@code id}
+     *
+     * @param list The entities
+     * @param <T> A TypeParameter restricting this method to children of the superclass {@link Parent}
+     *
+     * @return The map
+     */
+    private static <T extends Parent> IntObjectMap<T> toMap(List<T> list) {
+        IntObjectMap<T> map = new IntObjectMap<>();
+        for (T entity : list)
+            map.put(entity.getId(), entity);
+        return map;
+    }
+
+    /**
+     * Creates an index over the names of entities
+     *
+     * @param list The entities
+     * @param <T> A TypeParameter restricting this method to children of the superclass {@link Parent}
+     *
+     * @return The index
+     */
+    private static <T extends Parent> NameIndex<T> toIndex(List<T> list) {
+        NameIndex<T> index = new NameIndex<>(list);
+        for (T entity : list)
+            index.add(entity);
+        return index;
+    }
+
+    /**
+     * Converts positions to a {@link List} of entities
+     *
+     * @param list The entities of this version
+     * @param positions The positions of the entities
+     * @param <T> A TypeParameter restricting this method to children of the superclass {@link Parent}
+     *
+     * @return A {@link List} containing the entities
+     */
+    private static <T extends Parent> List<T> toList(List<T> list, int[] positions) {
+        List<T> results = new ArrayList<>(positions.length);
+        for (int pos : positions)
+            results.add(list.get(pos));
+        return results;
+    }
+}
@@ -0,0 +1,296 @@
+package model;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects the invalid lines of a file and writes them on a background thread
+ * <p>
+ * The readers only put the line number, the name of the error and its message into a ring buffer,
+ * the text is built and written by the background thread, which writes every available entry at once.
+ * The number of invalid lines is counted for every error. Only every n-th invalid line of an error and
+ * only a limited number of lines in total are written, the other ones are summarized by {@link #flush()}.
+ * By default every invalid line is written.
+ * If writing to the stream fails, the background thread stops and every following line is written to
+ * {@link System#err} directly by the thread logging it.
+ */
+public class ErrorSink {
+    /**
+     * The default number of entries the ring buffer can hold
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The stream to write to
+     */
+    private final PrintStream out;
+
+    /**
+     * The maximal number of written lines
+     */
+    private final long maxErrors;
+
+    /**
+     * Only every n-th invalid line of an error is written
+     */
+    private final int sampleRate;
+
+    /**
+     * The ring buffer containing the line numbers, the errors and the messages of the entries
+     */
+    private final long[] lines;
+    private final String[] errors, messages;
+
+    /**
+     * Represent the number of entries which were put into the ring buffer and the number of written entries
+     */
+    private long appended, written;
+
+    /**
+     * Represents the number of lines which were written or put into the ring buffer
+     */
+    private long accepted;
+
+    /**
+     * Contains the number of invalid lines of every error, the first value is the total number,
+     * the second one the number of lines which weren't written since the last {@link #flush()}
+     */
+    private final Map<String, long[]> counts = new TreeMap<>();
+
+    /**
+     * Represents whether the background thread was started
+     */
+    private boolean started;
+
+    /**
+     * The failure which stopped the background thread, or null if it's still running
+     */
+    private Throwable failure;
+
+    /**
+     * Guards every field, which is changed after the creation
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signal new entries, free space in the ring buffer and written entries
+     */
+    private final Condition notEmpty = lock.newCondition(), notFull = lock.newCondition(), drained = lock.newCondition();
+
+    /**
+     * Creates a new sink
+     *
+     * @param out The stream to write to
+     * @param capacity The number of entries the ring buffer can hold
+     * @param maxErrors The maximal number of written lines
+     * @param sampleRate Only every n-th invalid line of an error is written
+     */
+    public ErrorSink(PrintStream out, int capacity, long maxErrors, int sampleRate) {
+        if (capacity <= 0 || maxErrors < 0 || sampleRate <= 0)
+            throw new IllegalArgumentException("Ungueltige Einstellungen fuer die Fehlerausgabe!");
+
+        this.out = out;
+        this.maxErrors = maxErrors;
+        this.sampleRate = sampleRate;
+        lines = new long[capacity];
+        errors = new String[capacity];
+        messages = new String[capacity];
+    }
+
+    /**
+     * Logs an invalid line
+     * Waits, if the ring buffer is full
+     *
+     * @param line The number of the invalid line
+     * @param error The name of the error
+     * @param message The reason why the line is invalid
+     */
+    public void log(long line, String error, String message) {
+        lock.lock();
+        try {
+            long[] count = counts.computeIfAbsent(error, e -> new long[2]);
+
+            // Skip the lines which aren't part of the sample or exceed the maximum
+            if (count[0]++ % sampleRate != 0 || accepted >= maxErrors) {
+                count[1]++;
+                return;
+            }
+            accepted++;
+
+            if (!started) {
+                Thread writer = new Thread(this::write, "error-sink");
+                writer.setDaemon(true);
+                writer.start();
+                started = true;
+            }
+
+            while (appended - written == lines.length && failure == null)
+                notFull.awaitUninterruptibly();
+
+            if (failure == null) {
+                int slot = (int) (appended % lines.length);
+                lines[slot] = line;
+                errors[slot] = error;
+                messages[slot] = message;
+                appended++;
+                notEmpty.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // The background thread has stopped
+        System.err.print(append(new StringBuilder(), line, error, message));
+    }
+
+    /**
+     * Waits until every logged line was written and writes a summary of the lines, which weren't written since the last call
+     */
+    public void flush() {
+        String summary = null;
+        PrintStream target;
+
+        lock.lock();
+        try {
+            while (written < appended && failure == null)
+                drained.awaitUninterruptibly();
+            target = failure == null ? out : System.err;
+
+            // Summarize the skipped lines
+            long skipped = 0;
+            StringBuilder details = new StringBuilder();
+            for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+                long[] count = entry.getValue();
+                if (count[1] > 0) {
+                    details.append(skipped == 0 ? "" : ", ").append(entry.getKey()).append(": ").append(count[1]);
+                    skipped += count[1];
+                    count[1] = 0;
+                }
+            }
+            if (skipped > 0)
+                summary = skipped + " weitere fehlerhafte Datensaetze wurden nicht ausgegeben (" + details + ")";
+        } finally {
+            lock.unlock();
+        }
+
+        if (summary != null)
+            target.println(summary);
+        target.flush();
+    }
+
+    /**
+     * Get the number of invalid lines of every error
+     *
+     * @return A {@link Map} from the name of every error to its number of lines
+     */
+    public Map<String, Long> getCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        lock.lock();
+        try {
+            counts.forEach((error, count) -> result.put(error, count[0]));
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Writes the entries of the ring buffer, runs on the background thread
+     * If writing fails, the waiting threads are released and the thread stops
+     */
+    private void write() {
+        try {
+            writeEntries();
+        } catch (Throwable e) {
+            StringBuilder text = new StringBuilder();
+            lock.lock();
+            try {
+                failure = e;
+
+                // The entries which weren't written are given to the fallback
+                for (long i = written; i < appended; i++) {
+                    int slot = (int) (i % lines.length);
+                    append(text, lines[slot], errors[slot], messages[slot]);
+                    errors[slot] = messages[slot] = null;
+                }
+                written = appended;
+                notFull.signalAll();
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            System.err.println("Die fehlerhaften Datensaetze konnten nicht ausgegeben werden: " + e);
+            System.err.print(text);
+        }
+    }
+
+    /**
+     * Writes the entries of the ring buffer until writing fails
+     * The slots are only released after they were written, so they are still available after a failure
+     *
+     * @throws IOException If the {@link PrintStream} reports an error, because it never throws one itself
+     */
+    private void writeEntries() throws IOException {
+        StringBuilder text = new StringBuilder();
+
+        while (true) {
+            long from, to;
+
+            // Wait for new entries
+            lock.lock();
+            try {
+                while (written == appended)
+                    notEmpty.awaitUninterruptibly();
+                from = written;
+                to = appended;
+            } finally {
+                lock.unlock();
+            }
+
+            // Only the background thread reads these slots until they are released
+            text.setLength(0);
+            for (long i = from; i < to; i++) {
+                int slot = (int) (i % lines.length);
+                append(text, lines[slot], errors[slot], messages[slot]);
+            }
+            out.print(text);
+            if (out.checkError())
+                throw new IOException("Der Stream meldet einen Fehler");
+            for (long i = from; i < to; i++) {
+                int slot = (int) (i % lines.length);
+                errors[slot] = messages[slot] = null;
+            }
+
+            // Release the slots
+            lock.lock();
+            try {
+                written = to;
+                notFull.signalAll();
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Appends the text of an invalid line
+     *
+     * @param text The text to append to
+     * @param line The number of the invalid line
+     * @param error The name of the error
+     * @param message The reason why the line is invalid
+     *
+     * @return The text
+     */
+    private static StringBuilder append(StringBuilder text, long line, String error, String message) {
+        return text.append("Fehlerhafter Datensatz in Zeile ").append(line).append("! ")
+                .append(error).append(": ").append(message).append(System.lineSeparator());
+    }
+}
@@ -0,0 +1,1227 @@
+package model;
+
+import util.IntIntMap;
+import util.IntList;
+import util.IntObjectMap;
+import util.ScratchBitSet;
+import util.ScratchCounter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable compressed-sparse-row graph of every correlation in a {@link Database}
+ * <p>
+ * Every entity is represented by its position in the {@link Database}. The friends and products of a
+ * {@link Person} are stored as consecutive rows in shared int arrays, the {@link Company} of every {@link Product}
+ * in an array indexed by the position of the {@link Product}. Products and companies also get a rank,
+ * which is their position when sorted by the {@link util.CustomComparator}, so the networks can be collected
+ * in a bitset over the ranks and come out sorted without any comparisons. Only entities with the same name
+ * are reordered afterwards, by the order they were first found in, like the stable sort of the {@link util.CustomComparator}.
+ * <p>
+ * Changes of the {@link Database} after the graph was built are not part of the graph. They are provided by an
+ * {@link Overlay}, the network queries read the rows of the changed people and the companies of the changed products
+ * from it. Products and companies which were added or renamed afterwards aren't ranked, they are sorted by their
+ * current names and merged with the ranked ones.
+ */
+class Graph {
+    /**
+     * The number of people, products and companies at the time the graph was built
+     */
+    final int personCount, productCount, companyCount;
+
+    /**
+     * The row of friends of every {@link Person} starts at {@code friendOffsets[p]} and ends before {@code friendOffsets[p + 1]}
+     */
+    private final int[] friendOffsets, friendTargets;
+
+    /**
+     * The row of products of every {@link Person} starts at {@code ownOffsets[p]} and ends before {@code ownOffsets[p + 1]}
+     */
+    private final int[] ownOffsets, ownTargets;
+
+    /**
+     * Contains the position of the {@link Company} of every {@link Product}, or -1 if there is none
+     */
+    private final int[] madeBy;
+
+    /**
+     * Contains the rank of every {@link Product} and the position of the {@link Product} of every rank
+     */
+    private final int[] productRanks, productsByRank;
+
+    /**
+     * Contains the rank of every {@link Company} and the position of the {@link Company} of every rank
+     */
+    private final int[] companyRanks, companiesByRank;
+
+    /**
+     * Contains the sort key of every {@link Product} and {@link Company} at the time the graph was built
+     */
+    private final String[] productKeys, companyKeys;
+
+    /**
+     * Contain every rank of a {@link Product} or {@link Company}, whose sort key is the same as the one of the rank before
+     */
+    private final BitSet productTies, companyTies;
+
+    /**
+     * The maximal number of hops of a ranked network
+     */
+    static final int MAX_HOPS = 6;
+
+    /**
+     * The factor applied to the weight of a {@link Person} with every further hop of a ranked network
+     */
+    static final double HOP_DECAY = 0.5;
+
+    /**
+     * The number of people of a frontier, which are expanded by a single task
+     * Bigger frontiers are expanded on every available core
+     */
+    private static final int FRONTIER_CHUNK = 4096;
+
+    /**
+     * The number of people whose networks are computed by a single task of {@link #networks}
+     */
+    private static final int TABLE_CHUNK = 1024;
+
+    /**
+     * A reusable bitset for every thread running a query
+     */
+    private static final ThreadLocal<ScratchBitSet> scratch = ThreadLocal.withInitial(() -> new ScratchBitSet(1024));
+
+    /**
+     * Reusable counters for every thread running a recommendation
+     */
+    private static final ThreadLocal<ScratchCounter> counters = ThreadLocal.withInitial(() -> new ScratchCounter(1024));
+
+    /**
+     * A reusable array for every thread running a query, which contains the order in which every rank was first found
+     * Only the values of the ranks set by the running query are valid, so the array is never cleared
+     */
+    private static final ThreadLocal<int[]> orders = ThreadLocal.withInitial(() -> new int[1024]);
+
+    /**
+     * Builds the graph of the current content of a {@link Database}
+     *
+     * @param people Every {@link Person} of the {@link Database}
+     * @param products Every {@link Product} of the {@link Database}
+     * @param companies Every {@link Company} of the {@link Database}
+     */
+    Graph(List<Person> people, List<Product> products, List<Company> companies) {
+        personCount = people.size();
+        productCount = products.size();
+        companyCount = companies.size();
+
+        // Build the rows of friends
+        friendOffsets = new int[personCount + 1];
+        IntList targets = new IntList(personCount * 4);
+        for (int i = 0; i < personCount; i++) {
+            for (Person f : people.get(i).getFriends()) {
+                int index = Database.indexOf(people, f);
+                if (index >= 0)
+                    targets.add(index);
+            }
+            friendOffsets[i + 1] = targets.size();
+        }
+        friendTargets = targets.toArray();
+
+        // Build the rows of owned products
+        ownOffsets = new int[personCount + 1];
+        targets.clear();
+        for (int i = 0; i < personCount; i++) {
+            for (Product p : people.get(i).getProducts()) {
+                int index = Database.indexOf(products, p);
+                if (index >= 0)
+                    targets.add(index);
+            }
+            ownOffsets[i + 1] = targets.size();
+        }
+        ownTargets = targets.toArray();
+
+        madeBy = new int[productCount];
+        for (int i = 0; i < productCount; i++)
+            madeBy[i] = Database.indexOf(companies, products.get(i).getMadeBy());
+
+        // Rank the products and companies
+        productKeys = products.stream().map(Parent::getSortKey).toArray(String[]::new);
+        companyKeys = companies.stream().map(Parent::getSortKey).toArray(String[]::new);
+        productsByRank = sort(productKeys);
+        productRanks = invert(productsByRank);
+        companiesByRank = sort(companyKeys);
+        companyRanks = invert(companiesByRank);
+        productTies = ties(productKeys, productsByRank);
+        companyTies = ties(companyKeys, companiesByRank);
+    }
+
+    /**
+     * Checks whether the graph has to be rebuilt, because reading the changes would take longer
+     *
+     * @param changes The number of changed entities since the graph was built
+     *
+     * @return {@code true} if the graph is outdated, {@code false} otherwise
+     */
+    boolean isOutdated(int changes) {
+        return changes > Math.max(1024, personCount / 16);
+    }
+
+    /**
+     * Get the positions of the products or companies of the friends of a {@link Person},
+     * without the ones of the {@link Person}, sorted in {@code ascending} order by the {@link util.CustomComparator}
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param person The position of the {@link Person}
+     * @param companies {@code true} for the company network, {@code false} for the product network
+     *
+     * @return The positions of the products or companies
+     */
+    int[] network(Overlay overlay, int person, boolean companies) {
+        ScratchBitSet bits = scratch.get();
+        IntList added = new IntList();
+        IntList removed = new IntList();
+        Encounters found = new Encounters(companies ? companyTies : productTies, companies ? companyCount : productCount,
+                hasUnranked(overlay, companies));
+
+        try {
+            // Add the products/companies of every friend
+            if (hasChanged(overlay, person)) {
+                for (int friend : overlay.friends(person))
+                    collect(overlay, friend, companies, bits, added, found);
+            } else {
+                for (int i = friendOffsets[person]; i < friendOffsets[person + 1]; i++)
+                    collect(overlay, friendTargets[i], companies, bits, added, found);
+            }
+
+            // Remove the products/companies of the provided person
+            collect(overlay, person, companies, bits, removed, null);
+
+            // Map the ranks back to positions
+            int[] ranks = bits.drain();
+            int[] byRank = companies ? companiesByRank : productsByRank;
+            for (int i = 0; i < ranks.length; i++)
+                ranks[i] = byRank[ranks[i]];
+
+            if (added.size() == 0) {
+                orderTies(null, ranks, found, companies);
+                return ranks;
+            }
+
+            int[] sorted = merge(overlay, ranks, added, removed, companies);
+            orderTies(overlay, sorted, found, companies);
+            return sorted;
+        } finally {
+            bits.clear();
+        }
+    }
+
+    /**
+     * Computes the product or company network of every {@link Person} at once
+     * <p>
+     * Every network is a row of the product of the sparse boolean matrices of the friends and of the products or companies,
+     * without the products or companies of the {@link Person}. The rows are computed in chunks on every available core,
+     * every chunk collects its rows in one list, which are joined in order afterwards.
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param people Every {@link Person} based on their position
+     * @param items Every {@link Product} or {@link Company} based on their position
+     * @param companies {@code true} for the company networks, {@code false} for the product networks
+     * @param <T> The type of the entities of the networks
+     *
+     * @return The table containing every network
+     */
+    <T extends Parent> NetworkTable<T> networks(Overlay overlay, List<Person> people, List<T> items, boolean companies) {
+        int count = people.size();
+        int[] sizes = new int[count];
+        IntList[] chunks = new IntList[(count + TABLE_CHUNK - 1) / TABLE_CHUNK];
+
+        IntStream.range(0, chunks.length).parallel().forEach(c -> {
+            IntList rows = new IntList(TABLE_CHUNK);
+            for (int p = c * TABLE_CHUNK; p < Math.min(count, (c + 1) * TABLE_CHUNK); p++) {
+                int[] network = network(overlay, p, companies);
+                sizes[p] = network.length;
+                for (int item : network)
+                    rows.add(item);
+            }
+            chunks[c] = rows;
+        });
+
+        // Join the chunks
+        long total = 0;
+        for (IntList rows : chunks)
+            total += rows.size();
+        if (total > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("Die Netzwerke sind zu gross fuer eine Tabelle!");
+
+        int[] offsets = new int[count + 1];
+        for (int p = 0; p < count; p++)
+            offsets[p + 1] = offsets[p] + sizes[p];
+
+        int[] targets = new int[(int) total];
+        int pos = 0;
+        for (IntList rows : chunks) {
+            System.arraycopy(rows.toArray(), 0, targets, pos, rows.size());
+            pos += rows.size();
+        }
+        return new NetworkTable<>(people, items, offsets, targets);
+    }
+
+    /**
+     * Collects the products or companies of a {@link Person}
+     *
+     * @param overlay The changes after the graph was built
+     * @param person The position of the {@link Person}
+     * @param companies {@code true} to collect companies, {@code false} to collect products
+     * @param bits The ranks of the collected products/companies, which were already part of the graph
+     * @param others The positions of the collected products/companies, which were added or renamed after the graph was built
+     * @param found Remembers the order in which the products/companies were first found, or null to clear the ranks instead of setting them
+     */
+    private void collect(Overlay overlay, int person, boolean companies, ScratchBitSet bits, IntList others, Encounters found) {
+        if (hasChanged(overlay, person)) {
+            for (int product : overlay.products(person))
+                collectItem(overlay, product, companies, bits, others, found);
+        } else {
+            for (int i = ownOffsets[person]; i < ownOffsets[person + 1]; i++)
+                collectItem(overlay, ownTargets[i], companies, bits, others, found);
+        }
+    }
+
+    /**
+     * Collects a {@link Product} or its {@link Company}
+     *
+     * @param overlay The changes after the graph was built
+     * @param product The position of the {@link Product}
+     * @param companies {@code true} to collect the {@link Company}, {@code false} to collect the {@link Product}
+     * @param bits The ranks of the collected products/companies, which were already part of the graph
+     * @param others The positions of the collected products/companies, which were added or renamed after the graph was built
+     * @param found Remembers the order in which the products/companies were first found, or null to clear the rank instead of setting it
+     */
+    private void collectItem(Overlay overlay, int product, boolean companies, ScratchBitSet bits, IntList others, Encounters found) {
+        int item = product;
+        int count = productCount;
+        int[] ranks = productRanks;
+
+        if (companies) {
+            item = companyOf(overlay, product);
+            count = companyCount;
+            ranks = companyRanks;
+
+            // Products without a company don't belong to the company network
+            if (item < 0)
+                return;
+        }
+
+        if (item >= count || isRenamed(overlay, item, companies)) {
+            others.add(item);
+            if (found != null)
+                found.unranked(item);
+        } else if (found == null) {
+            bits.clear(ranks[item]);
+        } else if (bits.set(ranks[item])) {
+            found.ranked(ranks[item]);
+        }
+    }
+
+    /**
+     * Get the position of the {@link Company} of a {@link Product}
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param product The position of the {@link Product}
+     *
+     * @return The position of the {@link Company}, or -1 if there is none
+     */
+    private int companyOf(Overlay overlay, int product) {
+        return overlay != null && overlay.hasChangedProduct(this, product) ? overlay.companyOf(product) : madeBy[product];
+    }
+
+    /**
+     * Ranks the products or companies of every {@link Person} within a number of hops of a {@link Person}
+     * <p>
+     * The friend graph is searched breadth first, every reached {@link Person} is visited once. Every product,
+     * or the company of every product, of a reached {@link Person} adds a weight to its score, which is {@code 1}
+     * for friends and is multiplied by {@link #HOP_DECAY} with every further hop. The products or companies
+     * of the {@link Person} itself are left out, like in the networks.
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param person The position of the {@link Person}
+     * @param maxHops The number of hops between 1 and {@link #MAX_HOPS}
+     * @param maxVisited The maximal number of reached people, the search stops once they have been reached
+     * @param companies {@code true} to rank companies, {@code false} to rank products
+     *
+     * @return The ranked products or companies, sorted by their score and the {@link util.CustomComparator}
+     */
+    Ranking rank(Overlay overlay, int person, int maxHops, int maxVisited, boolean companies) {
+        if (maxHops < 1 || maxHops > MAX_HOPS)
+            throw new IllegalArgumentException("Die Anzahl der Schritte muss zwischen 1 und " + MAX_HOPS + " liegen!");
+        if (maxVisited < 1)
+            throw new IllegalArgumentException("Die Anzahl der besuchten Personen muss positiv sein!");
+
+        int itemCount = overlay != null ? overlay.count(companies) : companies ? companyCount : productCount;
+        double[] scores = new double[itemCount];
+        int[] hops = new int[itemCount];
+        IntList touched = new IntList();
+        IntList items = new IntList();
+
+        // The search may wait for other tasks of its thread, so it can't share the bitset of the thread
+        ScratchBitSet visited = new ScratchBitSet(personCount);
+
+        // The products/companies of the provided person are left out
+        items(overlay, person, companies, items);
+        for (int i = 0; i < items.size(); i++)
+            hops[items.get(i)] = -1;
+
+        visited.set(person);
+        int[] frontier = {person};
+        int visitedCount = 0;
+        double weight = 1;
+
+        for (int hop = 1; hop <= maxHops && frontier.length > 0 && visitedCount < maxVisited; hop++) {
+            IntList next = new IntList();
+
+            // The candidates are in the order of the frontier, so the limit always keeps the same people
+            for (int f : expand(overlay, frontier, visited)) {
+                if (visitedCount == maxVisited)
+                    break;
+                if (!visited.set(f))
+                    continue;
+
+                next.add(f);
+                visitedCount++;
+
+                // Score the products/companies of the reached person
+                items.clear();
+                items(overlay, f, companies, items);
+                for (int i = 0; i < items.size(); i++) {
+                    int item = items.get(i);
+                    if (hops[item] < 0)
+                        continue;
+                    if (hops[item] == 0) {
+                        hops[item] = hop;
+                        touched.add(item);
+                    }
+                    scores[item] += weight;
+                }
+            }
+
+            frontier = next.toArray();
+            weight *= HOP_DECAY;
+        }
+
+        // Sort by the score and the names
+        IntBinaryOperator byName = names(overlay, companies);
+        int[] sorted = IntStream.of(touched.toArray())
+                .boxed()
+                .sorted(Comparator.<Integer>comparingDouble(i -> -scores[i]).thenComparing(byName::applyAsInt))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        double[] sortedScores = new double[sorted.length];
+        int[] sortedHops = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            sortedScores[i] = scores[sorted[i]];
+            sortedHops[i] = hops[sorted[i]];
+        }
+        return new Ranking(sorted, sortedScores, sortedHops);
+    }
+
+    /**
+     * Get the products or companies most friends of a {@link Person} own, like a shortened and ranked network
+     * <p>
+     * The friends owning every product or company are counted in reusable counters indexed by the positions.
+     * The best products or companies are selected by a heap holding at most {@code limit} of them, whose root is the worst one,
+     * so only the selected ones are sorted. The time only depends on the number of products of the friends and not on the size of the network.
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param person The position of the {@link Person}
+     * @param limit The maximal number of products or companies
+     * @param companies {@code true} to recommend companies, {@code false} to recommend products
+     *
+     * @return The products or companies, sorted by the number of friends owning them and the {@link util.CustomComparator}
+     */
+    Ranking recommend(Overlay overlay, int person, int limit, boolean companies) {
+        if (limit < 1)
+            throw new IllegalArgumentException("Die Anzahl der Empfehlungen muss positiv sein!");
+
+        ScratchCounter counts = counters.get();
+        IntList items = new IntList();
+
+        try {
+            // The products/companies of the provided person are left out
+            items(overlay, person, companies, items);
+            for (int i = 0; i < items.size(); i++)
+                counts.exclude(items.get(i));
+
+            // Count the friends owning every product/company
+            if (hasChanged(overlay, person)) {
+                for (int friend : overlay.friends(person))
+                    count(overlay, friend, companies, counts, items);
+            } else {
+                for (int i = friendOffsets[person]; i < friendOffsets[person + 1]; i++)
+                    count(overlay, friendTargets[i], companies, counts, items);
+            }
+
+            // Keep the best products/companies in a heap, whose root is the worst one
+            IntBinaryOperator byName = names(overlay, companies);
+            IntBinaryOperator order = (a, b) -> a == b ? 0 : counts.get(a) != counts.get(b)
+                    ? Integer.compare(counts.get(b), counts.get(a))
+                    : byName.applyAsInt(a, b);
+
+            int[] heap = new int[Math.min(limit, counts.touchedCount())];
+            int size = 0;
+            for (int i = 0; i < counts.touchedCount(); i++) {
+                int item = counts.touched(i);
+                if (counts.get(item) < 0)
+                    continue;
+
+                if (size < heap.length) {
+                    heap[size] = item;
+                    siftUp(heap, size++, order);
+                } else if (order.applyAsInt(item, heap[0]) < 0) {
+                    heap[0] = item;
+                    siftDown(heap, size, order);
+                }
+            }
+
+            // Remove the worst one until the heap is empty, which sorts the selected ones from the back
+            int[] sorted = new int[size];
+            double[] scores = new double[size];
+            int[] hops = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                sorted[i] = heap[0];
+                scores[i] = counts.get(heap[0]);
+                hops[i] = 1;
+                heap[0] = heap[i];
+                siftDown(heap, i, order);
+            }
+            return new Ranking(sorted, scores, hops);
+        } finally {
+            counts.clear();
+        }
+    }
+
+    /**
+     * Counts the products of a {@link Person} or the companies of the products, every {@link Company} once
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param person The position of the {@link Person}
+     * @param companies {@code true} to count companies, {@code false} to count products
+     * @param counts The counters of the products or companies
+     * @param items A reusable list for the positions of the products or companies
+     */
+    private void count(Overlay overlay, int person, boolean companies, ScratchCounter counts, IntList items) {
+        items.clear();
+        items(overlay, person, companies, items);
+
+        // A person owns every product once, but may own many products of a company
+        if (!companies) {
+            for (int i = 0; i < items.size(); i++)
+                counts.increment(items.get(i));
+            return;
+        }
+
+        ScratchBitSet seen = scratch.get();
+        try {
+            for (int i = 0; i < items.size(); i++) {
+                if (seen.set(items.get(i)))
+                    counts.increment(items.get(i));
+            }
+        } finally {
+            seen.clear();
+        }
+    }
+
+    /**
+     * Moves an element of a heap up until its parent isn't worse
+     *
+     * @param heap The heap, whose root is the worst element
+     * @param pos The position of the element
+     * @param order Compares the elements, the worse ones are bigger
+     */
+    private static void siftUp(int[] heap, int pos, IntBinaryOperator order) {
+        int item = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (order.applyAsInt(heap[parent], item) >= 0)
+                break;
+            heap[pos] = heap[parent];
+            pos = parent;
+        }
+        heap[pos] = item;
+    }
+
+    /**
+     * Moves the root of a heap down until none of its children is worse
+     *
+     * @param heap The heap, whose root is the worst element
+     * @param size The number of elements of the heap
+     * @param order Compares the elements, the worse ones are bigger
+     */
+    private static void siftDown(int[] heap, int size, IntBinaryOperator order) {
+        if (size == 0)
+            return;
+
+        int item = heap[0];
+        int pos = 0;
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && order.applyAsInt(heap[child + 1], heap[child]) > 0)
+                child++;
+            if (order.applyAsInt(heap[child], item) <= 0)
+                break;
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = item;
+    }
+
+    /**
+     * Collects the friends of a frontier, which haven't been visited yet
+     * Big frontiers are split into chunks, which are expanded on every available core
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param frontier The positions of the people reached by the last hop
+     * @param visited The positions of every visited {@link Person}, which isn't changed during the call
+     *
+     * @return The positions of the friends in the order of the frontier, which may contain duplicates
+     */
+    private int[] expand(Overlay overlay, int[] frontier, ScratchBitSet visited) {
+        if (frontier.length <= FRONTIER_CHUNK) {
+            IntList found = new IntList();
+            for (int p : frontier)
+                friends(overlay, p, visited, found);
+            return found.toArray();
+        }
+
+        int chunks = (frontier.length + FRONTIER_CHUNK - 1) / FRONTIER_CHUNK;
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(c -> {
+                    IntList found = new IntList();
+                    for (int i = c * FRONTIER_CHUNK; i < Math.min(frontier.length, (c + 1) * FRONTIER_CHUNK); i++)
+                        friends(overlay, frontier[i], visited, found);
+                    return found.toArray();
+                })
+                .flatMapToInt(IntStream::of)
+                .toArray();
+    }
+
+    /**
+     * Collects the friends of a {@link Person}, which haven't been visited yet
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param person The position of the {@link Person}
+     * @param visited The positions of every visited {@link Person}
+     * @param found Collects the positions of the friends
+     */
+    private void friends(Overlay overlay, int person, ScratchBitSet visited, IntList found) {
+        if (hasChanged(overlay, person)) {
+            for (int friend : overlay.friends(person)) {
+                if (!visited.get(friend))
+                    found.add(friend);
+            }
+        } else {
+            for (int i = friendOffsets[person]; i < friendOffsets[person + 1]; i++) {
+                if (!visited.get(friendTargets[i]))
+                    found.add(friendTargets[i]);
+            }
+        }
+    }
+
+    /**
+     * Collects the positions of the products of a {@link Person} or the companies of the products
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param person The position of the {@link Person}
+     * @param companies {@code true} to collect companies, {@code false} to collect products
+     * @param found Collects the positions, a {@link Company} is collected once for every product
+     */
+    private void items(Overlay overlay, int person, boolean companies, IntList found) {
+        if (hasChanged(overlay, person)) {
+            for (int product : overlay.products(person))
+                addItem(overlay, product, companies, found);
+        } else {
+            for (int i = ownOffsets[person]; i < ownOffsets[person + 1]; i++)
+                addItem(overlay, ownTargets[i], companies, found);
+        }
+    }
+
+    /**
+     * Collects the position of a {@link Product} or its {@link Company}
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param product The position of the {@link Product}
+     * @param companies {@code true} to collect the {@link Company}, {@code false} to collect the {@link Product}
+     * @param found Collects the position, products without a company aren't collected for companies
+     */
+    private void addItem(Overlay overlay, int product, boolean companies, IntList found) {
+        int item = companies ? companyOf(overlay, product) : product;
+        if (item >= 0)
+            found.add(item);
+    }
+
+    /**
+     * Get a comparison of the positions of products or companies like the {@link util.CustomComparator},
+     * entities with the same name are sorted by their position
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param companies {@code true} to compare companies, {@code false} to compare products
+     *
+     * @return The comparison, which uses the ranks of the entities which are part of the graph and weren't renamed
+     */
+    private IntBinaryOperator names(Overlay overlay, boolean companies) {
+        int count = companies ? companyCount : productCount;
+        int[] ranks = companies ? companyRanks : productRanks;
+        Comparator<Integer> byKey = overlay == null ? null : comparator(overlay, companies);
+
+        return (a, b) -> a < count && b < count && !isRenamed(overlay, a, companies) && !isRenamed(overlay, b, companies)
+                ? Integer.compare(ranks[a], ranks[b])
+                : byKey.compare(a, b);
+    }
+
+    /**
+     * Checks whether the friends or products of a {@link Person} have to be read from the entities
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param person The position of the {@link Person}
+     *
+     * @return {@code true} if the {@link Person} changed after the graph was built, {@code false} otherwise
+     */
+    private boolean hasChanged(Overlay overlay, int person) {
+        return overlay != null && overlay.hasChanged(this, person);
+    }
+
+    /**
+     * Checks whether the rank of a {@link Product} or {@link Company} is outdated
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param item The position of the {@link Product} or {@link Company}, which is part of the graph
+     * @param companies {@code true} for a {@link Company}, {@code false} for a {@link Product}
+     *
+     * @return {@code true} if the entity was renamed after the graph was built, {@code false} otherwise
+     */
+    private boolean isRenamed(Overlay overlay, int item, boolean companies) {
+        return overlay != null && overlay.isRenamed(this, item, companies);
+    }
+
+    /**
+     * Checks whether any {@link Product} or {@link Company} was added or renamed after the graph was built
+     *
+     * @param overlay The changes after the graph was built, or null if they have to be ignored
+     * @param companies {@code true} for the companies, {@code false} for the products
+     *
+     * @return {@code true} if a network may contain entities without a valid rank, {@code false} otherwise
+     */
+    private boolean hasUnranked(Overlay overlay, boolean companies) {
+        return overlay != null && (overlay.count(companies) > (companies ? companyCount : productCount) || overlay.hasRenamed(this, companies));
+    }
+
+    /**
+     * Merges the sorted positions of the entities, which were part of the graph, with the ones added afterwards
+     *
+     * @param overlay The changes after the graph was built
+     * @param sorted The sorted positions of the entities, which were part of the graph
+     * @param added The positions of the entities added or renamed afterwards
+     * @param removed The positions of the entities added or renamed afterwards, which have to be removed
+     * @param companies {@code true} if the positions belong to companies, {@code false} if they belong to products
+     *
+     * @return Every position sorted in {@code ascending} order by the {@link util.CustomComparator}
+     */
+    private int[] merge(Overlay overlay, int[] sorted, IntList added, IntList removed, boolean companies) {
+        Comparator<Integer> order = comparator(overlay, companies);
+
+        int[] removedItems = removed.toArray();
+        Arrays.sort(removedItems);
+        int[] others = IntStream.of(added.toArray())
+                .distinct()
+                .filter(i -> Arrays.binarySearch(removedItems, i) < 0)
+                .boxed()
+                .sorted(order)
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        int[] result = new int[sorted.length + others.length];
+        int i = 0, j = 0, k = 0;
+        while (i < sorted.length || j < others.length) {
+            if (j == others.length || (i < sorted.length && order.compare(sorted[i], others[j]) <= 0))
+                result[k++] = sorted[i++];
+            else
+                result[k++] = others[j++];
+        }
+
+        return result;
+    }
+
+    /**
+     * Orders the products or companies with the same name by the order they were first found in,
+     * like the stable sort of the {@link util.CustomComparator}
+     * Only the groups of entities with the same name are sorted again
+     *
+     * @param overlay The changes after the graph was built, or null if every position is ranked and wasn't renamed
+     * @param sorted The positions sorted by the names and the positions, which are reordered
+     * @param found The order in which the products or companies were first found
+     * @param companies {@code true} if the positions belong to companies, {@code false} if they belong to products
+     */
+    private void orderTies(Overlay overlay, int[] sorted, Encounters found, boolean companies) {
+        int count = companies ? companyCount : productCount;
+        int[] ranks = companies ? companyRanks : productRanks;
+
+        // Without any entities with the same name nothing has to be reordered
+        if (overlay == null && !found.hasTies())
+            return;
+
+        for (int start = 0, end; start < sorted.length; start = end) {
+            end = start + 1;
+            while (end < sorted.length && sameName(overlay, sorted[end - 1], sorted[end], companies))
+                end++;
+            if (end - start < 2)
+                continue;
+
+            // Sort the group by the order and the position packed into one long
+            long[] group = new long[end - start];
+            for (int i = start; i < end; i++) {
+                int item = sorted[i];
+                int order = item < count && !isRenamed(overlay, item, companies) ? found.order(ranks[item]) : found.orderOf(item);
+                group[i - start] = (long) order << 32 | item;
+            }
+            Arrays.sort(group);
+            for (int i = start; i < end; i++)
+                sorted[i] = (int) group[i - start];
+        }
+    }
+
+    /**
+     * Checks whether two products or companies, which are next to each other in a sorted network, have the same name
+     *
+     * @param overlay The changes after the graph was built, or null if both positions are ranked and weren't renamed
+     * @param a The position of the first {@link Product} or {@link Company}
+     * @param b The position of the second {@link Product} or {@link Company}, which is sorted after the first one
+     * @param companies {@code true} for companies, {@code false} for products
+     *
+     * @return {@code true} if the sort keys are the same, {@code false} otherwise
+     */
+    private boolean sameName(Overlay overlay, int a, int b, boolean companies) {
+        int count = companies ? companyCount : productCount;
+
+        // Ranked entities can only have the same name if the rank of the second one is tied to the rank before
+        if (overlay == null || a < count && b < count && !isRenamed(overlay, a, companies) && !isRenamed(overlay, b, companies))
+            return (companies ? companyTies : productTies).get((companies ? companyRanks : productRanks)[b])
+                    && sortKey(a, companies).equals(sortKey(b, companies));
+
+        return overlay.sortKey(this, a, companies).equals(overlay.sortKey(this, b, companies));
+    }
+
+    /**
+     * Get the positions of the entities sorted by the rank
+     *
+     * @param keys The sort key of every entity of one kind
+     *
+     * @return The position of the entity of every rank
+     */
+    private static int[] sort(String[] keys) {
+        return IntStream.range(0, keys.length)
+                .boxed()
+                .sorted(Comparator.<Integer, String>comparing(i -> keys[i]).thenComparing(Comparator.naturalOrder()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Get a {@link Comparator} comparing the positions of products or companies like the {@link util.CustomComparator},
+     * entities with the same name are sorted by their position
+     *
+     * @param overlay The changes after the graph was built
+     * @param companies {@code true} to compare companies, {@code false} to compare products
+     *
+     * @return The {@link Comparator}, which uses the current sort keys
+     */
+    private Comparator<Integer> comparator(Overlay overlay, boolean companies) {
+        return Comparator.<Integer, String>comparing(i -> overlay.sortKey(this, i, companies))
+                .thenComparing(Comparator.naturalOrder());
+    }
+
+    /**
+     * Get the sort key of a {@link Product} or {@link Company} at the time the graph was built
+     *
+     * @param item The position of the {@link Product} or {@link Company}, which is part of the graph
+     * @param companies {@code true} for a {@link Company}, {@code false} for a {@link Product}
+     *
+     * @return The sort key
+     */
+    String sortKey(int item, boolean companies) {
+        return companies ? companyKeys[item] : productKeys[item];
+    }
+
+    /**
+     * Get the ranks, whose sort key is the same as the one of the rank before
+     *
+     * @param keys The sort key of every entity of one kind
+     * @param byRank The position of the entity of every rank
+     *
+     * @return The tied ranks
+     */
+    private static BitSet ties(String[] keys, int[] byRank) {
+        BitSet ties = new BitSet(byRank.length);
+        for (int rank = 1; rank < byRank.length; rank++) {
+            if (keys[byRank[rank]].equals(keys[byRank[rank - 1]]))
+                ties.set(rank);
+        }
+        return ties;
+    }
+
+    /**
+     * Inverts a permutation
+     *
+     * @param permutation The permutation
+     *
+     * @return The position of every value in the permutation
+     */
+    private static int[] invert(int[] permutation) {
+        int[] inverse = new int[permutation.length];
+        for (int i = 0; i < permutation.length; i++)
+            inverse[permutation[i]] = i;
+        return inverse;
+    }
+
+    /**
+     * The changes of the correlations, products and companies after a graph was built
+     * <p>
+     * The network queries read the rows of every changed {@link Person} and the {@link Company} of every changed
+     * {@link Product} from the overlay instead of the graph. Entities added after the graph was built are always changed.
+     */
+    interface Overlay {
+        /**
+         * Checks whether the friends or products of a {@link Person} changed after the graph was built
+         *
+         * @param g The graph
+         * @param person The position of the {@link Person}
+         *
+         * @return {@code true} if the rows of the graph are outdated, {@code false} otherwise
+         */
+        boolean hasChanged(Graph g, int person);
+
+        /**
+         * Get the current friends of a changed {@link Person}
+         *
+         * @param person The position of the {@link Person}
+         *
+         * @return The positions of the friends
+         */
+        int[] friends(int person);
+
+        /**
+         * Get the current products of a changed {@link Person}
+         *
+         * @param person The position of the {@link Person}
+         *
+         * @return The positions of the products
+         */
+        int[] products(int person);
+
+        /**
+         * Checks whether the {@link Company} of a {@link Product} changed after the graph was built
+         *
+         * @param g The graph
+         * @param product The position of the {@link Product}
+         *
+         * @return {@code true} if the {@link Company} in the graph is outdated, {@code false} otherwise
+         */
+        boolean hasChangedProduct(Graph g, int product);
+
+        /**
+         * Get the current {@link Company} of a changed {@link Product}
+         *
+         * @param product The position of the {@link Product}
+         *
+         * @return The position of the {@link Company}, or -1 if there is none
+         */
+        int companyOf(int product);
+
+        /**
+         * Checks whether a {@link Product} or {@link Company} was renamed after the graph was built
+         *
+         * @param g The graph
+         * @param item The position of the {@link Product} or {@link Company}, which is part of the graph
+         * @param companies {@code true} for a {@link Company}, {@code false} for a {@link Product}
+         *
+         * @return {@code true} if the rank in the graph is outdated, {@code false} otherwise
+         */
+        boolean isRenamed(Graph g, int item, boolean companies);
+
+        /**
+         * Checks whether any {@link Product} or {@link Company} was renamed after the graph was built
+         *
+         * @param g The graph
+         * @param companies {@code true} for the companies, {@code false} for the products
+         *
+         * @return {@code true} if the rank of any of them in the graph is outdated, {@code false} otherwise
+         */
+        boolean hasRenamed(Graph g, boolean companies);
+
+        /**
+         * Get the current number of products or companies
+         *
+         * @param companies {@code true} for the companies, {@code false} for the products
+         *
+         * @return The number of products or companies
+         */
+        int count(boolean companies);
+
+        /**
+         * Get the current sort key of a {@link Product} or {@link Company}
+         *
+         * @param g The graph
+         * @param item The position of the {@link Product} or {@link Company}
+         * @param companies {@code true} for a {@link Company}, {@code false} for a {@link Product}
+         *
+         * @return The sort key
+         */
+        String sortKey(Graph g, int item, boolean companies);
+    }
+
+    /**
+     * An immutable {@link Overlay}, which contains the changes up to a point in time
+     * Only the changed entities are stored, the unchanged ones are read from the graph
+     */
+    static class Delta implements Overlay {
+        /**
+         * The number of products and companies
+         */
+        private final int productCount, companyCount;
+
+        /**
+         * Contain the positions of the friends and products of every changed {@link Person} based on their position
+         */
+        private final IntObjectMap<int[]> friends, products;
+
+        /**
+         * Contains the position of the {@link Company} of every changed {@link Product} plus one, {@code 0} if there is none
+         */
+        private final IntIntMap madeBy;
+
+        /**
+         * Contain the sort key of every renamed or new {@link Product} and {@link Company} based on their position
+         */
+        private final IntObjectMap<String> productKeys, companyKeys;
+
+        /**
+         * Creates a new overlay
+         *
+         * @param productCount The number of products
+         * @param companyCount The number of companies
+         * @param friends The positions of the friends of every changed {@link Person}
+         * @param products The positions of the products of every changed {@link Person}
+         * @param madeBy The position of the {@link Company} of every changed {@link Product} plus one
+         * @param productKeys The sort key of every renamed or new {@link Product}
+         * @param companyKeys The sort key of every renamed or new {@link Company}
+         */
+        Delta(int productCount, int companyCount, IntObjectMap<int[]> friends, IntObjectMap<int[]> products,
+              IntIntMap madeBy, IntObjectMap<String> productKeys, IntObjectMap<String> companyKeys) {
+            this.productCount = productCount;
+            this.companyCount = companyCount;
+            this.friends = friends;
+            this.products = products;
+            this.madeBy = madeBy;
+            this.productKeys = productKeys;
+            this.companyKeys = companyKeys;
+        }
+
+        @Override
+        public boolean hasChanged(Graph g, int person) {
+            return friends.get(person) != null;
+        }
+
+        @Override
+        public int[] friends(int person) {
+            return friends.get(person);
+        }
+
+        @Override
+        public int[] products(int person) {
+            return products.get(person);
+        }
+
+        @Override
+        public boolean hasChangedProduct(Graph g, int product) {
+            return madeBy.get(product) != IntIntMap.MISSING;
+        }
+
+        @Override
+        public int companyOf(int product) {
+            return madeBy.get(product) - 1;
+        }
+
+        @Override
+        public boolean isRenamed(Graph g, int item, boolean companies) {
+            return (companies ? companyKeys : productKeys).get(item) != null;
+        }
+
+        @Override
+        public boolean hasRenamed(Graph g, boolean companies) {
+            return (companies ? companyKeys : productKeys).size() > 0;
+        }
+
+        @Override
+        public int count(boolean companies) {
+            return companies ? companyCount : productCount;
+        }
+
+        @Override
+        public String sortKey(Graph g, int item, boolean companies) {
+            String key = (companies ? companyKeys : productKeys).get(item);
+            return key != null ? key : g.sortKey(item, companies);
+        }
+    }
+
+    /**
+     * Remembers the order in which the products or companies of a network were first found
+     * <p>
+     * Only the order of the entities, which may have the same name as another one, is stored. The ranked ones are stored in a
+     * reusable array of the thread, the other ones in a map. If no entity was added or renamed after the graph was built,
+     * only the ranked entities with a tied rank are stored, so most networks don't store anything.
+     */
+    private static final class Encounters {
+        /**
+         * Contains every rank, whose sort key is the same as the one of the rank before
+         */
+        private final BitSet ties;
+
+        /**
+         * Represents whether the order of every ranked entity is stored, because it may have the name of an unranked one
+         */
+        private final boolean all;
+
+        /**
+         * Contains the order of the ranked products or companies found by the query based on their rank, or null if none is stored
+         */
+        private final int[] ranked;
+
+        /**
+         * Contains the order of every product or company, which was added or renamed after the graph was built, based on its position,
+         * or null if there is none
+         */
+        private IntIntMap unranked;
+
+        /**
+         * Represents the number of found products or companies
+         */
+        private int count;
+
+        /**
+         * Creates a new record for a query of the current thread
+         *
+         * @param ties Every rank, whose sort key is the same as the one of the rank before
+         * @param ranks The number of ranks
+         * @param all {@code true} to store the order of every ranked entity, {@code false} to only store the tied ones
+         */
+        Encounters(BitSet ties, int ranks, boolean all) {
+            this.ties = ties;
+            this.all = all;
+
+            int[] array = null;
+            if (all || !ties.isEmpty()) {
+                array = orders.get();
+                if (array.length < ranks) {
+                    array = new int[Math.max(ranks, array.length * 2)];
+                    orders.set(array);
+                }
+            }
+            ranked = array;
+        }
+
+        /**
+         * Checks whether any ranks are tied
+         *
+         * @return {@code true} if two ranked entities have the same name, {@code false} otherwise
+         */
+        boolean hasTies() {
+            return !ties.isEmpty();
+        }
+
+        /**
+         * Remembers a ranked product or company, which was found for the first time
+         *
+         * @param rank The rank of the product or company
+         */
+        void ranked(int rank) {
+            if (ranked == null)
+                return;
+            if (all || ties.get(rank) || ties.get(rank + 1))
+                ranked[rank] = count;
+            count++;
+        }
+
+        /**
+         * Remembers a product or company, which was added or renamed after the graph was built
+         *
+         * @param item The position of the product or company, which may have been found before
+         */
+        void unranked(int item) {
+            if (unranked == null)
+                unranked = new IntIntMap(4);
+            if (unranked.get(item) == IntIntMap.MISSING)
+                unranked.put(item, count);
+            count++;
+        }
+
+        /**
+         * Get the order of a ranked product or company
+         *
+         * @param rank The rank of the product or company, which was found by the query and has the same name as another one
+         *
+         * @return The number of products or companies found before
+         */
+        int order(int rank) {
+            return ranked[rank];
+        }
+
+        /**
+         * Get the order of a product or company, which was added or renamed after the graph was built
+         *
+         * @param item The position of the product or company, which was found by the query
+         *
+         * @return The number of products or companies found before
+         */
+        int orderOf(int item) {
+            return unranked.get(item);
+        }
+    }
+
+    /**
+     * The ranked products or companies of a {@link Person}
+     */
+    static class Ranking {
+        /**
+         * The positions of the products or companies, sorted by their rank
+         */
+        final int[] items;
+
+        /**
+         * The score of every product or company
+         */
+        final double[] scores;
+
+        /**
+         * The number of hops to the closest {@link Person} of every product or company
+         */
+        final int[] hops;
+
+        /**
+         * Creates a new ranking
+         *
+         * @param items The positions of the products or companies, sorted by their rank
+         * @param scores The score of every product or company
+         * @param hops The number of hops to the closest {@link Person} of every product or company
+         */
+        Ranking(int[] items, double[] scores, int[] hops) {
+            this.items = items;
+            this.scores = scores;
+            this.hops = hops;
+        }
+    }
+}
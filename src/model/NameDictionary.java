@@ -0,0 +1,383 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A dictionary storing every distinct name once outside of the Java heap
+ * <p>
+ * Every name is stored as UTF-8 in a direct {@link ByteBuffer}, followed by its lowercase form, which is only stored
+ * if it differs from the name. Entities refer to a name by its handle, which is the number of the name in the dictionary,
+ * so equal names of many entities only cost one int each. The only data on the heap are the offsets of the names
+ * and a hash table of the handles, so the garbage collector never has to scan the names.
+ * Searches compare the bytes of the lowercase forms and never decode a name. The dictionary is only added to, never changed.
+ * <p>
+ * Every entry consists of the length of the name, the length of the lowercase form or -1 if it's equal to the name,
+ * the name and the lowercase form.
+ */
+class NameDictionary {
+    /**
+     * The number of bytes of the lengths in front of every entry
+     */
+    private static final int HEADER = 2 * Integer.BYTES;
+
+    /**
+     * Represents whether the default locale converts ASCII letters like the ASCII table, which isn't the case for e.g. turkish
+     */
+    private static final boolean ASCII_LOWER_CASE = "I".toLowerCase().equals("i");
+
+    /**
+     * Contains every entry, followed by unused capacity
+     */
+    private ByteBuffer data;
+
+    /**
+     * Contains the offset of every entry based on its handle
+     */
+    private int[] offsets = new int[16];
+
+    /**
+     * Represents the number of names
+     */
+    private int count;
+
+    /**
+     * Contains the handle of every name increased by one based on the hash of the name, 0 marks an empty slot
+     */
+    private int[] table = new int[32];
+
+    /**
+     * Creates a new, empty dictionary
+     *
+     * @param capacity The number of bytes the dictionary can hold without growing
+     */
+    NameDictionary(int capacity) {
+        data = ByteBuffer.allocateDirect(Math.max(capacity, 64));
+    }
+
+    /**
+     * Adds a name, if it isn't part of the dictionary yet
+     *
+     * @param name The name
+     *
+     * @return The handle of the name, or -1 if there is no name
+     */
+    int add(String name) {
+        if (name == null)
+            return -1;
+
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return add(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Adds a name encoded as UTF-8, if it isn't part of the dictionary yet
+     *
+     * @param bytes The array containing the name
+     * @param from The start of the name
+     * @param length The number of bytes of the name
+     *
+     * @return The handle of the name
+     */
+    int add(byte[] bytes, int from, int length) {
+        int hash = hash(bytes, from, length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+
+        // Look for the name
+        while (table[slot] != 0) {
+            if (equals(table[slot] - 1, bytes, from, length))
+                return table[slot] - 1;
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] lower = toLowerCase(bytes, from, length);
+        int size = HEADER + length + (lower == null ? 0 : lower.length);
+        ensure(size);
+
+        // Append the entry
+        int handle = count++;
+        if (handle == offsets.length)
+            offsets = Arrays.copyOf(offsets, handle * 2);
+        offsets[handle] = data.position();
+
+        data.putInt(length);
+        data.putInt(lower == null ? -1 : lower.length);
+        data.put(bytes, from, length);
+        if (lower != null)
+            data.put(lower);
+
+        table[slot] = handle + 1;
+
+        // Keep the load factor at 1/2 at most
+        if (count * 2 > table.length)
+            rehash();
+        return handle;
+    }
+
+    /**
+     * Adds consecutive names as they are written by a {@link Snapshot}
+     *
+     * @param lengths The number of bytes of every name, or -1 if there is no name
+     * @param bytes Every name encoded as UTF-8
+     *
+     * @return The handle of every name, or -1 if there is no name
+     */
+    int[] addAll(int[] lengths, byte[] bytes) {
+        int[] handles = new int[lengths.length];
+        for (int i = 0, pos = 0; i < lengths.length; i++) {
+            handles[i] = lengths[i] < 0 ? -1 : add(bytes, pos, lengths[i]);
+            pos += Math.max(lengths[i], 0);
+        }
+        return handles;
+    }
+
+    /**
+     * Get a name
+     *
+     * @param handle The handle of the name, or -1
+     *
+     * @return The name, or null if the handle is -1
+     */
+    String get(int handle) {
+        if (handle < 0)
+            return null;
+
+        int offset = offsets[handle];
+        return decode(offset + HEADER, data.getInt(offset));
+    }
+
+    /**
+     * Get the lowercase form of a name, which is used for sorting like {@link Parent#getSortKey()}
+     *
+     * @param handle The handle of the name, or -1
+     *
+     * @return The lowercase name, or null if the handle is -1
+     */
+    String getLowerCase(int handle) {
+        if (handle < 0)
+            return null;
+
+        int offset = offsets[handle];
+        return decode(lowerStart(offset), lowerLength(offset));
+    }
+
+    /**
+     * Get every name containing the provided {@link String}, ignoring the case
+     * Every distinct name is only checked once, no matter how many entities share it
+     *
+     * @param name The {@link String} to search for
+     *
+     * @return The handles of every matching name
+     */
+    BitSet search(String name) {
+        byte[] key = name.toLowerCase().getBytes(StandardCharsets.UTF_8);
+        BitSet matches = new BitSet(count);
+
+        for (int handle = 0; handle < count; handle++) {
+            int offset = offsets[handle];
+            if (contains(lowerStart(offset), lowerLength(offset), key))
+                matches.set(handle);
+        }
+        return matches;
+    }
+
+    /**
+     * Get the number of distinct names
+     *
+     * @return The number of names
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Get the number of bytes used outside of the heap
+     *
+     * @return The number of bytes of every entry
+     */
+    long offHeapSize() {
+        return data.position();
+    }
+
+    /**
+     * Get the number of bytes of the offsets and the hash table on the heap
+     *
+     * @return The number of bytes
+     */
+    long heapSize() {
+        return (long) (offsets.length + table.length) * Integer.BYTES;
+    }
+
+    /**
+     * Checks whether a range of the data contains a sequence of bytes
+     * UTF-8 never encodes a character as part of another one, so comparing bytes finds the same substrings as comparing characters
+     *
+     * @param start The start of the range
+     * @param length The number of bytes of the range
+     * @param key The sequence of bytes
+     *
+     * @return {@code true} if the range contains the sequence, {@code false} otherwise
+     */
+    private boolean contains(int start, int length, byte[] key) {
+        outer:
+        for (int i = start, last = start + length - key.length; i <= last; i++) {
+            for (int j = 0; j < key.length; j++)
+                if (data.get(i + j) != key[j])
+                    continue outer;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a name of the dictionary is equal to a sequence of bytes
+     *
+     * @param handle The handle of the name
+     * @param bytes The array containing the sequence
+     * @param from The start of the sequence
+     * @param length The number of bytes of the sequence
+     *
+     * @return {@code true} if they are equal, {@code false} otherwise
+     */
+    private boolean equals(int handle, byte[] bytes, int from, int length) {
+        int offset = offsets[handle];
+        if (data.getInt(offset) != length)
+            return false;
+
+        for (int i = 0, pos = offset + HEADER; i < length; i++, pos++)
+            if (data.get(pos) != bytes[from + i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Get the start of the lowercase form of an entry
+     *
+     * @param offset The offset of the entry
+     *
+     * @return The start of the lowercase form, which is the start of the name if they are equal
+     */
+    private int lowerStart(int offset) {
+        return data.getInt(offset + Integer.BYTES) < 0 ? offset + HEADER : offset + HEADER + data.getInt(offset);
+    }
+
+    /**
+     * Get the length of the lowercase form of an entry
+     *
+     * @param offset The offset of the entry
+     *
+     * @return The number of bytes of the lowercase form
+     */
+    private int lowerLength(int offset) {
+        int length = data.getInt(offset + Integer.BYTES);
+        return length < 0 ? data.getInt(offset) : length;
+    }
+
+    /**
+     * Decodes a range of the data
+     *
+     * @param start The start of the range
+     * @param length The number of bytes of the range
+     *
+     * @return The decoded {@link String}
+     */
+    private String decode(int start, int length) {
+        byte[] bytes = new byte[length];
+        data.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Makes sure the data can hold a number of additional bytes
+     *
+     * @param bytes The number of additional bytes
+     */
+    private void ensure(int bytes) {
+        if (data.remaining() >= bytes)
+            return;
+
+        long needed = (long) data.position() + bytes;
+        if (needed > Integer.MAX_VALUE)
+            throw new IllegalStateException("Das Namensverzeichnis ist voll!");
+
+        ByteBuffer bigger = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * data.capacity())));
+        data.flip();
+        bigger.put(data);
+        data = bigger;
+    }
+
+    /**
+     * Doubles the number of slots of the hash table and moves every handle to its new slot
+     */
+    private void rehash() {
+        int[] bigger = new int[table.length * 2];
+        int mask = bigger.length - 1;
+
+        for (int handle = 0; handle < count; handle++) {
+            int offset = offsets[handle];
+            byte[] name = new byte[data.getInt(offset)];
+            data.get(offset + HEADER, name);
+
+            int slot = hash(name, 0, name.length) & mask;
+            while (bigger[slot] != 0)
+                slot = (slot + 1) & mask;
+            bigger[slot] = handle + 1;
+        }
+        table = bigger;
+    }
+
+    /**
+     * Get the lowercase form of a name encoded as UTF-8
+     * Names containing only ASCII characters are converted without decoding them, if the default locale allows it
+     *
+     * @param bytes The array containing the name
+     * @param from The start of the name
+     * @param length The number of bytes of the name
+     *
+     * @return The lowercase form encoded as UTF-8, or null if it's equal to the name
+     */
+    private static byte[] toLowerCase(byte[] bytes, int from, int length) {
+        boolean ascii = true;
+        boolean upper = false;
+        for (int i = from; i < from + length; i++) {
+            ascii &= bytes[i] >= 0;
+            upper |= bytes[i] >= 'A' && bytes[i] <= 'Z';
+        }
+
+        if (ascii && !upper)
+            return null;
+
+        if (ascii && ASCII_LOWER_CASE) {
+            byte[] lower = Arrays.copyOfRange(bytes, from, from + length);
+            for (int i = 0; i < lower.length; i++)
+                if (lower[i] >= 'A' && lower[i] <= 'Z')
+                    lower[i] += 'a' - 'A';
+            return lower;
+        }
+
+        String name = new String(bytes, from, length, StandardCharsets.UTF_8);
+        String lower = name.toLowerCase();
+        return lower.equals(name) ? null : lower.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the hash of a sequence of bytes
+     *
+     * @param bytes The array containing the sequence
+     * @param from The start of the sequence
+     * @param length The number of bytes of the sequence
+     *
+     * @return The hash, whose lower bits are mixed
+     */
+    private static int hash(byte[] bytes, int from, int length) {
+        int hash = 1;
+        for (int i = from; i < from + length; i++)
+            hash = 31 * hash + bytes[i];
+
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,173 @@
+package model;
+
+import util.IntList;
+import util.LongObjectMap;
+
+import java.util.*;
+
+/**
+ * An inverted trigram index over the names of every entity of one kind in a {@link Database}
+ * <p>
+ * Every lowercase name is split into all of its sequences of three characters. For every sequence the index
+ * stores the sorted positions of the entities whose names contain it. A case-insensitive substring search
+ * intersects the positions of every sequence of the search term and only compares the names of the remaining
+ * candidates. Search terms shorter than three characters are compared to every cached lowercase name.
+ *
+ * @param <T> A TypeParameter restricting this class to children of the superclass {@link Parent}
+ */
+class NameIndex<T extends Parent> {
+    /**
+     * The length of every indexed sequence of characters
+     */
+    private static final int N = 3;
+
+    /**
+     * The {@link List} of the {@link Database} containing every indexed entity
+     */
+    private final List<T> entities;
+
+    /**
+     * Contains the indexed sort key of every entity based on its position
+     * The sort key of a renamed entity has already changed, so the old one is needed to update the index
+     */
+    private String[] keys = new String[16];
+
+    /**
+     * Contains the sorted positions of every entity based on the sequences of their names
+     */
+    private final LongObjectMap<IntList> postings = new LongObjectMap<>(64);
+
+    /**
+     * Creates a new, empty index
+     *
+     * @param entities The {@link List} of the {@link Database}, which will contain every indexed entity
+     */
+    NameIndex(List<T> entities) {
+        this.entities = entities;
+    }
+
+    /**
+     * Adds an entity, which was just added to the end of the {@link List} of the {@link Database}
+     *
+     * @param entity The new entity
+     */
+    void add(T entity) {
+        int pos = entity.index;
+        if (pos >= keys.length)
+            keys = Arrays.copyOf(keys, Math.max(keys.length * 2, pos + 1));
+
+        keys[pos] = entity.getSortKey();
+        for (long gram : grams(keys[pos]))
+            posting(gram).add(pos);
+    }
+
+    /**
+     * Updates the index after the name of an entity has changed
+     *
+     * @param entity The renamed entity
+     */
+    void rename(T entity) {
+        int pos = entity.index;
+
+        // Remove the old sequences
+        for (long gram : grams(keys[pos])) {
+            IntList list = postings.get(gram);
+            list.removeSorted(pos);
+            if (list.size() == 0)
+                postings.remove(gram);
+        }
+
+        // Add the new sequences
+        keys[pos] = entity.getSortKey();
+        for (long gram : grams(keys[pos]))
+            posting(gram).addSorted(pos);
+    }
+
+    /**
+     * Get the positions of a sequence, an empty {@link IntList} is added for a new sequence
+     *
+     * @param gram The sequence packed into a long
+     *
+     * @return The positions of the entities whose names contain the sequence
+     */
+    private IntList posting(long gram) {
+        IntList list = postings.get(gram);
+        if (list == null) {
+            list = new IntList();
+            postings.put(gram, list);
+        }
+        return list;
+    }
+
+    /**
+     * Get every entity whose name contains the provided {@link String}, ignoring the case
+     *
+     * @param name The {@link String} to search for
+     *
+     * @return A {@link List} of every matching entity in the order of the {@link Database}
+     */
+    List<T> search(String name) {
+        String key = name.toLowerCase();
+        List<T> results = new ArrayList<>();
+
+        // Short search terms can't use the index
+        if (key.length() < N) {
+            for (int i = 0; i < entities.size(); i++)
+                if (keys[i] != null && keys[i].contains(key))
+                    results.add(entities.get(i));
+            return results;
+        }
+
+        // Collect the positions of every sequence, a missing sequence means there are no results
+        long[] grams = grams(key);
+        IntList[] lists = new IntList[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null)
+                return results;
+        }
+
+        // Start with the shortest list, to keep the number of candidates small
+        Arrays.sort(lists, Comparator.comparingInt(IntList::size));
+
+        outer:
+        for (int i = 0; i < lists[0].size(); i++) {
+            int pos = lists[0].get(i);
+
+            for (int j = 1; j < lists.length; j++)
+                if (!lists[j].containsSorted(pos))
+                    continue outer;
+
+            // The sequences may be in a different order, so the name has to be checked
+            if (keys[pos].contains(key))
+                results.add(entities.get(pos));
+        }
+
+        return results;
+    }
+
+    /**
+     * Get every distinct sequence of three characters of a {@link String}
+     *
+     * @param key The {@link String}
+     *
+     * @return The sequences, each one packed into a long
+     */
+    private static long[] grams(String key) {
+        if (key == null || key.length() < N)
+            return new long[0];
+
+        long[] grams = new long[key.length() - N + 1];
+        for (int i = 0; i < grams.length; i++)
+            grams[i] = ((long) key.charAt(i) << 32) | ((long) key.charAt(i + 1) << 16) | key.charAt(i + 2);
+
+        // Remove duplicates
+        Arrays.sort(grams);
+        int count = 0;
+        for (int i = 0; i < grams.length; i++)
+            if (i == 0 || grams[i] != grams[i - 1])
+                grams[count++] = grams[i];
+
+        return Arrays.copyOf(grams, count);
+    }
+}
@@ -0,0 +1,340 @@
+package model;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the product and company networks of the people of a {@link Database}
+ * <p>
+ * The networks are stored as the positions of their products or companies. The cache is limited by the total
+ * number of stored positions and drops the least recently used networks first. It's split into segments,
+ * so queries of many threads rarely wait for each other. The {@link Database} removes exactly the networks,
+ * which depend on a change, so a cached network is always equal to a new one.
+ * Every removal starts a new generation. A network computed during an older generation isn't stored anymore,
+ * because a change may have happened while it was computed.
+ */
+public class NetworkCache {
+    /**
+     * The default number of positions the cache may contain
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    /**
+     * The number of segments, has to be a power of two
+     */
+    private static final int SEGMENTS = 16;
+
+    /**
+     * Contains the networks based on the position of their {@link Person}
+     */
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    /**
+     * Represents the number of positions each segment may contain
+     */
+    private volatile int segmentCapacity;
+
+    /**
+     * Represents the number of cached networks
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Counts the removals, a network is only stored if there was no removal since its computation started
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * Count the queries which were answered by the cache and the ones which had to be computed
+     */
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+    /**
+     * Decides which networks are removed by {@link #invalidate(boolean, Filter)}
+     */
+    @FunctionalInterface
+    interface Filter {
+        /**
+         * Checks whether a network has to be removed
+         *
+         * @param person The position of the {@link Person}
+         * @param positions The positions of the products or companies of the network
+         *
+         * @return {@code true} if the network has to be removed
+         */
+        boolean test(int person, int[] positions);
+    }
+
+    /**
+     * Creates a new, empty cache with the default capacity
+     */
+    NetworkCache() {
+        for (int i = 0; i < SEGMENTS; i++)
+            segments[i] = new Segment();
+        setCapacity(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Get a cached network
+     *
+     * @param person The position of the {@link Person}
+     * @param companies {@code true} for the company network, {@code false} for the product network
+     *
+     * @return The positions of the products or companies, which mustn't be changed, or null if the network isn't cached
+     */
+    int[] get(int person, boolean companies) {
+        int[] positions = null;
+        if (size.get() > 0) {
+            Segment segment = segment(person);
+            synchronized (segment) {
+                positions = segment.get(key(person, companies));
+            }
+        }
+
+        if (positions != null)
+            hits.increment();
+        else
+            misses.increment();
+        return positions;
+    }
+
+    /**
+     * Get the current generation, which has to be read before a network is computed
+     *
+     * @return The generation
+     */
+    int generation() {
+        return generation.get();
+    }
+
+    /**
+     * Stores a network and drops the least recently used networks, if the cache is full
+     * The network isn't stored, if a network was removed since the generation was read
+     *
+     * @param person The position of the {@link Person}
+     * @param companies {@code true} for the company network, {@code false} for the product network
+     * @param positions The positions of the products or companies, which mustn't be changed anymore
+     * @param generation The generation, which was read before the network was computed
+     */
+    void put(int person, boolean companies, int[] positions, int generation) {
+        int capacity = segmentCapacity;
+        if (weight(positions) > capacity)
+            return;
+
+        Segment segment = segment(person);
+        synchronized (segment) {
+            // The network may be outdated already
+            if (this.generation.get() != generation)
+                return;
+
+            int[] previous = segment.put(key(person, companies), positions);
+            if (previous != null)
+                segment.weight -= weight(previous);
+            else
+                size.incrementAndGet();
+            segment.weight += weight(positions);
+
+            // Drop the least recently used networks
+            Iterator<int[]> it = segment.values().iterator();
+            while (segment.weight > capacity) {
+                segment.weight -= weight(it.next());
+                it.remove();
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes both networks of a {@link Person}
+     *
+     * @param person The position of the {@link Person}
+     */
+    void invalidate(int person) {
+        generation.incrementAndGet();
+        if (size.get() == 0)
+            return;
+
+        Segment segment = segment(person);
+        synchronized (segment) {
+            remove(segment, key(person, false));
+            remove(segment, key(person, true));
+        }
+    }
+
+    /**
+     * Removes the product or the company network of a {@link Person}
+     *
+     * @param person The position of the {@link Person}
+     * @param companies {@code true} for the company network, {@code false} for the product network
+     */
+    void invalidate(int person, boolean companies) {
+        generation.incrementAndGet();
+        if (size.get() == 0)
+            return;
+
+        Segment segment = segment(person);
+        synchronized (segment) {
+            remove(segment, key(person, companies));
+        }
+    }
+
+    /**
+     * Removes every product or company network matching a {@link Filter}
+     *
+     * @param companies {@code true} to check the company networks, {@code false} to check the product networks
+     * @param filter Decides which networks are removed
+     */
+    void invalidate(boolean companies, Filter filter) {
+        generation.incrementAndGet();
+        if (size.get() == 0)
+            return;
+
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                Iterator<Map.Entry<Integer, int[]>> it = segment.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Integer, int[]> entry = it.next();
+                    int key = entry.getKey();
+                    if ((key & 1) == (companies ? 1 : 0) && filter.test(key >>> 1, entry.getValue())) {
+                        segment.weight -= weight(entry.getValue());
+                        it.remove();
+                        size.decrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every network
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size.addAndGet(-segment.size());
+                segment.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    /**
+     * Set the number of positions the cache may contain
+     * The least recently used networks are dropped, once the cache is full
+     *
+     * @param capacity The number of positions, 0 disables the cache
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Die Kapazitaet darf nicht negativ sein!");
+
+        segmentCapacity = capacity / SEGMENTS;
+        clear();
+    }
+
+    /**
+     * Get the number of positions the cache may contain
+     *
+     * @return The capacity
+     */
+    public int getCapacity() {
+        return segmentCapacity * SEGMENTS;
+    }
+
+    /**
+     * Get the number of cached networks
+     *
+     * @return The number of networks
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Get the number of queries, which were answered by the cache
+     *
+     * @return The number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of queries, which had to be computed
+     *
+     * @return The number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Removes a network from a segment
+     *
+     * @param segment The segment, whose lock is held
+     * @param key The key of the network
+     */
+    private void remove(Segment segment, int key) {
+        int[] previous = segment.remove(key);
+        if (previous != null) {
+            segment.weight -= weight(previous);
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Get the segment containing the networks of a {@link Person}
+     *
+     * @param person The position of the {@link Person}
+     *
+     * @return The segment
+     */
+    private Segment segment(int person) {
+        return segments[(person * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(SEGMENTS))];
+    }
+
+    /**
+     * Get the key of a network
+     *
+     * @param person The position of the {@link Person}
+     * @param companies {@code true} for the company network, {@code false} for the product network
+     *
+     * @return The key
+     */
+    private static int key(int person, boolean companies) {
+        return person << 1 | (companies ? 1 : 0);
+    }
+
+    /**
+     * Get the weight of a network, which includes a constant for the entry itself
+     *
+     * @param positions The positions of the network
+     *
+     * @return The weight
+     */
+    private static int weight(int[] positions) {
+        return positions.length + 8;
+    }
+
+    /**
+     * The networks of a part of the people in the order of their last use
+     */
+    @SuppressWarnings("serial")
+    private static class Segment extends LinkedHashMap<Integer, int[]> {
+        /**
+         * Represents the total weight of the networks of this segment
+         */
+        long weight;
+
+        /**
+         * Creates a new, empty segment
+         */
+        Segment() {
+            super(16, 0.75f, true);
+        }
+    }
+}
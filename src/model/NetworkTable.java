@@ -0,0 +1,114 @@
+package model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The product or company networks of every {@link Person} of a {@link Database} at one point in time
+ * <p>
+ * The networks are stored like the rows of the {@link Graph}, as consecutive rows of positions in a single int array.
+ * The table keeps its own copy of the people and products or companies, so later changes of the {@link Database}
+ * don't change the table.
+ *
+ * @param <T> The type of the entities of the networks
+ */
+public class NetworkTable<T extends Parent> {
+    /**
+     * Identifies a file written by {@link #write(String)}
+     */
+    private static final int MAGIC = 0x5044424E;
+
+    /**
+     * Every {@link Person} based on their position
+     */
+    private final List<Person> people;
+
+    /**
+     * Every entity of the networks based on its position
+     */
+    private final List<T> items;
+
+    /**
+     * The network of every {@link Person} is {@code targets[offsets[p]..offsets[p + 1])}
+     */
+    private final int[] offsets, targets;
+
+    /**
+     * Creates a new table
+     *
+     * @param people Every {@link Person} based on their position
+     * @param items Every entity of the networks based on its position
+     * @param offsets The start of the network of every {@link Person}, followed by the number of positions
+     * @param targets The positions of the entities of every network
+     */
+    NetworkTable(List<Person> people, List<T> items, int[] offsets, int[] targets) {
+        this.people = people;
+        this.items = items;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Get the network of a {@link Person}
+     *
+     * @param p The {@link Person}
+     *
+     * @return A {@link List} of the network in the order of the {@link util.CustomComparator},
+     *         or an empty {@link List} if the {@link Person} isn't part of the table
+     */
+    public List<T> getNetwork(Person p) {
+        int person = Database.indexOf(people, p);
+        if (person < 0)
+            return new ArrayList<>();
+
+        List<T> results = new ArrayList<>(offsets[person + 1] - offsets[person]);
+        for (int i = offsets[person]; i < offsets[person + 1]; i++)
+            results.add(items.get(targets[i]));
+        return results;
+    }
+
+    /**
+     * Get the number of people of the table
+     *
+     * @return The number of people
+     */
+    public int size() {
+        return people.size();
+    }
+
+    /**
+     * Get the number of entities of every network together
+     *
+     * @return The number of entities
+     */
+    public int totalSize() {
+        return targets.length;
+    }
+
+    /**
+     * Writes the table to a binary file
+     * The file contains the number of people, followed by the {@code id} of every {@link Person}, the size of every network
+     * and finally the {@code id's} of the entities of every network
+     *
+     * @param file The path to the file, which will be written
+     *
+     * @throws IOException If the file can't be written
+     */
+    public void write(String file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(Path.of(file)), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(people.size());
+            for (Person p : people)
+                out.writeInt(p.getId());
+            for (int i = 0; i < people.size(); i++)
+                out.writeInt(offsets[i + 1] - offsets[i]);
+            for (int target : targets)
+                out.writeInt(items.get(target).getId());
+        }
+    }
+}
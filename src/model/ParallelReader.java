@@ -0,0 +1,745 @@
+package model;
+
+import util.Gender;
+import util.Histogram;
+import util.Metrics;
+import util.RowTokenizer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * This class reads a file from a provided path into a {@link Database} by memory-mapping it
+ * and parsing its entries on every available core.
+ * <p>
+ * The file is split into chunks at line boundaries. Every chunk is scanned for 'New_Entity' lines in parallel,
+ * afterwards the entries of the chunks are parsed in parallel and applied to the {@link Database} in the order of the file.
+ * Only a few chunks ahead of the applied one are parsed at the same time, so the parsed entries waiting
+ * to be applied never take more memory than these chunks.
+ * The resulting {@link Database} and the logged errors are the same as the ones of {@link Reader}.
+ *
+ * @see Reader
+ */
+public class ParallelReader {
+    /**
+     * The preferred size of a chunk in bytes
+     */
+    private static final int CHUNK_SIZE = 8 << 20;
+
+    /**
+     * The size of the window used to search for the end of a chunk
+     */
+    private static final int SEARCH_WINDOW = 64 << 10;
+
+    /**
+     * The identifier of a new set of entries
+     */
+    private static final byte[] NEW_ENTITY = "New_Entity".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The maximal number of chunks which are parsed, but not applied yet
+     */
+    private static final int PARSE_AHEAD = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Contain the durations of the phases of reading a file
+     */
+    private static final Histogram SCAN_TIME = Metrics.histogram("reader.parallel.scan.ns"),
+            PARSE_TIME = Metrics.histogram("reader.parallel.parse.ns"),
+            APPLY_TIME = Metrics.histogram("reader.parallel.apply.ns");
+
+    // This class shouldn't be instantiated
+    private ParallelReader() {
+    }
+
+    /**
+     * Loads the content of a file to a database
+     *
+     * @param file The path to the file, which will be read
+     * @return Database instance, or null, if the file couldn't be found or has no valid entries
+     */
+    public static Database readFileToDatabase(String file) {
+        try (FileChannel channel = FileChannel.open(Path.of(file), StandardOpenOption.READ)) {
+            long start = Metrics.ENABLED ? System.nanoTime() : 0;
+            List<Chunk> chunks = split(channel);
+
+            // Count the lines and find every 'New_Entity' line
+            chunks.parallelStream().forEach(Chunk::scan);
+
+            // Pass the line numbers and the current operation from chunk to chunk
+            long line = 1;
+            State state = new State();
+            for (Chunk chunk : chunks) {
+                chunk.firstLine = line;
+                chunk.start = state.copy();
+
+                chunk.advance(state);
+                line += chunk.lineCount;
+            }
+
+            if (Metrics.ENABLED) {
+                SCAN_TIME.recordSince(start);
+                start = System.nanoTime();
+            }
+
+            // Parse the first chunks in parallel
+            List<CompletableFuture<Void>> parsed = new ArrayList<>(chunks.size());
+            for (int i = 0; i < Math.min(PARSE_AHEAD, chunks.size()); i++)
+                parsed.add(CompletableFuture.runAsync(chunks.get(i)::parse));
+
+            // Apply the entries in the order of the file, every applied chunk starts the parsing of the next one
+            Database db = new Database();
+            SectionTimer sections = new SectionTimer();
+            long applying = 0;
+            long rows = 0;
+            for (int i = 0; i < chunks.size(); i++) {
+                join(parsed.get(i));
+                if (i + PARSE_AHEAD < chunks.size())
+                    parsed.add(CompletableFuture.runAsync(chunks.get(i + PARSE_AHEAD)::parse));
+
+                long applyStart = Metrics.ENABLED ? System.nanoTime() : 0;
+                rows += chunks.get(i).apply(db, sections);
+                if (Metrics.ENABLED)
+                    applying += System.nanoTime() - applyStart;
+            }
+
+            if (Metrics.ENABLED) {
+                sections.finish();
+                PARSE_TIME.record(System.nanoTime() - start - applying);
+                APPLY_TIME.record(applying);
+                Metrics.counter("reader.rows").add(rows);
+            }
+
+            // The last 'New_Entity' has to be followed by at least one entry, the same way it is in Reader
+            if (state.forced)
+                throw new EOFException("Auf die letzte 'New_Entity' Zeile folgt kein Eintrag!");
+
+            // Return filled database
+            return db;
+        } catch (NoSuchFileException e) {
+            System.err.println("Die angegebene Datei '" + file + "' konnte nicht gefunden werden!");
+        } catch (Exception e) {
+            // Print other exceptions after the invalid lines
+            Reader.getErrorSink().flush();
+            e.printStackTrace();
+        } finally {
+            Reader.getErrorSink().flush();
+        }
+
+        return null;
+    }
+
+    /**
+     * Waits for the parsing of a {@link Chunk}
+     *
+     * @param parsed The parsing of the {@link Chunk}
+     */
+    private static void join(CompletableFuture<Void> parsed) {
+        try {
+            parsed.join();
+        } catch (CompletionException e) {
+            // Rethrow the original exception
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Splits the file into chunks which end right after a line break
+     * Both '\n' and '\r' end a line, a '\r' directly followed by '\n' stays in the same chunk
+     *
+     * @param channel The {@link FileChannel} of the file
+     *
+     * @return A {@link List} of every {@link Chunk}
+     * @throws IOException If the file can't be read
+     */
+    private static List<Chunk> split(FileChannel channel) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer window = ByteBuffer.allocate(SEARCH_WINDOW);
+        long size = channel.size();
+        long start = 0;
+
+        while (start < size) {
+            long end = start + CHUNK_SIZE;
+
+            if (end >= size)
+                end = size;
+            else {
+                // Search for the next line break
+                byte found = 0;
+                while (found == 0 && end < size) {
+                    window.clear();
+                    int read = channel.read(window, end);
+                    for (int i = 0; i < read && found == 0; i++) {
+                        if (window.get(i) == '\n' || window.get(i) == '\r')
+                            found = window.get(i);
+                        end++;
+                    }
+                }
+
+                // Keep '\r\n' together, otherwise the next chunk would start with an empty line
+                if (found == '\r' && end < size) {
+                    window.clear().limit(1);
+                    if (channel.read(window, end) == 1 && window.get(0) == '\n')
+                        end++;
+                }
+            }
+
+            chunks.add(new Chunk(channel, start, end));
+            start = end;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Represents the state of the reader between two lines
+     */
+    private static class State {
+        /**
+         * The {@link Reader.Operation} of the current set of entries, or null before the first 'New_Entity'
+         */
+        private Reader.Operation op;
+
+        /**
+         * Whether the next line is the first entry of a set, which is read regardless of its content
+         */
+        private boolean forced;
+
+        /**
+         * Creates a copy of this state
+         *
+         * @return The copy
+         */
+        private State copy() {
+            State s = new State();
+            s.op = op;
+            s.forced = forced;
+            return s;
+        }
+    }
+
+    /**
+     * A part of the file containing only complete lines
+     */
+    private static class Chunk {
+        /**
+         * The mapped content of the chunk
+         */
+        private MappedByteBuffer buffer;
+
+        /**
+         * The number of the first line of the chunk
+         */
+        private long firstLine;
+
+        /**
+         * The number of lines in the chunk
+         */
+        private int lineCount;
+
+        /**
+         * The indices of every 'New_Entity' line, relative to the first line
+         */
+        private int[] headers = new int[4];
+
+        /**
+         * The parsed operations of every 'New_Entity' line
+         */
+        private Reader.Operation[] headerOps = new Reader.Operation[4];
+
+        /**
+         * The number of 'New_Entity' lines
+         */
+        private int headerCount;
+
+        /**
+         * The {@link State} at the beginning of the chunk
+         */
+        private State start;
+
+        /**
+         * The parsed entries, or null after they were applied
+         */
+        private Rows rows = new Rows();
+
+        /**
+         * Maps the given part of the file
+         *
+         * @param channel The {@link FileChannel} of the file
+         * @param from The first byte of the chunk
+         * @param to The first byte after the chunk
+         *
+         * @throws IOException If the file can't be mapped
+         */
+        private Chunk(FileChannel channel, long from, long to) throws IOException {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        }
+
+        /**
+         * Counts the lines and finds every 'New_Entity' line
+         */
+        private void scan() {
+            int limit = buffer.limit();
+            int pos = 0;
+
+            while (pos < limit) {
+                int end = lineEnd(pos);
+
+                if (indexOf(NEW_ENTITY, pos, end) >= 0) {
+                    if (headerCount == headers.length) {
+                        headers = Arrays.copyOf(headers, headerCount * 2);
+                        headerOps = Arrays.copyOf(headerOps, headerCount * 2);
+                    }
+
+                    headers[headerCount] = lineCount;
+                    headerOps[headerCount++] = Reader.getOperation(decode(pos, end));
+                }
+
+                lineCount++;
+                pos = nextLine(end);
+            }
+        }
+
+        /**
+         * Advances the provided {@link State} to the end of the chunk
+         *
+         * @param state The {@link State} at the beginning of the chunk
+         */
+        private void advance(State state) {
+            // The index of the line which is read as the first entry of a set
+            int consumed = -1;
+
+            if (state.forced) {
+                consumed = 0;
+                state.forced = false;
+            }
+
+            for (int i = 0; i < headerCount; i++) {
+                // The first entry of a set is never a 'New_Entity' line
+                if (headers[i] == consumed)
+                    continue;
+
+                state.op = headerOps[i];
+
+                // The first entry of the new set may be inside the next chunk
+                consumed = headers[i] + 1;
+                state.forced = consumed == lineCount;
+            }
+        }
+
+        /**
+         * Parses every entry of the chunk
+         */
+        private void parse() {
+            State state = start.copy();
+            RowTokenizer tokenizer = new RowTokenizer();
+            int limit = buffer.limit();
+            int pos = 0;
+            int line = 0;
+            int header = 0;
+
+            while (pos < limit) {
+                int end = lineEnd(pos);
+
+                // Skip the 'New_Entity' lines which have already been found while scanning
+                while (header < headerCount && headers[header] < line)
+                    header++;
+
+                if (state.forced || (state.op != null && (header == headerCount || headers[header] != line))) {
+                    state.forced = false;
+
+                    try {
+                        // Use the tokenizer for valid entries and the detailed parsing for invalid ones
+                        if (!parseEntry(state.op, tokenizer.reset(buffer, pos, end), line))
+                            parseLine(state.op, decode(pos, end), line);
+                    } catch (RuntimeException e) {
+                        // Entries without any attributes stop the reading, the same way they do in Reader
+                        rows.failure = e;
+                        break;
+                    }
+                } else if (header < headerCount && headers[header] == line) {
+                    state.op = headerOps[header];
+                    state.forced = true;
+                    rows.addSection(state.op);
+                }
+
+                line++;
+                pos = nextLine(end);
+            }
+
+            // Release the mapping
+            buffer = null;
+        }
+
+        /**
+         * Parses a single entry without creating any unnecessary objects
+         *
+         * @param op The {@link Reader.Operation} of the current set of entries
+         * @param row The {@link RowTokenizer} containing the entry
+         * @param index The index of the line, relative to the first line
+         *
+         * @return {@code true} if the entry was parsed, {@code false} if the entry is invalid and wasn't parsed
+         */
+        private boolean parseEntry(Reader.Operation op, RowTokenizer row, int index) {
+            // Invalid entries are handled by the detailed parsing
+            if (op == Reader.Operation.NONE || row.getAttributeCount() < 2)
+                return false;
+
+            // The first attribute always represents the id
+            long id = row.getInt(0);
+            if (id == RowTokenizer.INVALID)
+                return false;
+
+            switch (op) {
+                case ADD_PERSON -> {
+                    Gender gender = row.getAttributeCount() > 2 ? row.getGender(2) : null;
+                    if (gender == null)
+                        return false;
+
+                    rows.add(index, op, (int) id, 0, new Person((int) id, row.getString(1), gender));
+                }
+                case ADD_PRODUCT -> rows.add(index, op, (int) id, 0, new Product((int) id, row.getString(1)));
+                case ADD_COMPANY -> rows.add(index, op, (int) id, 0, new Company((int) id, row.getString(1)));
+                default -> {
+                    long id2 = row.getStrippedInt(1);
+                    if (id2 == RowTokenizer.INVALID)
+                        return false;
+
+                    rows.add(index, op, (int) id, (int) id2, null);
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Parses a single entry, the same way {@link Reader} does
+         *
+         * @param op The {@link Reader.Operation} of the current set of entries
+         * @param line The content of the line
+         * @param index The index of the line, relative to the first line
+         */
+        private void parseLine(Reader.Operation op, String line, int index) {
+            // Split the read line at ','
+            String[] attributes = line.replace("\"", "").split(",");
+            if (!Reader.validate(op, attributes, (error, message) -> rows.addError(index, error, message)))
+                return;
+
+            // Every attribute of a valid entry can be converted
+            int id = (int) Reader.parseInt(attributes[0]);
+            String att1 = attributes[1].strip();
+
+            // Switch behaviour based on current operation
+            switch (op) {
+                case ADD_PERSON -> rows.add(index, op, id, 0, new Person(id, att1, Gender.fromString(attributes[2])));
+                case ADD_PRODUCT -> rows.add(index, op, id, 0, new Product(id, att1));
+                case ADD_COMPANY -> rows.add(index, op, id, 0, new Company(id, att1));
+                default -> rows.add(index, op, id, (int) Reader.parseInt(att1), null);
+            }
+        }
+
+        /**
+         * Applies every parsed entry to the {@link Database} and releases them afterwards
+         *
+         * @param db The {@link Database} to fill
+         * @param sections Measures the time of applying every set of entries, if metrics are collected
+         *
+         * @return The number of applied entries
+         */
+        private int apply(Database db, SectionTimer sections) {
+            Rows rows = this.rows;
+            this.rows = null;
+
+            int section = 0;
+            if (Metrics.ENABLED)
+                sections.resume();
+
+            for (int i = 0; i < rows.size; i++) {
+                if (Metrics.ENABLED)
+                    section = sections.enter(rows, section, i);
+
+                switch (rows.ops[i]) {
+                    case ADD_PERSON -> db.addPerson(rows.first[i], (Person) rows.values[i]);
+                    case ADD_PRODUCT -> db.addProduct(rows.first[i], (Product) rows.values[i]);
+                    case ADD_COMPANY -> db.addCompany(rows.first[i], (Company) rows.values[i]);
+                    case NONE -> Reader.logInvalidLine(firstLine + rows.lines[i], (String) rows.values[i], rows.messages[i]);
+                    default -> Reader.link(db, rows.ops[i], rows.first[i], rows.second[i], firstLine + rows.lines[i]);
+                }
+            }
+
+            // The sets of entries, whose first entry is part of the next chunk, start at the end
+            if (Metrics.ENABLED) {
+                sections.enter(rows, section, rows.size);
+                sections.pause();
+            }
+
+            if (rows.failure != null)
+                throw rows.failure;
+            return rows.size;
+        }
+
+        /**
+         * Get the end of the line starting at the provided position
+         *
+         * @param pos The first byte of the line
+         *
+         * @return The position of the line break, or the end of the chunk
+         */
+        private int lineEnd(int pos) {
+            int limit = buffer.limit();
+            while (pos < limit) {
+                byte b = buffer.get(pos);
+                if (b == '\n' || b == '\r')
+                    return pos;
+                pos++;
+            }
+            return limit;
+        }
+
+        /**
+         * Get the start of the line following the line break at the provided position
+         *
+         * @param end The position of the line break
+         *
+         * @return The first byte of the next line
+         */
+        private int nextLine(int end) {
+            if (end < buffer.limit() && buffer.get(end) == '\r')
+                end++;
+            if (end < buffer.limit() && buffer.get(end) == '\n')
+                end++;
+            return end;
+        }
+
+        /**
+         * Searches for a sequence of bytes in the provided range
+         *
+         * @param pattern The sequence to search for
+         * @param from The first byte of the range
+         * @param to The first byte after the range
+         *
+         * @return The position of the sequence or -1 if it can't be found
+         */
+        private int indexOf(byte[] pattern, int from, int to) {
+            outer:
+            for (int i = from; i <= to - pattern.length; i++) {
+                for (int j = 0; j < pattern.length; j++)
+                    if (buffer.get(i + j) != pattern[j])
+                        continue outer;
+                return i;
+            }
+            return -1;
+        }
+
+        /**
+         * Decodes the provided range to a {@link String}
+         *
+         * @param from The first byte of the range
+         * @param to The first byte after the range
+         *
+         * @return The decoded {@link String}
+         */
+        private String decode(int from, int to) {
+            byte[] bytes = new byte[to - from];
+            buffer.get(from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The parsed entries of a {@link Chunk} in the order of the file
+     */
+    private static class Rows {
+        /**
+         * The index of the line of every entry, relative to the first line of the chunk
+         */
+        private int[] lines = new int[16];
+
+        /**
+         * The {@link Reader.Operation} of every entry, {@link Reader.Operation#NONE} marks an invalid entry
+         */
+        private Reader.Operation[] ops = new Reader.Operation[16];
+
+        /**
+         * The first id of every entry
+         */
+        private int[] first = new int[16];
+
+        /**
+         * The second id of every entry
+         */
+        private int[] second = new int[16];
+
+        /**
+         * The created object of every entry, or the name of the error of an invalid entry
+         */
+        private Object[] values = new Object[16];
+
+        /**
+         * The error message of every invalid entry
+         */
+        private String[] messages = new String[16];
+
+        /**
+         * The number of entries
+         */
+        private int size;
+
+        /**
+         * The index of the first entry of every set of entries, which starts in the chunk
+         */
+        private int[] sectionStarts = new int[4];
+
+        /**
+         * The {@link Reader.Operation} of every set of entries, which starts in the chunk
+         */
+        private Reader.Operation[] sectionOps = new Reader.Operation[4];
+
+        /**
+         * The number of sets of entries, which start in the chunk
+         */
+        private int sectionCount;
+
+        /**
+         * The {@link Exception} which stopped the parsing, if there is one
+         */
+        private RuntimeException failure;
+
+        /**
+         * Starts a new set of entries at the next entry
+         *
+         * @param op The {@link Reader.Operation} of the set
+         */
+        private void addSection(Reader.Operation op) {
+            if (sectionCount == sectionStarts.length) {
+                sectionStarts = Arrays.copyOf(sectionStarts, sectionCount * 2);
+                sectionOps = Arrays.copyOf(sectionOps, sectionCount * 2);
+            }
+
+            sectionStarts[sectionCount] = size;
+            sectionOps[sectionCount++] = op;
+        }
+
+        /**
+         * Adds a valid entry
+         */
+        private void add(int line, Reader.Operation op, int id1, int id2, Object value) {
+            if (size == lines.length)
+                grow();
+
+            lines[size] = line;
+            ops[size] = op;
+            first[size] = id1;
+            second[size] = id2;
+            values[size++] = value;
+        }
+
+        /**
+         * Adds an invalid entry
+         */
+        private void addError(int line, String error, String message) {
+            if (size == lines.length)
+                grow();
+
+            lines[size] = line;
+            ops[size] = Reader.Operation.NONE;
+            values[size] = error;
+            messages[size++] = message;
+        }
+
+        /**
+         * Doubles the capacity of every array
+         */
+        private void grow() {
+            int capacity = lines.length * 2;
+            lines = Arrays.copyOf(lines, capacity);
+            ops = Arrays.copyOf(ops, capacity);
+            first = Arrays.copyOf(first, capacity);
+            second = Arrays.copyOf(second, capacity);
+            values = Arrays.copyOf(values, capacity);
+            messages = Arrays.copyOf(messages, capacity);
+        }
+    }
+
+    /**
+     * Measures the time of applying every set of entries and records it in the {@link Histogram} of {@link Reader}
+     * A set may span several chunks, so only the time spent applying its entries is counted
+     */
+    private static class SectionTimer {
+        /**
+         * The {@link Reader.Operation} of the current set of entries, or null before the first one
+         */
+        private Reader.Operation op;
+
+        /**
+         * The time spent applying the current set of entries before the current chunk
+         */
+        private long elapsed;
+
+        /**
+         * The result of {@link System#nanoTime()}, when applying the current chunk or set started
+         */
+        private long resumed;
+
+        /**
+         * Continues measuring at the beginning of a chunk
+         */
+        private void resume() {
+            resumed = System.nanoTime();
+        }
+
+        /**
+         * Stops measuring at the end of a chunk
+         */
+        private void pause() {
+            elapsed += System.nanoTime() - resumed;
+        }
+
+        /**
+         * Records the current set and starts the next ones, if they start at the provided entry
+         *
+         * @param rows The entries of the chunk
+         * @param section The index of the next set of the chunk
+         * @param index The index of the entry, which is applied next
+         *
+         * @return The index of the next set of the chunk, which hasn't started yet
+         */
+        private int enter(Rows rows, int section, int index) {
+            while (section < rows.sectionCount && rows.sectionStarts[section] == index) {
+                long now = System.nanoTime();
+                if (op != null)
+                    Reader.SECTION_TIMES[op.ordinal()].record(elapsed + now - resumed);
+
+                op = rows.sectionOps[section++];
+                elapsed = 0;
+                resumed = now;
+            }
+            return section;
+        }
+
+        /**
+         * Records the last set of entries
+         */
+        private void finish() {
+            if (op != null)
+                Reader.SECTION_TIMES[op.ordinal()].record(elapsed);
+            op = null;
+        }
+    }
+}
@@ -3,7 +3,7 @@ package model;
 /**
  * A superclass to handle basic operations
  */
-public class Parent {
+public class Parent implements ReadOnlyEntity {
     /**
      * Represents the unique {@code id}
      */
@@ -14,6 +14,21 @@ public class Parent {
      */
     private String name;
 
+    /**
+     * Represents the lowercase {@code name}, which is used for sorting and searching
+     */
+    private String sortKey;
+
+    /**
+     * Represents the position in the {@link Database} this object was added to
+     */
+    int index = -1;
+
+    /**
+     * Represents the {@link Database} this object was added to, which has to be notified about changes
+     */
+    Database database;
+
     /**
      * Handles {@code id} and {@code name} initialisation
      *
@@ -23,6 +38,7 @@ public class Parent {
     public Parent(int id, String name) {
         this.id = id;
         this.name = name;
+        this.sortKey = toSortKey(name);
     }
 
     /**
@@ -40,7 +56,10 @@ public class Parent {
      * @param id The new {@code id}
      */
     public void setId(int id) {
+        int previous = this.id;
         this.id = id;
+        if (database != null)
+            database.idChanged(this, previous);
     }
 
     /**
@@ -59,6 +78,46 @@ public class Parent {
      */
     public void setName(String name) {
         this.name = name;
+        this.sortKey = toSortKey(name);
+
+        // Keep the search index of the database up to date
+        if (database != null)
+            database.nameChanged(this);
+
+        // Log the new name
+        WriteAheadLog log = log();
+        if (log != null)
+            log.setName(this);
+    }
+
+    /**
+     * Get the {@link WriteAheadLog} of the {@link Database} this object was added to
+     *
+     * @return The {@link WriteAheadLog}, or null if the changes of this object aren't logged
+     */
+    WriteAheadLog log() {
+        return database == null ? null : database.log;
+    }
+
+    /**
+     * Get the lowercase {@code name}
+     * It's computed once per {@code name}, so comparisons don't have to convert the {@code name} every time
+     *
+     * @return The lowercase {@code name}, or null if there is no {@code name}
+     */
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    /**
+     * Converts a {@code name} to its lowercase form
+     *
+     * @param name The {@code name}
+     *
+     * @return The lowercase {@code name}, or null if there is no {@code name}
+     */
+    private static String toSortKey(String name) {
+        return name == null ? null : name.toLowerCase();
     }
 
     /**
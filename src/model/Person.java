@@ -1,28 +1,42 @@
 package model;
 
 import util.Gender;
+import util.IndexedList;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * A subclass of {@link Parent} representing a person
  */
-public class Person extends Parent {
+public class Person extends Parent implements ReadOnlyPerson {
     /**
      * The {@link Gender} of the {@link Person}
      */
     private Gender gender;
 
     /**
-     * A {@link List} containing every friend of the {@link Person}
+     * A {@link List} containing every friend of the {@link Person} once
      */
-    private final List<Person> friends;
+    private final IndexedList<Person> friends;
 
     /**
-     * A {@link List} containing every bought {@link Product} of the {@link Person}
+     * A {@link List} containing every bought {@link Product} of the {@link Person} once
      */
-    private final List<Product> products;
+    private final IndexedList<Product> products;
+
+    /**
+     * An unmodifiable view of the friends, changes have to go through the methods of the {@link Person},
+     * which update the {@link Database} and its log
+     */
+    private final List<Person> friendsView;
+
+    /**
+     * An unmodifiable view of the products, changes have to go through the methods of the {@link Person},
+     * which update the {@link Database} and its log
+     */
+    private final List<Product> productsView;
 
     /**
      * Creates a new instance with the given params
@@ -36,8 +50,10 @@ public class Person extends Parent {
         super(id, name);
 
         // Initialise lists
-        friends = new ArrayList<>();
-        products = new ArrayList<>();
+        friends = new IndexedList<>();
+        products = new IndexedList<>();
+        friendsView = Collections.unmodifiableList(friends);
+        productsView = Collections.unmodifiableList(products);
 
         this.gender = gender;
     }
@@ -48,8 +64,14 @@ public class Person extends Parent {
      * @param p The {@link Person} to add to the {@link List}
      */
     public void addFriend(Person p) {
-        if (!hasFriend(p))
-            friends.add(p);
+        if (friends.add(p)) {
+            changed(false);
+
+            // Log the new friend
+            WriteAheadLog log = log();
+            if (log != null)
+                log.addFriend(this, p);
+        }
     }
 
     /**
@@ -59,13 +81,21 @@ public class Person extends Parent {
      */
     public void removeFriend(Person p) {
         // Only remove friend if the person is friends with it
-        if (hasFriend(p))
-            friends.remove(p);
+        boolean removed = friends.remove(p);
+        if (removed)
+            changed(false);
 
         // Also remove this person from the friends list of the other person
         // Friends are bidirectional
-        if (p.hasFriend(this))
-            p.friends.remove(this);
+        if (p.friends.remove(this)) {
+            p.changed(false);
+            removed = true;
+        }
+
+        // Log the removed friendship
+        WriteAheadLog log = log();
+        if (removed && log != null)
+            log.removeFriend(this, p);
     }
 
     /**
@@ -80,12 +110,31 @@ public class Person extends Parent {
     }
 
     /**
-     * Add a product to the products {@link List}
+     * Add a product to the products {@link List}, if the {@link Person} doesn't own it yet
      *
      * @param p The {@link Product} to add to the {@link List}
      */
     public void buyProduct(Product p) {
-        products.add(p);
+        if (products.add(p)) {
+            changed(true);
+            if (database != null)
+                database.productBought(this, p);
+
+            // Log the bought product
+            WriteAheadLog log = log();
+            if (log != null)
+                log.buyProduct(this, p);
+        }
+    }
+
+    /**
+     * Notifies the {@link Database} that the friends or products of the {@link Person} have changed
+     *
+     * @param bought {@code true} if the products have changed, {@code false} if the friends have changed
+     */
+    private void changed(boolean bought) {
+        if (database != null)
+            database.personChanged(this, bought);
     }
 
     /**
@@ -102,24 +151,31 @@ public class Person extends Parent {
      */
     public void setGender(Gender gender) {
         this.gender = gender;
+        if (database != null)
+            database.entityChanged(this);
+
+        // Log the new gender
+        WriteAheadLog log = log();
+        if (log != null)
+            log.setGender(this);
     }
 
     /**
      * Get friends of the {@link Person}
      *
-     * @return A {@link List} containing every friend
+     * @return An unmodifiable {@link List} containing every friend
      */
     public List<Person> getFriends() {
-        return friends;
+        return friendsView;
     }
 
     /**
      * Get every owned {@link Product} of the {@link Person}
      *
-     * @return A {@link List} containing every {@link Product}
+     * @return An unmodifiable {@link List} containing every {@link Product}
      */
     public List<Product> getProducts() {
-        return products;
+        return productsView;
     }
 
     /**
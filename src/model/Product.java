@@ -3,7 +3,7 @@ package model;
 /**
  * A subclass of {@link Parent} representing a product
  */
-public class Product extends Parent {
+public class Product extends Parent implements ReadOnlyProduct {
     /**
      * The {@link Company producer} of this {@link Product}
      */
@@ -33,6 +33,16 @@ public class Product extends Parent {
      * Set the {@link Company} this {@link Product} was made by
      */
     public void setMadeBy(Company madeBy) {
+        Company previous = this.madeBy;
         this.madeBy = madeBy;
+
+        // Notify the database that the company has changed
+        if (database != null)
+            database.productChanged(this, previous);
+
+        // Log the new company
+        WriteAheadLog log = log();
+        if (log != null)
+            log.setMadeBy(this);
     }
 }
@@ -0,0 +1,69 @@
+package model;
+
+/**
+ * An entity of a ranked network together with its score
+ *
+ * @param <T> The type of the entity
+ */
+public class Ranked<T extends Parent> {
+    /**
+     * The ranked entity
+     */
+    private final T entity;
+
+    /**
+     * The score of the entity, which is higher for entities of more and closer people
+     */
+    private final double score;
+
+    /**
+     * The number of hops to the closest {@link Person} the entity belongs to
+     */
+    private final int hops;
+
+    /**
+     * Creates a new ranked entity
+     *
+     * @param entity The ranked entity
+     * @param score The score of the entity
+     * @param hops The number of hops to the closest {@link Person} the entity belongs to
+     */
+    Ranked(T entity, double score, int hops) {
+        this.entity = entity;
+        this.score = score;
+        this.hops = hops;
+    }
+
+    /**
+     * Get the ranked entity
+     *
+     * @return The entity
+     */
+    public T getEntity() {
+        return entity;
+    }
+
+    /**
+     * Get the score of the entity
+     * Every {@link Person} the entity belongs to adds {@code 1} for friends, {@code 0.5} for friends of friends and so on
+     *
+     * @return The score
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Get the number of hops to the closest {@link Person} the entity belongs to
+     *
+     * @return The number of hops, {@code 1} for friends
+     */
+    public int getHops() {
+        return hops;
+    }
+
+    @Override
+    public String toString() {
+        return entity + " (" + score + ", " + hops + ")";
+    }
+}
@@ -0,0 +1,15 @@
+package model;
+
+import java.util.List;
+
+/**
+ * The read-only part of a {@link Company}
+ */
+public interface ReadOnlyCompany extends ReadOnlyEntity {
+    /**
+     * Get the products made by the {@link Company}
+     *
+     * @return A {@link List} containing every {@link Product} once
+     */
+    List<? extends ReadOnlyProduct> getProducts();
+}
@@ -0,0 +1,27 @@
+package model;
+
+/**
+ * The read-only part of every entity, which is shared by the entities of a {@link Database} and the views of a {@link ColumnStore}
+ */
+public interface ReadOnlyEntity {
+    /**
+     * Get the {@code id}
+     *
+     * @return The {@code id}
+     */
+    int getId();
+
+    /**
+     * Get the {@code name}
+     *
+     * @return The {@code name}
+     */
+    String getName();
+
+    /**
+     * Get the lowercase {@code name}
+     *
+     * @return The lowercase {@code name}, or null if there is no {@code name}
+     */
+    String getSortKey();
+}
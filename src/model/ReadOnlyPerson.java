@@ -0,0 +1,38 @@
+package model;
+
+import util.Gender;
+
+import java.util.List;
+
+/**
+ * The read-only part of a {@link Person}
+ */
+public interface ReadOnlyPerson extends ReadOnlyEntity {
+    /**
+     * Get the {@link Gender}
+     *
+     * @return The {@link Gender}
+     */
+    Gender getGender();
+
+    /**
+     * Get the friends
+     *
+     * @return A {@link List} containing every friend once
+     */
+    List<? extends ReadOnlyPerson> getFriends();
+
+    /**
+     * Get the bought products
+     *
+     * @return A {@link List} containing every bought {@link Product} once
+     */
+    List<? extends ReadOnlyProduct> getProducts();
+
+    /**
+     * Get the companies of the bought products
+     *
+     * @return A {@link List} containing the {@link Company} of every bought {@link Product}, a {@link Company} may be part of it more than once
+     */
+    List<? extends ReadOnlyCompany> getCompanies();
+}
@@ -0,0 +1,13 @@
+package model;
+
+/**
+ * The read-only part of a {@link Product}
+ */
+public interface ReadOnlyProduct extends ReadOnlyEntity {
+    /**
+     * Get the {@link Company} which makes the {@link Product}
+     *
+     * @return The {@link Company}, or null if there is none
+     */
+    ReadOnlyCompany getMadeBy();
+}
@@ -7,6 +7,7 @@ import util.exceptions.NoSuchProductException;
 import util.exceptions.UnknownGenderException;
 
 import java.io.*;
+import java.util.function.BiConsumer;
 
 /**
  * This class reads file from a provided path into a {@link Database}
@@ -19,10 +20,18 @@ public class Reader {
      */
     private static BetterBufferedReader fileReader;
 
+    /**
+     * Collects the invalid lines of every read file
+     * The system properties {@code produktdatenbank.errors.max} and {@code produktdatenbank.errors.sample}
+     * limit the number of written lines and write only every n-th line of an error
+     */
+    private static final ErrorSink errors = new ErrorSink(System.err, ErrorSink.DEFAULT_CAPACITY,
+            Long.getLong("produktdatenbank.errors.max", Long.MAX_VALUE), Integer.getInteger("produktdatenbank.errors.sample", 1));
+
     /**
      * An {@link Enum} to represents all valid operations
      */
-    private enum Operation {
+    enum Operation {
         ADD_PERSON,
         ADD_PRODUCT,
         ADD_COMPANY,
@@ -32,6 +41,18 @@ public class Reader {
         NONE;
     }
 
+    /**
+     * Contains the {@link Histogram} of the durations of the sets of entries of every {@link Operation}
+     * {@link ParallelReader} records the time of applying its sets in them
+     */
+    static final Histogram[] SECTION_TIMES = new Histogram[Operation.values().length];
+
+    // Create the histograms of the sets of entries
+    static {
+        for (Operation op : Operation.values())
+            SECTION_TIMES[op.ordinal()] = Metrics.histogram("reader.section." + op + ".ns");
+    }
+
     // This class shouldn't be instantiated
     private Reader() {
     }
@@ -44,11 +65,44 @@ public class Reader {
      */
     public static Database readFileToDatabase(String file) {
         Database db = new Database();
+        return applyDelta(db, file) ? db : null;
+    }
+
+    /**
+     * Applies the content of a file to an existing database
+     * The entries are added exactly like the entries of a complete file, so the file may contain only
+     * the new people, products, companies and correlations. The indices of the database are updated with every entry,
+     * so applying a file only takes time proportional to the size of the file.
+     *
+     * @param db The {@link Database} to change
+     * @param file The path to the file, which will be read
+     * @return {@code true} if every entry was applied, {@code false} if the file couldn't be found or read completely
+     */
+    public static boolean applyDelta(Database db, String file) {
+        try {
+            return applyDelta(db, new FileReader(new File(file)));
+        } catch (FileNotFoundException e) {
+            System.err.println("Die angegebene Datei '" + file + "' konnte nicht gefunden werden!");
+        }
 
-        // Read file from the provided path, use own File Reader
-        try (BetterBufferedReader reader = new BetterBufferedReader(new FileReader(new File(file)))) {
+        return false;
+    }
+
+    /**
+     * Applies the content of a stream to an existing database and closes the stream afterwards
+     *
+     * @param db The {@link Database} to change
+     * @param in The stream containing the entries in the same format as a file
+     * @return {@code true} if every entry was applied, {@code false} if the stream couldn't be read completely
+     *
+     * @see #applyDelta(Database, String)
+     */
+    public static boolean applyDelta(Database db, java.io.Reader in) {
+        // Use own File Reader
+        try (BetterBufferedReader reader = new BetterBufferedReader(in)) {
             fileReader = reader;
 
+            RowTokenizer tokenizer = new RowTokenizer();
             String line = reader.readLine();
             Operation op;
 
@@ -56,101 +110,295 @@ public class Reader {
             while (line != null) {
                 // Check for a new set of entries
                 if (line.contains("New_Entity")) {
-                    // Remove unnecessary information
-                    line = line.replace("New_Entity:", "").replace("\"", "");
-
                     // Change operation based on unique identifiers
-                    if (line.contains("person_name"))
-                        op = Operation.ADD_PERSON;
-                    else if (line.contains("product_name"))
-                        op = Operation.ADD_PRODUCT;
-                    else if (line.contains("company_name"))
-                        op = Operation.ADD_COMPANY;
-                    else if (line.contains("person1_id"))
-                        op = Operation.SET_FRIEND;
-                    else if (line.contains("person_id"))
-                        op = Operation.SET_PERSON_PRODUCT;
-                    else if (line.contains("company_id"))
-                        op = Operation.SET_PRODUCT_COMPANY;
-                    else
-                        op = Operation.NONE;
+                    op = getOperation(line);
 
                     // Read the first entry
                     line = reader.readLine();
+                    if (line == null)
+                        throw new EOFException("Auf die letzte 'New_Entity' Zeile folgt kein Eintrag!");
+
+                    long start = Metrics.ENABLED ? System.nanoTime() : 0;
+                    long rows = 0;
 
                     do {
-                        // Split the read line at ','
-                        String[] attributes = line.replace("\"", "").split(",");
-
-                        try {
-                            // Convert first attribute to an int which always represents the id
-                            int id = Integer.parseInt(attributes[0]);
-
-                            try {
-                                // Remove leading and trailing spaces
-                                String att1 = attributes[1].strip();
-
-                                try {
-                                    // Switch behaviour based on current operation
-                                    switch (op) {
-                                        case ADD_PERSON -> {
-                                            try {
-                                                // Try adding a person to the database
-                                                db.addPerson(id, new Person(id, att1, Gender.getGenderFromString(attributes[2])));
-                                            } catch (IndexOutOfBoundsException | UnknownGenderException e) {
-                                                // Log error
-                                                logInvalidLine(e.getClass().getSimpleName(), e.getMessage());
-                                            }
-                                        }
-                                        // Add a product to the database
-                                        case ADD_PRODUCT -> db.addProduct(id, new Product(id, att1));
-
-                                        // Add a company to the database
-                                        case ADD_COMPANY -> db.addCompany(id, new Company(id, att1));
-
-                                        // Set "friend" correlation based on IDs
-                                        case SET_FRIEND -> db.setFriends(id, Integer.parseInt(att1));
-
-                                        // Add a product to the person's list
-                                        case SET_PERSON_PRODUCT -> db.setPersonProduct(id, Integer.parseInt(att1));
-
-                                        // Add a product to the company's list
-                                        case SET_PRODUCT_COMPANY -> db.setManufacturer(id, Integer.parseInt(att1));
-
-                                        // Log invalid line if no identifier was found
-                                        case NONE -> logInvalidLine("Falscher Identifier!", "");
-                                    }
-                                } catch (NoSuchPersonException | NoSuchProductException | NoSuchCompanyException e) {
-                                    // Log errors which have something to do with missing/bad entries
-                                    logInvalidLine(e.getClass().getSimpleName(), e.getMessage());
-                                }
-                            } catch (IndexOutOfBoundsException e) {
-                                // Log invalid array operations
-                                logInvalidLine(e.getClass().getSimpleName(), e.getMessage());
-                            }
-                        } catch (NumberFormatException e) {
-                            // Log invalid ids
-                            logInvalidLine(e.getClass().getSimpleName(), e.getMessage());
-                        }
+                        // Use the tokenizer for valid entries and the detailed parsing for invalid ones
+                        if (!readEntry(db, op, tokenizer.reset(line)))
+                            readEntry(db, op, line);
 
                         line = reader.readLine();
+                        rows++;
 
                         // Continue, until no more lines are found or a 'New_Entity' starts
                     } while (line != null && !line.contains("New_Entity"));
+
+                    // Record the duration and the size of the set of entries
+                    if (Metrics.ENABLED) {
+                        SECTION_TIMES[op.ordinal()].recordSince(start);
+                        Metrics.counter("reader.rows").add(rows);
+                    }
                 } else
                     line = reader.readLine();
             }
 
-            // Return filled database
-            return db;
-        } catch (FileNotFoundException e) {
-            System.err.println("Die angegebene Datei '" + file + "' konnte nicht gefunden werden!");
+            return true;
         } catch (Exception e) {
-            // Print other exceptions
+            // Print other exceptions after the invalid lines
+            errors.flush();
             e.printStackTrace();
+        } finally {
+            errors.flush();
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the {@link ErrorSink} collecting the invalid lines of every read file
+     *
+     * @return The {@link ErrorSink}
+     */
+    public static ErrorSink getErrorSink() {
+        return errors;
+    }
+
+    /**
+     * Reads a single entry to the database without creating any unnecessary objects
+     *
+     * @param db The {@link Database} to fill
+     * @param op The {@link Operation} of the current set of entries
+     * @param row The {@link RowTokenizer} containing the entry
+     *
+     * @return {@code true} if the entry was read, {@code false} if the entry is invalid and wasn't read
+     */
+    private static boolean readEntry(Database db, Operation op, RowTokenizer row) {
+        // Invalid entries are handled by the detailed parsing
+        if (op == Operation.NONE || row.getAttributeCount() < 2)
+            return false;
+
+        // The first attribute always represents the id
+        long id = row.getInt(0);
+        if (id == RowTokenizer.INVALID)
+            return false;
+
+        // Switch behaviour based on current operation
+        switch (op) {
+            case ADD_PERSON -> {
+                Gender gender = row.getAttributeCount() > 2 ? row.getGender(2) : null;
+                if (gender == null)
+                    return false;
+
+                db.addPerson((int) id, new Person((int) id, row.getString(1), gender));
+            }
+            case ADD_PRODUCT -> db.addProduct((int) id, new Product((int) id, row.getString(1)));
+            case ADD_COMPANY -> db.addCompany((int) id, new Company((int) id, row.getString(1)));
+            default -> {
+                long id2 = row.getStrippedInt(1);
+                if (id2 == RowTokenizer.INVALID)
+                    return false;
+
+                link(db, op, (int) id, (int) id2, fileReader.getCurrentLine());
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads a single entry to the database and logs every reason why it is invalid
+     *
+     * @param db The {@link Database} to fill
+     * @param op The {@link Operation} of the current set of entries
+     * @param line The line containing the entry
+     */
+    private static void readEntry(Database db, Operation op, String line) {
+        // Split the read line at ','
+        String[] attributes = line.replace("\"", "").split(",");
+        if (!validate(op, attributes, Reader::logInvalidLine))
+            return;
+
+        // Every attribute of a valid entry can be converted
+        int id = (int) parseInt(attributes[0]);
+        String att1 = attributes[1].strip();
+
+        // Switch behaviour based on current operation
+        switch (op) {
+            case ADD_PERSON -> db.addPerson(id, new Person(id, att1, Gender.fromString(attributes[2])));
+            case ADD_PRODUCT -> db.addProduct(id, new Product(id, att1));
+            case ADD_COMPANY -> db.addCompany(id, new Company(id, att1));
+            default -> link(db, op, id, (int) parseInt(att1), fileReader.getCurrentLine());
+        }
+    }
+
+    /**
+     * Checks the attributes of an entry without throwing exceptions
+     * Every reason why the entry is invalid is logged with the name and the message of the exception,
+     * which would be thrown while converting the attributes
+     *
+     * @param op The {@link Operation} of the current set of entries
+     * @param attributes The attributes of the entry, which are split at ',' after removing every quote
+     * @param log Logs the name of the error and its message
+     *
+     * @return {@code true} if the entry is valid, {@code false} otherwise
+     */
+    static boolean validate(Operation op, String[] attributes, BiConsumer<String, String> log) {
+        // The first attribute always represents the id
+        if (parseInt(attributes[0]) == RowTokenizer.INVALID) {
+            log.accept(NumberFormatException.class.getSimpleName(), "For input string: \"" + attributes[0] + "\"");
+            return false;
+        }
+
+        if (attributes.length < 2) {
+            log.accept(ArrayIndexOutOfBoundsException.class.getSimpleName(), "Index 1 out of bounds for length " + attributes.length);
+            return false;
+        }
+
+        switch (op) {
+            case ADD_PERSON -> {
+                if (attributes.length < 3) {
+                    log.accept(ArrayIndexOutOfBoundsException.class.getSimpleName(), "Index 2 out of bounds for length " + attributes.length);
+                    return false;
+                }
+
+                if (Gender.fromString(attributes[2]) == null) {
+                    log.accept(UnknownGenderException.class.getSimpleName(), UnknownGenderException.message(attributes[2].strip()));
+                    return false;
+                }
+            }
+            case SET_FRIEND, SET_PERSON_PRODUCT, SET_PRODUCT_COMPANY -> {
+                String att1 = attributes[1].strip();
+                if (parseInt(att1) == RowTokenizer.INVALID) {
+                    log.accept(NumberFormatException.class.getSimpleName(), "For input string: \"" + att1 + "\"");
+                    return false;
+                }
+            }
+            case NONE -> {
+                // Log invalid line if no identifier was found
+                log.accept("Falscher Identifier!", "");
+                return false;
+            }
         }
 
-        return null;
+        return true;
+    }
+
+    /**
+     * Adds a correlation to the database without throwing exceptions
+     * A missing entity is logged with the name and the message of the exception, which the {@link Database} would throw
+     *
+     * @param db The {@link Database} to fill
+     * @param op The {@link Operation} of the correlation
+     * @param id1 The first {@code id} of the entry
+     * @param id2 The second {@code id} of the entry
+     * @param line The number of the line containing the entry
+     */
+    static void link(Database db, Operation op, int id1, int id2, long line) {
+        switch (op) {
+            case SET_FRIEND -> {
+                Person p1 = db.findPerson(id1);
+                Person p2 = db.findPerson(id2);
+
+                if (p1 == null)
+                    logInvalidLine(line, NoSuchPersonException.class.getSimpleName(), NoSuchPersonException.message(id1));
+                else if (p2 == null)
+                    logInvalidLine(line, NoSuchPersonException.class.getSimpleName(), NoSuchPersonException.message(id2));
+                else
+                    db.setFriends(p1, p2);
+            }
+            case SET_PERSON_PRODUCT -> {
+                Person pe = db.findPerson(id1);
+                Product pr = db.findProduct(id2);
+
+                if (pe == null)
+                    logInvalidLine(line, NoSuchPersonException.class.getSimpleName(), NoSuchPersonException.message(id1));
+                else if (pr == null)
+                    logInvalidLine(line, NoSuchProductException.class.getSimpleName(), NoSuchProductException.message(id2));
+                else
+                    pe.buyProduct(pr);
+            }
+            case SET_PRODUCT_COMPANY -> {
+                Product p = db.findProduct(id1);
+                Company c = db.findCompany(id2);
+
+                // Like Database#setManufacturer, a missing company is reported with the id of the product
+                if (p == null)
+                    logInvalidLine(line, NoSuchProductException.class.getSimpleName(), NoSuchProductException.message(id1));
+                else if (c == null)
+                    logInvalidLine(line, NoSuchCompanyException.class.getSimpleName(), NoSuchCompanyException.message(id1));
+                else
+                    db.setManufacturer(p, c);
+            }
+        }
+    }
+
+    /**
+     * Parses a {@link String} to an int like {@link Integer#parseInt(String)}, but without throwing an exception
+     *
+     * @param s The {@link String}
+     *
+     * @return The parsed number or {@link RowTokenizer#INVALID}
+     */
+    static long parseInt(String s) {
+        int length = s.length();
+        int i = 0;
+        boolean negative = false;
+
+        if (length > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+            negative = s.charAt(0) == '-';
+            i++;
+        }
+        if (i == length)
+            return RowTokenizer.INVALID;
+
+        long result = 0;
+        for (; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                result = result * 10 + (c - '0');
+                if (result > -(long) Integer.MIN_VALUE)
+                    return RowTokenizer.INVALID;
+            } else if (c < 128)
+                return RowTokenizer.INVALID;
+            else {
+                // Other scripts have their own digits, which are rare enough to use the exception
+                try {
+                    return Integer.parseInt(s);
+                } catch (NumberFormatException e) {
+                    return RowTokenizer.INVALID;
+                }
+            }
+        }
+
+        result = negative ? -result : result;
+        return result > Integer.MAX_VALUE ? RowTokenizer.INVALID : result;
+    }
+
+    /**
+     * Get the {@link Operation} of a set of entries based on its 'New_Entity' line
+     *
+     * @param line The line introducing the set of entries
+     *
+     * @return The {@link Operation} which should be applied to every entry of the set
+     */
+    static Operation getOperation(String line) {
+        // Remove unnecessary information
+        line = line.replace("New_Entity:", "").replace("\"", "");
+
+        // Change operation based on unique identifiers
+        if (line.contains("person_name"))
+            return Operation.ADD_PERSON;
+        else if (line.contains("product_name"))
+            return Operation.ADD_PRODUCT;
+        else if (line.contains("company_name"))
+            return Operation.ADD_COMPANY;
+        else if (line.contains("person1_id"))
+            return Operation.SET_FRIEND;
+        else if (line.contains("person_id"))
+            return Operation.SET_PERSON_PRODUCT;
+        else if (line.contains("company_id"))
+            return Operation.SET_PRODUCT_COMPANY;
+        else
+            return Operation.NONE;
     }
 
     /**
@@ -159,6 +407,20 @@ public class Reader {
      * @param message The reason why the line is invalid
      */
     private static void logInvalidLine(String error, String message) {
-        System.err.println("Fehlerhafter Datensatz in Zeile " + fileReader.getCurrentLine() + "! " + error + ": " + message);
+        logInvalidLine(fileReader.getCurrentLine(), error, message);
+    }
+
+    /**
+     * Logs an invalid line in the file
+     *
+     * @param line The number of the invalid line
+     * @param error The name of the error
+     * @param message The reason why the line is invalid
+     */
+    static void logInvalidLine(long line, String error, String message) {
+        if (Metrics.ENABLED)
+            Metrics.counter("reader.rejected." + error).increment();
+
+        errors.log(line, error, message);
     }
 }
@@ -0,0 +1,528 @@
+package model;
+
+import util.Gender;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * This class writes a {@link Database} to a compact binary file and reads it back without parsing any text
+ * <p>
+ * The file starts with a magic number and a version, followed by the {@code id's}, names and genders
+ * of every entity and finally every correlation as arrays of positions in the {@link Database}.
+ * Every section is written and read in bulk, so reading a snapshot is bound by the speed of the disk.
+ * The sections are already columns, so a snapshot can also be read as a {@link ColumnStore} without creating any entity.
+ */
+public class Snapshot {
+    /**
+     * Identifies a snapshot file
+     */
+    private static final int MAGIC = 0x50444253;
+
+    /**
+     * The version of the file format, has to be increased with every change of the format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the buffer used for reading and writing
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // This class shouldn't be instantiated
+    private Snapshot() {
+    }
+
+    /**
+     * Checks whether a snapshot can be used instead of the file it was written from
+     * A snapshot is only up to date if it was written after the last change of the file,
+     * a snapshot with the same modification time as the file may be older than the change
+     *
+     * @param snapshot The path to the snapshot
+     * @param file The path to the file the snapshot was written from
+     *
+     * @return {@code true} if the snapshot exists and is newer than the file, {@code false} otherwise
+     */
+    public static boolean isUpToDate(String snapshot, String file) {
+        File s = new File(snapshot);
+        return s.isFile() && s.lastModified() > new File(file).lastModified();
+    }
+
+    /**
+     * Writes every entity and correlation of a {@link Database} to a file
+     * The file is replaced atomically, so there is never a partially written snapshot
+     *
+     * @param db The {@link Database} to write
+     * @param file The path to the file, which will be written
+     *
+     * @throws IOException If the file can't be written
+     */
+    public static void write(Database db, String file) throws IOException {
+        Path target = Path.of(file);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (Output out = new Output(FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            List<Person> people = db.getPeople();
+            List<Product> products = db.getProducts();
+            List<Company> companies = db.getCompanies();
+
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+
+            // Write every entity
+            writeEntities(out, people);
+            byte[] genders = new byte[people.size()];
+            for (int i = 0; i < genders.length; i++) {
+                Gender gender = people.get(i).getGender();
+                genders[i] = (byte) (gender == null ? -1 : gender.ordinal());
+            }
+            out.putBytes(genders);
+
+            writeEntities(out, products);
+            writeEntities(out, companies);
+
+            // Write every correlation
+            int[] madeBy = new int[products.size()];
+            for (int i = 0; i < madeBy.length; i++)
+                madeBy[i] = Database.indexOf(companies, products.get(i).getMadeBy());
+
+            writeCorrelations(out, people, people, Person::getFriends);
+            writeCorrelations(out, people, products, Person::getProducts);
+            writeCorrelations(out, companies, products, Company::getProducts);
+            out.putInts(madeBy);
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a {@link Database} from a file written by {@link #write(Database, String)}
+     *
+     * @param file The path to the file, which will be read
+     *
+     * @return The {@link Database} containing every entity and correlation of the file
+     * @throws IOException If the file can't be read or isn't a snapshot of the current version
+     */
+    public static Database read(String file) throws IOException {
+        try (Input in = new Input(FileChannel.open(Path.of(file), StandardOpenOption.READ))) {
+            readHeader(in, file);
+
+            Database db = new Database();
+
+            // Read every entity
+            int[] personIds = in.getInts(in.getInt());
+            String[] personNames = readNames(in, personIds.length);
+            byte[] genders = in.getBytes(personIds.length);
+            Gender[] values = Gender.values();
+            for (int i = 0; i < personIds.length; i++)
+                db.addPerson(personIds[i], new Person(personIds[i], personNames[i], genders[i] < 0 ? null : values[genders[i]]));
+
+            int[] productIds = in.getInts(in.getInt());
+            String[] productNames = readNames(in, productIds.length);
+            for (int i = 0; i < productIds.length; i++)
+                db.addProduct(productIds[i], new Product(productIds[i], productNames[i]));
+
+            int[] companyIds = in.getInts(in.getInt());
+            String[] companyNames = readNames(in, companyIds.length);
+            for (int i = 0; i < companyIds.length; i++)
+                db.addCompany(companyIds[i], new Company(companyIds[i], companyNames[i]));
+
+            List<Person> people = db.getPeople();
+            List<Product> products = db.getProducts();
+            List<Company> companies = db.getCompanies();
+
+            // Read every correlation
+            int[] counts = in.getInts(people.size());
+            int[] targets = in.getInts(sum(counts));
+            for (int i = 0, t = 0; i < counts.length; i++)
+                for (int end = t + counts[i]; t < end; t++)
+                    people.get(i).addFriend(people.get(targets[t]));
+
+            counts = in.getInts(people.size());
+            targets = in.getInts(sum(counts));
+            for (int i = 0, t = 0; i < counts.length; i++)
+                for (int end = t + counts[i]; t < end; t++)
+                    people.get(i).buyProduct(products.get(targets[t]));
+
+            counts = in.getInts(companies.size());
+            targets = in.getInts(sum(counts));
+            for (int i = 0, t = 0; i < counts.length; i++)
+                for (int end = t + counts[i]; t < end; t++)
+                    companies.get(i).addProduct(products.get(targets[t]));
+
+            int[] madeBy = in.getInts(products.size());
+            for (int i = 0; i < madeBy.length; i++)
+                if (madeBy[i] >= 0)
+                    products.get(i).setMadeBy(companies.get(madeBy[i]));
+
+            return db;
+        }
+    }
+
+    /**
+     * Reads a {@link ColumnStore} from a file written by {@link #write(Database, String)}
+     * The columns are read in bulk, no entity is created
+     *
+     * @param file The path to the file, which will be read
+     *
+     * @return The {@link ColumnStore} containing every entity and correlation of the file
+     * @throws IOException If the file can't be read or isn't a snapshot of the current version
+     */
+    public static ColumnStore readColumns(String file) throws IOException {
+        try (Input in = new Input(FileChannel.open(Path.of(file), StandardOpenOption.READ))) {
+            readHeader(in, file);
+
+            // Read every entity, equal names are only stored once
+            NameDictionary names = new NameDictionary(0);
+            int[] personIds = in.getInts(in.getInt());
+            int[] personNames = readHandles(in, personIds.length, names);
+            byte[] genders = in.getBytes(personIds.length);
+
+            int[] productIds = in.getInts(in.getInt());
+            int[] productNames = readHandles(in, productIds.length, names);
+
+            int[] companyIds = in.getInts(in.getInt());
+            int[] companyNames = readHandles(in, companyIds.length, names);
+
+            // Read every correlation
+            int[] friendOffsets = offsets(in.getInts(personIds.length));
+            int[] friendTargets = in.getInts(friendOffsets[personIds.length]);
+            int[] ownOffsets = offsets(in.getInts(personIds.length));
+            int[] ownTargets = in.getInts(ownOffsets[personIds.length]);
+            int[] madeOffsets = offsets(in.getInts(companyIds.length));
+            int[] madeTargets = in.getInts(madeOffsets[companyIds.length]);
+            int[] madeBy = in.getInts(productIds.length);
+
+            return new ColumnStore(personIds, personNames, genders, productIds, productNames, companyIds, companyNames,
+                    names, friendOffsets, friendTargets, ownOffsets, ownTargets, madeOffsets, madeTargets, madeBy);
+        }
+    }
+
+    /**
+     * Reads the magic number and the version of a snapshot
+     *
+     * @param in The {@link Input} to read from
+     * @param file The path to the file
+     *
+     * @throws IOException If the file isn't a snapshot of the current version
+     */
+    private static void readHeader(Input in, String file) throws IOException {
+        if (in.getInt() != MAGIC)
+            throw new IOException("Die Datei '" + file + "' ist kein Snapshot!");
+        if (in.getInt() != VERSION)
+            throw new IOException("Der Snapshot '" + file + "' hat eine veraltete Version!");
+    }
+
+    /**
+     * Writes the {@code id's} and names of every entity
+     *
+     * @param out The {@link Output} to write to
+     * @param entities Every entity of one kind
+     */
+    private static void writeEntities(Output out, List<? extends Parent> entities) throws IOException {
+        int[] ids = new int[entities.size()];
+        int[] lengths = new int[entities.size()];
+        byte[][] names = new byte[entities.size()][];
+
+        for (int i = 0; i < ids.length; i++) {
+            Parent p = entities.get(i);
+            ids[i] = p.getId();
+            names[i] = p.getName() == null ? null : p.getName().getBytes(StandardCharsets.UTF_8);
+            lengths[i] = names[i] == null ? -1 : names[i].length;
+        }
+
+        out.putInt(ids.length);
+        out.putInts(ids);
+        out.putInts(lengths);
+        for (byte[] name : names)
+            if (name != null)
+                out.putBytes(name);
+    }
+
+    /**
+     * Reads the names of every entity
+     *
+     * @param in The {@link Input} to read from
+     * @param count The number of entities
+     *
+     * @return Every name
+     */
+    private static String[] readNames(Input in, int count) throws IOException {
+        int[] lengths = in.getInts(count);
+        String[] names = new String[count];
+
+        for (int i = 0; i < count; i++)
+            if (lengths[i] >= 0)
+                names[i] = new String(in.getBytes(lengths[i]), StandardCharsets.UTF_8);
+
+        return names;
+    }
+
+    /**
+     * Reads the names of every entity into a {@link NameDictionary}
+     *
+     * @param in The {@link Input} to read from
+     * @param count The number of entities
+     * @param names The {@link NameDictionary}
+     *
+     * @return The handle of the name of every entity
+     */
+    private static int[] readHandles(Input in, int count, NameDictionary names) throws IOException {
+        int[] lengths = in.getInts(count);
+        int total = 0;
+        for (int length : lengths)
+            total += Math.max(length, 0);
+
+        return names.addAll(lengths, in.getBytes(total));
+    }
+
+    /**
+     * Writes a correlation as the number of targets of every source followed by the positions of every target
+     *
+     * @param out The {@link Output} to write to
+     * @param sources Every source entity
+     * @param targets Every possible target entity
+     * @param func A {@link Function} returning the targets of a source
+     */
+    private static <S extends Parent, T extends Parent> void writeCorrelations(Output out, List<S> sources, List<T> targets,
+                                                                              Function<S, List<? extends T>> func) throws IOException {
+        int[] counts = new int[sources.size()];
+        int total = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            for (T t : func.apply(sources.get(i)))
+                if (Database.indexOf(targets, t) >= 0)
+                    counts[i]++;
+            total += counts[i];
+        }
+
+        int[] positions = new int[total];
+        int pos = 0;
+        for (S s : sources)
+            for (T t : func.apply(s)) {
+                int index = Database.indexOf(targets, t);
+                if (index >= 0)
+                    positions[pos++] = index;
+            }
+
+        out.putInts(counts);
+        out.putInts(positions);
+    }
+
+    /**
+     * Converts the number of targets of every source to the start of their rows
+     *
+     * @param counts The number of targets of every source
+     *
+     * @return The start of the row of every source, followed by the number of targets
+     */
+    private static int[] offsets(int[] counts) {
+        int[] offsets = new int[counts.length + 1];
+        for (int i = 0; i < counts.length; i++)
+            offsets[i + 1] = offsets[i] + counts[i];
+        return offsets;
+    }
+
+    /**
+     * Get the sum of every number
+     *
+     * @param values The numbers
+     *
+     * @return The sum
+     */
+    private static int sum(int[] values) {
+        int sum = 0;
+        for (int v : values)
+            sum += v;
+        return sum;
+    }
+
+    /**
+     * Writes primitives in bulk to a {@link FileChannel}
+     */
+    private static class Output implements AutoCloseable {
+        /**
+         * The {@link FileChannel} of the file
+         */
+        private final FileChannel channel;
+
+        /**
+         * The buffer which is written to the file once it's full
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        /**
+         * Creates a new instance writing to the provided {@link FileChannel}
+         *
+         * @param channel The {@link FileChannel} of the file
+         */
+        private Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Writes a single int
+         *
+         * @param value The int to write
+         */
+        private void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        /**
+         * Writes every int of an array
+         *
+         * @param values The ints to write
+         */
+        private void putInts(int[] values) throws IOException {
+            for (int pos = 0; pos < values.length; ) {
+                ensure(Integer.BYTES);
+                int count = Math.min(values.length - pos, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, pos, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                pos += count;
+            }
+        }
+
+        /**
+         * Writes every byte of an array
+         *
+         * @param values The bytes to write
+         */
+        private void putBytes(byte[] values) throws IOException {
+            for (int pos = 0; pos < values.length; ) {
+                ensure(1);
+                int count = Math.min(values.length - pos, buffer.remaining());
+                buffer.put(values, pos, count);
+                pos += count;
+            }
+        }
+
+        /**
+         * Writes the buffer to the file, if there are less than the provided number of bytes left
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                flush();
+        }
+
+        /**
+         * Writes the content of the buffer to the file
+         */
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (channel) {
+                flush();
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * Reads primitives in bulk from a {@link FileChannel}
+     */
+    private static class Input implements AutoCloseable {
+        /**
+         * The {@link FileChannel} of the file
+         */
+        private final FileChannel channel;
+
+        /**
+         * The buffer containing the next bytes of the file
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        /**
+         * Creates a new instance reading from the provided {@link FileChannel}
+         *
+         * @param channel The {@link FileChannel} of the file
+         */
+        private Input(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        /**
+         * Reads a single int
+         *
+         * @return The read int
+         */
+        private int getInt() throws IOException {
+            ensure(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        /**
+         * Reads an array of ints
+         *
+         * @param count The number of ints to read
+         *
+         * @return The read ints
+         */
+        private int[] getInts(int count) throws IOException {
+            int[] values = new int[count];
+            for (int pos = 0; pos < count; ) {
+                ensure(Integer.BYTES);
+                int n = Math.min(count - pos, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().get(values, pos, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                pos += n;
+            }
+            return values;
+        }
+
+        /**
+         * Reads an array of bytes
+         *
+         * @param count The number of bytes to read
+         *
+         * @return The read bytes
+         */
+        private byte[] getBytes(int count) throws IOException {
+            byte[] values = new byte[count];
+            for (int pos = 0; pos < count; ) {
+                ensure(1);
+                int n = Math.min(count - pos, buffer.remaining());
+                buffer.get(values, pos, n);
+                pos += n;
+            }
+            return values;
+        }
+
+        /**
+         * Reads the next part of the file, if there are less than the provided number of bytes left
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes)
+                return;
+
+            buffer.compact();
+            while (buffer.position() < bytes)
+                if (channel.read(buffer) < 0)
+                    throw new IOException("Der Snapshot ist unvollstaendig!");
+            buffer.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
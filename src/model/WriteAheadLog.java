@@ -0,0 +1,729 @@
+package model;
+
+import util.Gender;
+import util.IntList;
+import util.exceptions.NoSuchCompanyException;
+import util.exceptions.NoSuchPersonException;
+import util.exceptions.NoSuchProductException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only binary log of every change of a {@link Database}
+ * <p>
+ * Every change of an entity which is part of the {@link Database} is appended to the log as a small record
+ * containing the {@code id's} of the changed entities. When the log is opened, its records are replayed
+ * on top of the loaded {@link Database}, so a {@link Snapshot} plus the log always contain every logged change.
+ * Replaying a record twice doesn't change the {@link Database} again, so the log can safely be replayed on top of
+ * a {@link Snapshot} which already contains some of its records.
+ * <p>
+ * Records are collected in memory and written to the file in groups. Threads waiting for their records to
+ * become durable share a single {@code fsync}, the {@link Durability} decides when a thread has to wait.
+ * Every record is protected by a checksum, a record which was only partially written is dropped on the next start.
+ */
+public class WriteAheadLog implements Closeable {
+    /**
+     * Decides when the records are forced to the disk
+     */
+    public enum Durability {
+        /**
+         * Every change returns after its record is on the disk, concurrent changes share an {@code fsync}
+         */
+        ALWAYS,
+
+        /**
+         * The records are forced to the disk in a fixed interval, changes of the last interval may be lost
+         */
+        INTERVAL,
+
+        /**
+         * The records are only forced to the disk on {@link #sync()} and {@link #close()}
+         */
+        NONE
+    }
+
+    /**
+     * Identifies a log file
+     */
+    private static final int MAGIC = 0x5044424C;
+
+    /**
+     * The version of the file format, has to be increased with every change of the format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the file header
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * The number of collected bytes after which they are written to the file without forcing them to the disk
+     */
+    private static final int WRITE_THRESHOLD = 1 << 16;
+
+    /**
+     * The types of records
+     */
+    private static final byte ADD_PERSON = 1, ADD_PRODUCT = 2, ADD_COMPANY = 3, ADD_FRIEND = 4, REMOVE_FRIEND = 5,
+            BUY_PRODUCT = 6, ADD_COMPANY_PRODUCT = 7, REMOVE_COMPANY_PRODUCT = 8, SET_MADE_BY = 9,
+            RENAME_PERSON = 10, RENAME_PRODUCT = 11, RENAME_COMPANY = 12, SET_GENDER = 13, CLEAR_MADE_BY = 14,
+            SET_PERSON_ID = 15, SET_PRODUCT_ID = 16, SET_COMPANY_ID = 17;
+
+    /**
+     * The number of bytes read from the file at once while replaying it
+     */
+    private static final int READ_SIZE = 1 << 16;
+
+    /**
+     * The {@link Database} whose changes are logged
+     */
+    private final Database database;
+
+    /**
+     * The file of the log
+     */
+    private final FileChannel channel;
+
+    /**
+     * Decides when the records are forced to the disk
+     */
+    private final Durability durability;
+
+    /**
+     * Forces the records to the disk in a fixed interval, or null if the {@link Durability} isn't {@link Durability#INTERVAL}
+     */
+    private final ScheduledExecutorService syncer;
+
+    /**
+     * Contains the records which weren't written to the file yet
+     */
+    private ByteBuffer pending = ByteBuffer.allocate(WRITE_THRESHOLD * 2);
+
+    /**
+     * A second buffer, which is swapped with the pending buffer while it's written, or null while it's in use
+     */
+    private ByteBuffer spare = ByteBuffer.allocate(WRITE_THRESHOLD * 2);
+
+    /**
+     * Represent the number of bytes which were appended, written to the file and forced to the disk
+     */
+    private long appended, written, synced;
+
+    /**
+     * Represents whether a thread is writing to the file right now
+     */
+    private boolean flushing;
+
+    /**
+     * Used to calculate the checksum of every record
+     */
+    private final CRC32 checksum = new CRC32();
+
+    /**
+     * Represents the number of records which were replayed when the log was opened
+     */
+    private final int replayed;
+
+    /**
+     * Opens a log
+     *
+     * @param database The {@link Database}
+     * @param channel The file of the log, positioned after the last valid record
+     * @param durability Decides when the records are forced to the disk
+     * @param interval The interval in milliseconds used by {@link Durability#INTERVAL}
+     * @param replayed The number of replayed records
+     */
+    private WriteAheadLog(Database database, FileChannel channel, Durability durability, long interval, int replayed) {
+        this.database = database;
+        this.channel = channel;
+        this.durability = durability;
+        this.replayed = replayed;
+
+        if (durability == Durability.INTERVAL) {
+            syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "wal-sync");
+                t.setDaemon(true);
+                return t;
+            });
+            syncer.scheduleWithFixedDelay(() -> {
+                try {
+                    sync();
+                } catch (IOException e) {
+                    System.err.println("Das Log konnte nicht geschrieben werden: " + e.getMessage());
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        } else
+            syncer = null;
+    }
+
+    /**
+     * Replays a log on top of a {@link Database} and logs every following change of the {@link Database}
+     * A missing log is created
+     *
+     * @param db The {@link Database}, which mustn't be logged already
+     * @param file The path to the log
+     * @param durability Decides when the records are forced to the disk
+     * @param interval The interval in milliseconds used by {@link Durability#INTERVAL}
+     *
+     * @return The opened log
+     *
+     * @throws IOException If the log can't be read or written
+     */
+    public static WriteAheadLog open(Database db, String file, Durability durability, long interval) throws IOException {
+        if (db.log != null)
+            throw new IllegalStateException("Die Datenbank wird bereits protokolliert!");
+        if (durability == Durability.INTERVAL && interval <= 0)
+            throw new IllegalArgumentException("Das Intervall muss positiv sein!");
+
+        FileChannel channel = FileChannel.open(Path.of(file), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int replayed = 0;
+
+            if (channel.size() == 0) {
+                // Write the header of a new log
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+                while (header.hasRemaining())
+                    channel.write(header);
+                channel.force(false);
+            } else
+                replayed = replay(db, channel, file);
+
+            // Drop a partially written record at the end
+            channel.truncate(channel.position());
+
+            WriteAheadLog log = new WriteAheadLog(db, channel, durability, interval, replayed);
+            db.log = log;
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the number of records which were replayed when the log was opened
+     *
+     * @return The number of records
+     */
+    public int getReplayed() {
+        return replayed;
+    }
+
+    /**
+     * Forces every record to the disk
+     *
+     * @throws IOException If the records can't be written
+     */
+    public void sync() throws IOException {
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+        flush(target, true);
+    }
+
+    /**
+     * Writes a {@link Snapshot} of the {@link Database} and empties the log afterwards
+     * The {@link Database} mustn't be changed during the checkpoint
+     *
+     * @param snapshot The path to the {@link Snapshot}
+     *
+     * @throws IOException If the {@link Snapshot} or the log can't be written
+     */
+    public synchronized void checkpoint(String snapshot) throws IOException {
+        sync();
+        Snapshot.write(database, snapshot);
+
+        // A thread may still be writing later records, which mustn't end up behind the truncation
+        while (flushing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Das Warten auf das Log wurde unterbrochen!");
+            }
+        }
+
+        // The snapshot contains every record now
+        channel.truncate(HEADER_SIZE);
+        channel.position(HEADER_SIZE);
+        channel.force(false);
+    }
+
+    /**
+     * Forces every record to the disk, closes the file and stops logging the changes of the {@link Database}
+     *
+     * @throws IOException If the records can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        // Interrupting the syncer would close the file, so a running sync has to finish instead
+        if (syncer != null) {
+            syncer.shutdown();
+            try {
+                syncer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        try {
+            sync();
+        } finally {
+            if (database.log == this)
+                database.log = null;
+            channel.close();
+        }
+    }
+
+    /**
+     * Logs a new {@link Person} and the friends and products of the {@link Database}, which it already has
+     *
+     * @param p The {@link Person}
+     */
+    void addPerson(Person p) {
+        Gender gender = p.getGender();
+        append(ADD_PERSON, p.getId(), gender == null ? -1 : gender.ordinal(), p.getName());
+
+        // Friendships are logged for both people, because they were added to both of them
+        for (Person friend : p.getFriends()) {
+            addFriend(p, friend);
+            if (friend != p && friend.hasFriend(p))
+                addFriend(friend, p);
+        }
+        for (Product product : p.getProducts())
+            buyProduct(p, product);
+    }
+
+    /**
+     * Logs a new {@link Product} and the {@link Company} and owners of the {@link Database}, which it already has
+     *
+     * @param p The {@link Product}
+     * @param owners The positions of the people of the {@link Database}, who bought the {@link Product} before it was added,
+     *               or null if there are none
+     */
+    void addProduct(Product p, IntList owners) {
+        append(ADD_PRODUCT, p.getId(), 0, p.getName());
+
+        Company c = p.getMadeBy();
+        if (c != null) {
+            setMadeBy(p);
+            if (c.getProducts().contains(p))
+                addCompanyProduct(c, p);
+        }
+        for (int i = 0; owners != null && i < owners.size(); i++)
+            buyProduct(database.getPeople().get(owners.get(i)), p);
+    }
+
+    /**
+     * Logs a new {@link Company} and the products of the {@link Database}, which it already has
+     *
+     * @param c The {@link Company}
+     * @param made The positions of the products of the {@link Database}, which were made by the {@link Company}
+     *             before it was added, or null if there are none
+     */
+    void addCompany(Company c, IntList made) {
+        append(ADD_COMPANY, c.getId(), 0, c.getName());
+
+        for (Product product : c.getProducts())
+            addCompanyProduct(c, product);
+        for (int i = 0; made != null && i < made.size(); i++) {
+            Product product = database.getProducts().get(made.get(i));
+            if (product.getMadeBy() == c)
+                setMadeBy(product);
+        }
+    }
+
+    /**
+     * Logs a new friend of a {@link Person}
+     *
+     * @param p The {@link Person}
+     * @param friend The new friend
+     */
+    void addFriend(Person p, Person friend) {
+        if (contains(database.getPeople(), p, friend))
+            append(ADD_FRIEND, p.getId(), friend.getId(), null);
+    }
+
+    /**
+     * Logs a removed friendship
+     *
+     * @param p The {@link Person}
+     * @param friend The removed friend
+     */
+    void removeFriend(Person p, Person friend) {
+        if (contains(database.getPeople(), p, friend))
+            append(REMOVE_FRIEND, p.getId(), friend.getId(), null);
+    }
+
+    /**
+     * Logs a bought {@link Product}
+     *
+     * @param p The {@link Person}
+     * @param product The bought {@link Product}
+     */
+    void buyProduct(Person p, Product product) {
+        if (Database.indexOf(database.getPeople(), p) >= 0 && Database.indexOf(database.getProducts(), product) >= 0)
+            append(BUY_PRODUCT, p.getId(), product.getId(), null);
+    }
+
+    /**
+     * Logs a new {@link Product} of a {@link Company}
+     *
+     * @param c The {@link Company}
+     * @param product The new {@link Product}
+     */
+    void addCompanyProduct(Company c, Product product) {
+        if (Database.indexOf(database.getCompanies(), c) >= 0 && Database.indexOf(database.getProducts(), product) >= 0)
+            append(ADD_COMPANY_PRODUCT, c.getId(), product.getId(), null);
+    }
+
+    /**
+     * Logs a removed {@link Product} of a {@link Company}
+     *
+     * @param c The {@link Company}
+     * @param product The removed {@link Product}
+     */
+    void removeCompanyProduct(Company c, Product product) {
+        if (Database.indexOf(database.getCompanies(), c) >= 0 && Database.indexOf(database.getProducts(), product) >= 0)
+            append(REMOVE_COMPANY_PRODUCT, c.getId(), product.getId(), null);
+    }
+
+    /**
+     * Logs the new {@link Company} of a {@link Product}
+     *
+     * @param p The {@link Product}
+     */
+    void setMadeBy(Product p) {
+        Company c = p.getMadeBy();
+        if (Database.indexOf(database.getProducts(), p) >= 0 && (c == null || Database.indexOf(database.getCompanies(), c) >= 0))
+            append(c == null ? CLEAR_MADE_BY : SET_MADE_BY, p.getId(), c == null ? 0 : c.getId(), null);
+    }
+
+    /**
+     * Logs the new name of an entity
+     *
+     * @param p The renamed entity
+     */
+    void setName(Parent p) {
+        if (p instanceof Person && Database.indexOf(database.getPeople(), p) >= 0)
+            append(RENAME_PERSON, p.getId(), 0, p.getName());
+        else if (p instanceof Product && Database.indexOf(database.getProducts(), p) >= 0)
+            append(RENAME_PRODUCT, p.getId(), 0, p.getName());
+        else if (p instanceof Company && Database.indexOf(database.getCompanies(), p) >= 0)
+            append(RENAME_COMPANY, p.getId(), 0, p.getName());
+    }
+
+    /**
+     * Logs the new {@code id} of an entity, which is part of the {@link Database}
+     *
+     * @param p The changed entity
+     * @param previous The previous {@code id}
+     */
+    void setId(Parent p, int previous) {
+        byte type = p instanceof Person ? SET_PERSON_ID : p instanceof Product ? SET_PRODUCT_ID : SET_COMPANY_ID;
+        append(type, previous, p.getId(), null);
+    }
+
+    /**
+     * Logs the new {@link Gender} of a {@link Person}
+     *
+     * @param p The {@link Person}
+     */
+    void setGender(Person p) {
+        Gender gender = p.getGender();
+        if (Database.indexOf(database.getPeople(), p) >= 0)
+            append(SET_GENDER, p.getId(), gender == null ? -1 : gender.ordinal(), null);
+    }
+
+    /**
+     * Checks whether two people are part of the {@link Database}
+     *
+     * @param people Every {@link Person} of the {@link Database}
+     * @param p1 The first {@link Person}
+     * @param p2 The second {@link Person}
+     *
+     * @return {@code true} if both are part of the {@link Database}, {@code false} otherwise
+     */
+    private static boolean contains(List<Person> people, Person p1, Person p2) {
+        return Database.indexOf(people, p1) >= 0 && Database.indexOf(people, p2) >= 0;
+    }
+
+    /**
+     * Appends a record and waits until it's durable, if the {@link Durability} demands it
+     * Every record consists of its length, its type, two ints, an optional {@link String} and a checksum
+     *
+     * @param type The type of the record
+     * @param a The first int
+     * @param b The second int
+     * @param text The {@link String}, or null
+     */
+    private void append(byte type, int a, int b, String text) {
+        byte[] bytes = text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 4 + 4 + 4 + (bytes == null ? 0 : bytes.length);
+
+        long target;
+        boolean write;
+        synchronized (this) {
+            if (pending.remaining() < length + 8) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + length + 8));
+                pending.flip();
+                pending = bigger.put(pending);
+            }
+
+            int start = pending.position();
+            pending.putInt(length).put(type).putInt(a).putInt(b).putInt(bytes == null ? -1 : bytes.length);
+            if (bytes != null)
+                pending.put(bytes);
+
+            checksum.reset();
+            checksum.update(pending.array(), start + 4, length);
+            pending.putInt((int) checksum.getValue());
+
+            appended += pending.position() - start;
+            target = appended;
+            write = pending.position() >= WRITE_THRESHOLD;
+        }
+
+        try {
+            if (durability == Durability.ALWAYS)
+                flush(target, true);
+            else if (write)
+                flush(target, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Das Log konnte nicht geschrieben werden!", e);
+        }
+    }
+
+    /**
+     * Writes every collected record to the file
+     * If another thread is writing already, this thread waits for it and only writes the records which are still missing
+     *
+     * @param target The number of bytes which have to be written
+     * @param force {@code true} if the bytes have to be forced to the disk
+     *
+     * @throws IOException If the records can't be written
+     */
+    private void flush(long target, boolean force) throws IOException {
+        ByteBuffer batch;
+        long end;
+
+        synchronized (this) {
+            // Wait for the thread, which is writing right now
+            while ((force ? synced : written) < target && flushing) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Das Warten auf das Log wurde unterbrochen!");
+                }
+            }
+
+            if ((force ? synced : written) >= target)
+                return;
+
+            // Write every collected record, including the ones of other threads
+            flushing = true;
+            batch = pending;
+            pending = spare;
+            spare = null;
+            end = appended;
+        }
+
+        boolean success = false;
+        try {
+            batch.flip();
+            while (batch.hasRemaining())
+                channel.write(batch);
+            if (force)
+                channel.force(false);
+            success = true;
+        } finally {
+            synchronized (this) {
+                batch.clear();
+                spare = batch;
+                if (success) {
+                    written = end;
+                    if (force)
+                        synced = end;
+                }
+                flushing = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Replays every valid record of a log
+     * The log is read in small parts, so its size doesn't matter
+     *
+     * @param db The {@link Database}
+     * @param channel The file of the log, which is positioned after the last valid record afterwards
+     * @param file The path to the log
+     *
+     * @return The number of replayed records
+     *
+     * @throws IOException If the log can't be read
+     */
+    private static int replay(Database db, FileChannel channel, String file) throws IOException {
+        long size = channel.size();
+        channel.position(0);
+        ByteBuffer in = read(channel, ByteBuffer.allocate(READ_SIZE).flip(), HEADER_SIZE);
+
+        if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC)
+            throw new IOException("Die Datei '" + file + "' ist kein Log!");
+        if (in.getInt() != VERSION)
+            throw new IOException("Das Log '" + file + "' hat eine veraltete Version!");
+
+        CRC32 checksum = new CRC32();
+        Gender[] genders = Gender.values();
+        int count = 0;
+
+        // The position in the file after the last valid record
+        long end = HEADER_SIZE;
+
+        while (true) {
+            in = read(channel, in, 4);
+            if (in.remaining() < 4)
+                break;
+
+            // Stop at a partially written record
+            int length = in.getInt(in.position());
+            if (length < 13 || end + 4 + length + 4 > size)
+                break;
+            in = read(channel, in, 4 + length + 4);
+            if (in.remaining() < 4 + length + 4)
+                break;
+
+            int start = in.position();
+            checksum.reset();
+            checksum.update(in.array(), start + 4, length);
+            if (in.getInt(start + 4 + length) != (int) checksum.getValue())
+                break;
+
+            in.getInt();
+            byte type = in.get();
+            int a = in.getInt();
+            int b = in.getInt();
+            int textLength = in.getInt();
+            String text = null;
+            if (textLength >= 0) {
+                text = new String(in.array(), in.position(), textLength, StandardCharsets.UTF_8);
+                in.position(in.position() + textLength);
+            }
+            in.getInt();
+            end += 4 + length + 4;
+
+            try {
+                apply(db, type, a, b, text, genders);
+            } catch (NoSuchPersonException | NoSuchProductException | NoSuchCompanyException e) {
+                System.err.println("Fehlerhafter Eintrag im Log '" + file + "'! " + e.getMessage());
+            }
+            count++;
+        }
+
+        if (end < size)
+            System.err.println("Das Log '" + file + "' endet mit einem unvollstaendigen Eintrag, der verworfen wird!");
+
+        channel.position(end);
+        return count;
+    }
+
+    /**
+     * Makes sure a buffer contains a number of unread bytes, as long as the file contains them
+     * The unread bytes are moved to the start of the buffer and the rest of it is filled from the file
+     *
+     * @param channel The file
+     * @param in The buffer, ready to be read
+     * @param count The number of bytes which are needed
+     *
+     * @return The buffer, or a bigger one if the bytes don't fit into it, ready to be read
+     *
+     * @throws IOException If the file can't be read
+     */
+    private static ByteBuffer read(FileChannel channel, ByteBuffer in, int count) throws IOException {
+        if (in.remaining() >= count)
+            return in;
+
+        if (in.capacity() < count)
+            in = ByteBuffer.allocate(count).put(in);
+        else
+            in.compact();
+
+        while (in.hasRemaining() && channel.read(in) >= 0);
+        return in.flip();
+    }
+
+    /**
+     * Applies a single record to a {@link Database}
+     *
+     * @param db The {@link Database}
+     * @param type The type of the record
+     * @param a The first int of the record
+     * @param b The second int of the record
+     * @param text The {@link String} of the record, or null
+     * @param genders Every {@link Gender}
+     *
+     * @throws NoSuchPersonException If the record refers to a missing {@link Person}
+     * @throws NoSuchProductException If the record refers to a missing {@link Product}
+     * @throws NoSuchCompanyException If the record refers to a missing {@link Company}
+     */
+    private static void apply(Database db, byte type, int a, int b, String text, Gender[] genders)
+            throws NoSuchPersonException, NoSuchProductException, NoSuchCompanyException {
+        switch (type) {
+            // New entities, which are already part of the database, were replayed before
+            case ADD_PERSON -> {
+                if (db.findPerson(a) == null)
+                    db.addPerson(a, new Person(a, text, b < 0 ? null : genders[b]));
+            }
+            case ADD_PRODUCT -> {
+                if (db.findProduct(a) == null)
+                    db.addProduct(a, new Product(a, text));
+            }
+            case ADD_COMPANY -> {
+                if (db.findCompany(a) == null)
+                    db.addCompany(a, new Company(a, text));
+            }
+            case ADD_FRIEND -> db.getPersonById(a).addFriend(db.getPersonById(b));
+            case REMOVE_FRIEND -> db.getPersonById(a).removeFriend(db.getPersonById(b));
+            case BUY_PRODUCT -> db.getPersonById(a).buyProduct(db.getProductById(b));
+            case ADD_COMPANY_PRODUCT -> db.getCompanyById(a).addProduct(db.getProductById(b));
+            case REMOVE_COMPANY_PRODUCT -> db.getCompanyById(a).removeProduct(db.getProductById(b));
+            case SET_MADE_BY -> db.getProductById(a).setMadeBy(db.getCompanyById(b));
+            case CLEAR_MADE_BY -> db.getProductById(a).setMadeBy(null);
+            case RENAME_PERSON -> db.getPersonById(a).setName(text);
+            case RENAME_PRODUCT -> db.getProductById(a).setName(text);
+            case RENAME_COMPANY -> db.getCompanyById(a).setName(text);
+            case SET_GENDER -> db.getPersonById(a).setGender(b < 0 ? null : genders[b]);
+
+            // A new id, which is already in use, was replayed before
+            case SET_PERSON_ID -> {
+                if (db.findPerson(b) == null)
+                    db.getPersonById(a).setId(b);
+            }
+            case SET_PRODUCT_ID -> {
+                if (db.findProduct(b) == null)
+                    db.getProductById(a).setId(b);
+            }
+            case SET_COMPANY_ID -> {
+                if (db.findCompany(b) == null)
+                    db.getCompanyById(a).setId(b);
+            }
+            default -> System.err.println("Unbekannter Eintrag im Log: " + type);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of non-negative ints in the style of a Roaring bitmap
+ * <p>
+ * The ints are split into chunks of 65536 by their upper 16 bits. Every chunk containing an int is stored in a container
+ * holding the lower 16 bits. Sparse chunks are stored as sorted arrays of chars, dense ones as bitmaps of 1024 longs.
+ * <p>
+ * Compared to a {@link java.util.List} of entities, a sparse set costs two bytes per int and a dense one an eighth of a byte.
+ */
+public class CompressedBitmap {
+    /**
+     * The maximal number of ints of an array container, bigger ones are stored as bitmaps
+     */
+    private static final int ARRAY_LIMIT = 4096;
+
+    /**
+     * The number of longs of a bitmap container
+     */
+    private static final int WORDS = 1024;
+
+    /**
+     * Contains the upper 16 bits of every chunk in ascending order
+     */
+    private char[] keys = new char[4];
+
+    /**
+     * Contains the container of every chunk based on the position of its key
+     */
+    private Container[] containers = new Container[4];
+
+    /**
+     * Represents the number of chunks
+     */
+    private int size;
+
+    /**
+     * Adds an int
+     *
+     * @param value The int to add
+     *
+     * @return {@code true} if the int was added, {@code false} if it was already part of the set
+     */
+    public boolean add(int value) {
+        if (value < 0)
+            throw new IllegalArgumentException("Negative Werte koennen nicht gespeichert werden!");
+
+        int pos = find((char) (value >>> 16));
+        if (pos < 0) {
+            pos = -pos - 1;
+            insert(pos, (char) (value >>> 16), new ArrayContainer(new char[4], 0));
+        }
+
+        Container c = containers[pos];
+        int before = c.cardinality();
+        containers[pos] = c.add((char) value);
+        return containers[pos].cardinality() != before;
+    }
+
+    /**
+     * Removes an int
+     *
+     * @param value The int to remove
+     *
+     * @return {@code true} if the int was removed, {@code false} if it wasn't part of the set
+     */
+    public boolean remove(int value) {
+        int pos = value < 0 ? -1 : find((char) (value >>> 16));
+        if (pos < 0 || !containers[pos].contains((char) value))
+            return false;
+
+        containers[pos] = containers[pos].remove((char) value);
+        if (containers[pos].cardinality() == 0)
+            delete(pos);
+        return true;
+    }
+
+    /**
+     * Checks whether an int is part of the set
+     *
+     * @param value The int in question
+     *
+     * @return {@code true} if the int is part of the set, {@code false} otherwise
+     */
+    public boolean contains(int value) {
+        int pos = value < 0 ? -1 : find((char) (value >>> 16));
+        return pos >= 0 && containers[pos].contains((char) value);
+    }
+
+    /**
+     * Checks whether the set is empty
+     *
+     * @return {@code true} if the set doesn't contain any int, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get every int of the set
+     *
+     * @return A new array containing every int in ascending order
+     */
+    public int[] toArray() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++)
+            cardinality += containers[i].cardinality();
+
+        int[] values = new int[cardinality];
+        int pos = 0;
+        for (int i = 0; i < size; i++)
+            pos = containers[i].fill(keys[i] << 16, values, pos);
+        return values;
+    }
+
+    /**
+     * Get the position of a chunk
+     *
+     * @param key The upper 16 bits of the chunk
+     *
+     * @return The position of the chunk, or {@code -(insertion point) - 1} if there is no such chunk
+     */
+    private int find(char key) {
+        // Ints are often added in ascending order
+        if (size > 0 && keys[size - 1] == key)
+            return size - 1;
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    /**
+     * Inserts a chunk
+     *
+     * @param pos The position of the chunk
+     * @param key The upper 16 bits of the chunk
+     * @param c The container of the chunk
+     */
+    private void insert(int pos, char key, Container c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+
+        System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+        System.arraycopy(containers, pos, containers, pos + 1, size - pos);
+        keys[pos] = key;
+        containers[pos] = c;
+        size++;
+    }
+
+    /**
+     * Deletes a chunk
+     *
+     * @param pos The position of the chunk
+     */
+    private void delete(int pos) {
+        System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+        System.arraycopy(containers, pos + 1, containers, pos, size - pos - 1);
+        containers[--size] = null;
+    }
+
+    /**
+     * The lower 16 bits of the ints of a chunk
+     * Changing operations may change the container itself and return the container, which has to be used afterwards
+     */
+    private abstract static class Container {
+        /**
+         * Get the number of ints
+         *
+         * @return The number of ints
+         */
+        abstract int cardinality();
+
+        /**
+         * Checks whether an int is part of the container
+         *
+         * @param value The lower 16 bits of the int
+         *
+         * @return {@code true} if the int is part of the container, {@code false} otherwise
+         */
+        abstract boolean contains(char value);
+
+        /**
+         * Adds an int
+         *
+         * @param value The lower 16 bits of the int
+         *
+         * @return The container containing the int
+         */
+        abstract Container add(char value);
+
+        /**
+         * Removes an int
+         *
+         * @param value The lower 16 bits of the int
+         *
+         * @return The container without the int
+         */
+        abstract Container remove(char value);
+
+        /**
+         * Writes every int into an array
+         *
+         * @param high The upper 16 bits of the ints
+         * @param values The array
+         * @param pos The position of the first int in the array
+         *
+         * @return The position after the last int
+         */
+        abstract int fill(int high, int[] values, int pos);
+
+        /**
+         * Creates a bitmap container containing the same ints
+         *
+         * @return A new bitmap container
+         */
+        abstract BitmapContainer toBitmap();
+    }
+
+    /**
+     * A container storing the lower 16 bits of at most {@value #ARRAY_LIMIT} ints as a sorted array
+     */
+    private static final class ArrayContainer extends Container {
+        /**
+         * Contains every int in ascending order, followed by unused capacity
+         */
+        private char[] values;
+
+        /**
+         * Represents the number of ints
+         */
+        private int cardinality;
+
+        /**
+         * Creates a new container
+         *
+         * @param values The ints in ascending order
+         * @param cardinality The number of ints
+         */
+        private ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        /**
+         * Creates an array container containing the ints of another container
+         *
+         * @param c The other container
+         *
+         * @return The new container
+         */
+        private static ArrayContainer of(Container c) {
+            int[] ints = new int[c.cardinality()];
+            c.fill(0, ints, 0);
+            char[] values = new char[ints.length];
+            for (int i = 0; i < ints.length; i++)
+                values[i] = (char) ints[i];
+            return new ArrayContainer(values, values.length);
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        Container add(char value) {
+            // Ints are often added in ascending order
+            int pos = cardinality > 0 && values[cardinality - 1] < value
+                    ? -cardinality - 1
+                    : Arrays.binarySearch(values, 0, cardinality, value);
+            if (pos >= 0)
+                return this;
+            if (cardinality == ARRAY_LIMIT)
+                return toBitmap().add(value);
+
+            pos = -pos - 1;
+            if (cardinality == values.length)
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality * 2));
+            System.arraycopy(values, pos, values, pos + 1, cardinality - pos);
+            values[pos] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int pos = Arrays.binarySearch(values, 0, cardinality, value);
+            if (pos >= 0) {
+                System.arraycopy(values, pos + 1, values, pos, cardinality - pos - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        int fill(int high, int[] ints, int pos) {
+            for (int i = 0; i < cardinality; i++)
+                ints[pos++] = high | values[i];
+            return pos;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            long[] words = new long[WORDS];
+            for (int i = 0; i < cardinality; i++)
+                words[values[i] >>> 6] |= 1L << values[i];
+            return new BitmapContainer(words, cardinality);
+        }
+    }
+
+    /**
+     * A container storing the lower 16 bits of the ints as a bitmap of 65536 bits
+     */
+    private static final class BitmapContainer extends Container {
+        /**
+         * Contains every bit
+         */
+        private final long[] words;
+
+        /**
+         * Represents the number of set bits
+         */
+        private int cardinality;
+
+        /**
+         * Creates a new container
+         *
+         * @param words The bits
+         * @param cardinality The number of set bits
+         */
+        private BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container add(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before | (1L << value);
+            if (before != words[value >>> 6])
+                cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before & ~(1L << value);
+            if (before != words[value >>> 6])
+                cardinality--;
+            return cardinality <= ARRAY_LIMIT ? ArrayContainer.of(this) : this;
+        }
+
+        @Override
+        int fill(int high, int[] ints, int pos) {
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    ints[pos++] = high | (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return pos;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+    }
+}
@@ -11,8 +11,8 @@ import java.util.Comparator;
  */
 public class CustomComparator<T extends Parent> implements Comparator<T> {
     /**
-     * Compares subclasses of {@link Parent} by using their {@linkplain Parent#getName()} method
-     * Use {@linkplain String#toLowerCase()} to implement correct sorting order
+     * Compares subclasses of {@link Parent} by using their {@linkplain Parent#getSortKey()} method
+     * The sort key is the cached lowercase {@linkplain Parent#getName()} to implement correct sorting order
      *
      * @param o1 First object
      * @param o2 Second object
@@ -25,6 +25,6 @@ public class CustomComparator<T extends Parent> implements Comparator<T> {
      */
     @Override
     public int compare(T o1, T o2) {
-        return o1.getName().toLowerCase().compareTo(o2.getName().toLowerCase());
+        return o1.getSortKey().compareTo(o2.getSortKey());
     }
 }
@@ -25,6 +25,20 @@ public enum Gender {
      * @throws UnknownGenderException If the provided {@link String} can't be parsed to a gender
      */
     public static Gender getGenderFromString(String s) throws UnknownGenderException {
+        Gender gender = fromString(s);
+        if (gender == null)
+            throw new UnknownGenderException(UnknownGenderException.message(s.strip()));
+        return gender;
+    }
+
+    /**
+     * Converts a {@link String} to a {@link Gender} without throwing an exception
+     *
+     * @param s The {@link String} which should be converted to a {@link Gender}
+     *
+     * @return The associated {@link Gender}, or null if the {@link String} can't be parsed to a gender
+     */
+    public static Gender fromString(String s) {
         // Remove leading and trailing spaces
         s = s.strip();
 
@@ -33,6 +47,6 @@ public enum Gender {
         else if ("female".equalsIgnoreCase(s))
             return FEMALE;
         else
-            throw new UnknownGenderException("Das angegebene Geschlecht '" + s + "' kann nicht verarbeitet werden.");
+            return null;
     }
 }
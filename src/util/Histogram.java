@@ -0,0 +1,207 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values, like durations in nanoseconds or sizes, which can be updated by many threads without locking
+ * <p>
+ * Every power of two is split into {@value #SUB_BUCKETS} buckets of the same width, so every recorded value
+ * is known with a relative error below 7%, no matter how big it is. The histogram never allocates after it was created.
+ */
+public class Histogram implements HistogramMXBean {
+    /**
+     * The number of buckets per power of two, has to be a power of two
+     */
+    private static final int SUB_BUCKETS = 16;
+
+    /**
+     * The number of bits needed to address a bucket within a power of two
+     */
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    /**
+     * The name of the histogram
+     */
+    private final String name;
+
+    /**
+     * Contains the number of recorded values of every bucket
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+
+    /**
+     * Represent the number and the sum of the recorded values
+     */
+    private final LongAdder count = new LongAdder(), sum = new LongAdder();
+
+    /**
+     * Represents the biggest recorded value
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Creates a new, empty histogram
+     *
+     * @param name The name of the histogram
+     */
+    public Histogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a value, negative values are recorded as 0
+     *
+     * @param value The value
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+
+        buckets.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Another thread recorded a new maximum at the same time
+        }
+    }
+
+    /**
+     * Records the time since a call of {@link System#nanoTime()}
+     *
+     * @param start The result of {@link System#nanoTime()}
+     */
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    /**
+     * Get the name of the histogram
+     *
+     * @return The name
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    @Override
+    public long getMax() {
+        return max.get();
+    }
+
+    @Override
+    public long getP50() {
+        return getPercentile(50);
+    }
+
+    @Override
+    public long getP90() {
+        return getPercentile(90);
+    }
+
+    @Override
+    public long getP99() {
+        return getPercentile(99);
+    }
+
+    @Override
+    public long getP999() {
+        return getPercentile(99.9);
+    }
+
+    /**
+     * Get the value, which is bigger than or equal to a percentage of the recorded values
+     * The result is the upper bound of the bucket containing the value, but never bigger than the maximum
+     *
+     * @param percentile The percentage between 0 and 100
+     *
+     * @return The value, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++)
+            total += buckets.get(i);
+        if (total == 0)
+            return 0;
+
+        // Find the bucket containing the value
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank)
+                return Math.min(upperBound(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Removes every recorded value
+     * Values recorded at the same time may be partially kept
+     */
+    @Override
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++)
+            buckets.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Get a summary of the histogram in a single line
+     *
+     * @return The summary
+     */
+    @Override
+    public String toString() {
+        return name + ": count=" + getCount() + " mean=" + Math.round(getMean()) + " p50=" + getP50()
+                + " p90=" + getP90() + " p99=" + getP99() + " p99.9=" + getP999() + " max=" + getMax();
+    }
+
+    /**
+     * Get the bucket of a value
+     *
+     * @param value The non-negative value
+     *
+     * @return The index of the bucket
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        // Values of the same power of two share the same shift
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Get the biggest value of a bucket
+     *
+     * @param bucket The index of the bucket
+     *
+     * @return The biggest value
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,60 @@
+package util;
+
+/**
+ * The management interface of a {@link Histogram}, which is exported by {@link Metrics}
+ */
+public interface HistogramMXBean {
+    /**
+     * Get the number of recorded values
+     *
+     * @return The number of values
+     */
+    long getCount();
+
+    /**
+     * Get the mean of the recorded values
+     *
+     * @return The mean, or 0 if nothing was recorded
+     */
+    double getMean();
+
+    /**
+     * Get the biggest recorded value
+     *
+     * @return The biggest value, or 0 if nothing was recorded
+     */
+    long getMax();
+
+    /**
+     * Get the median of the recorded values
+     *
+     * @return The median
+     */
+    long getP50();
+
+    /**
+     * Get the 90th percentile of the recorded values
+     *
+     * @return The 90th percentile
+     */
+    long getP90();
+
+    /**
+     * Get the 99th percentile of the recorded values
+     *
+     * @return The 99th percentile
+     */
+    long getP99();
+
+    /**
+     * Get the 99.9th percentile of the recorded values
+     *
+     * @return The 99.9th percentile
+     */
+    long getP999();
+
+    /**
+     * Removes every recorded value
+     */
+    void reset();
+}
@@ -0,0 +1,344 @@
+package util;
+
+import model.Parent;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A {@link java.util.List} of distinct subclasses of {@link Parent}, which finds its elements in constant time
+ * <p>
+ * Small lists are searched linearly. Once a list grows beyond a few elements, the position of every element
+ * is stored in a hash table based on its identity, so the {@code id} of an element may change while it's part of the list.
+ * The elements keep the order they were added in, inserting an element moves the following elements
+ * like an {@link java.util.ArrayList} does. Removing an element moves the last element into its place instead,
+ * so removing takes constant time. An element which is already part of the list isn't added again,
+ * inserting or setting it at another position throws an {@link IllegalArgumentException}.
+ *
+ * @param <T> A TypeParameter restricting this class to children of the superclass {@link Parent}
+ */
+public class IndexedList<T extends Parent> extends AbstractList<T> implements RandomAccess {
+    /**
+     * The number of elements up to which the list is searched linearly
+     */
+    private static final int LINEAR_LIMIT = 8;
+
+    /**
+     * Contains every element, followed by unused capacity
+     */
+    private Object[] elements = new Object[4];
+
+    /**
+     * Represents the number of elements
+     */
+    private int size;
+
+    /**
+     * Contains every element of the hash table based on its slot, or null while the list is small
+     * The table uses open addressing with linear probing and is at most half full
+     */
+    private Object[] slots;
+
+    /**
+     * Contains the position of every element of the hash table based on its slot
+     */
+    private int[] positions;
+
+    /**
+     * Get the element at the provided position
+     *
+     * @param index The position of the element
+     *
+     * @return The element
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return (T) elements[index];
+    }
+
+    /**
+     * Get the number of elements
+     *
+     * @return The number of elements
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add an element to the end of the list, if it isn't already part of it
+     *
+     * @param element The element to add
+     *
+     * @return {@code true} if the element was added, {@code false} otherwise
+     */
+    @Override
+    public boolean add(T element) {
+        if (indexOf(element) >= 0)
+            return false;
+
+        insert(size, element);
+        return true;
+    }
+
+    /**
+     * Insert an element at the provided position, the following elements are moved back
+     *
+     * @param index The position of the new element
+     * @param element The element to insert
+     *
+     * @throws IllegalArgumentException If the element is already part of the list
+     */
+    @Override
+    public void add(int index, T element) {
+        Objects.checkIndex(index, size + 1);
+        if (indexOf(element) >= 0)
+            throw new IllegalArgumentException("Das Element ist bereits in der Liste enthalten!");
+
+        insert(index, element);
+    }
+
+    /**
+     * Replace the element at the provided position
+     *
+     * @param index The position of the element
+     * @param element The new element
+     *
+     * @return The replaced element
+     * @throws IllegalArgumentException If the new element is already part of the list at another position
+     */
+    @Override
+    public T set(int index, T element) {
+        T previous = get(index);
+        int pos = indexOf(element);
+        if (pos == index)
+            return previous;
+        if (pos >= 0)
+            throw new IllegalArgumentException("Das Element ist bereits in der Liste enthalten!");
+
+        Objects.requireNonNull(element);
+        elements[index] = element;
+        if (slots != null) {
+            unstore(previous);
+            store(element, index);
+        }
+        return previous;
+    }
+
+    /**
+     * Remove the element at the provided position, the last element is moved into its place
+     *
+     * @param index The position of the element
+     *
+     * @return The removed element
+     */
+    @Override
+    public T remove(int index) {
+        T element = get(index);
+        if (slots != null)
+            unstore(element);
+
+        // Close the gap with the last element
+        Object last = elements[--size];
+        elements[size] = null;
+        if (index < size) {
+            elements[index] = last;
+            if (slots != null)
+                store(last, index);
+        }
+        modCount++;
+        return element;
+    }
+
+    /**
+     * Remove an element, the last element is moved into its place
+     *
+     * @param o The element to remove
+     *
+     * @return {@code true} if the element was removed, {@code false} otherwise
+     */
+    @Override
+    public boolean remove(Object o) {
+        int pos = indexOf(o);
+        if (pos < 0)
+            return false;
+
+        remove(pos);
+        return true;
+    }
+
+    /**
+     * Checks whether the list contains an element
+     *
+     * @param o The element in question
+     *
+     * @return {@code true} if the element is part of the list, {@code false} otherwise
+     */
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Get the position of an element
+     *
+     * @param o The element in question
+     *
+     * @return The position of the element, or -1 if it isn't part of the list
+     */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Parent))
+            return -1;
+
+        if (slots != null) {
+            int mask = slots.length - 1;
+            for (int slot = slot(o, mask); slots[slot] != null; slot = (slot + 1) & mask)
+                if (slots[slot] == o)
+                    return positions[slot];
+            return -1;
+        }
+
+        for (int i = 0; i < size; i++)
+            if (elements[i] == o)
+                return i;
+        return -1;
+    }
+
+    /**
+     * Get the position of an element, every element is part of the list once
+     *
+     * @param o The element in question
+     *
+     * @return The position of the element, or -1 if it isn't part of the list
+     */
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    /**
+     * Sorts the elements, the elements can't be sorted element by element, because they are distinct
+     *
+     * @param c The {@link Comparator} to sort by, or null to use the natural order
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super T> c) {
+        Arrays.sort(elements, 0, size, (Comparator<Object>) c);
+        reindex(0);
+        modCount++;
+    }
+
+    /**
+     * Remove every element
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+        slots = null;
+        positions = null;
+        modCount++;
+    }
+
+    /**
+     * Inserts an element, which isn't part of the list yet
+     *
+     * @param index The position of the new element
+     * @param element The new element
+     */
+    private void insert(int index, T element) {
+        Objects.requireNonNull(element);
+        if (size == elements.length)
+            elements = Arrays.copyOf(elements, size * 2);
+
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = element;
+        size++;
+        reindex(index);
+        modCount++;
+    }
+
+    /**
+     * Stores the positions of every element starting at the provided position
+     * The map is created once the list is too big to be searched linearly
+     *
+     * @param from The position of the first moved element
+     */
+    private void reindex(int from) {
+        if (slots == null) {
+            if (size <= LINEAR_LIMIT)
+                return;
+            from = 0;
+        }
+
+        // Keep the table at most half full
+        if (slots == null || size * 2 > slots.length) {
+            slots = new Object[Integer.highestOneBit(size * 4 - 1) << 1];
+            positions = new int[slots.length];
+            from = 0;
+        }
+
+        for (int i = from; i < size; i++)
+            store(elements[i], i);
+    }
+
+    /**
+     * Stores the position of an element in the hash table, replacing its previous position
+     *
+     * @param element The element
+     * @param pos The position of the element
+     */
+    private void store(Object element, int pos) {
+        int mask = slots.length - 1;
+        int slot = slot(element, mask);
+        while (slots[slot] != null && slots[slot] != element)
+            slot = (slot + 1) & mask;
+
+        slots[slot] = element;
+        positions[slot] = pos;
+    }
+
+    /**
+     * Removes an element from the hash table
+     *
+     * @param element The element, which is part of the hash table
+     */
+    private void unstore(Object element) {
+        int mask = slots.length - 1;
+        int gap = slot(element, mask);
+        while (slots[gap] != element)
+            gap = (gap + 1) & mask;
+
+        // Move following elements of the same probe sequence into the gap
+        for (int next = (gap + 1) & mask; slots[next] != null; next = (next + 1) & mask) {
+            int home = slot(slots[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                slots[gap] = slots[next];
+                positions[gap] = positions[next];
+                gap = next;
+            }
+        }
+        slots[gap] = null;
+    }
+
+    /**
+     * Get the first slot of an element
+     *
+     * @param element The element
+     * @param mask The number of slots minus one
+     *
+     * @return The slot
+     */
+    private static int slot(Object element, int mask) {
+        int hash = System.identityHashCode(element) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,194 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive int keys to non-negative int values, which doesn't box its entries like a
+ * {@link java.util.Map} would
+ * <p>
+ * The entries are stored in two arrays using open addressing with linear probing.
+ */
+public class IntIntMap {
+    /**
+     * Represents a missing key
+     */
+    public static final int MISSING = -1;
+
+    /**
+     * Contains every key based on its slot
+     */
+    private int[] keys;
+
+    /**
+     * Contains every value increased by one based on its slot, 0 marks an empty slot
+     */
+    private int[] values;
+
+    /**
+     * Represents the number of entries
+     */
+    private int size;
+
+    /**
+     * Creates a new, empty map
+     *
+     * @param capacity The number of entries the map can hold without growing
+     */
+    public IntIntMap(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(capacity, 4) * 2 - 1) << 1;
+        keys = new int[slots];
+        values = new int[slots];
+    }
+
+    /**
+     * Get the value of a key
+     *
+     * @param key The key
+     *
+     * @return The value, or {@link #MISSING} if the key isn't part of the map
+     */
+    public int get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); values[slot] != 0; slot = (slot + 1) & mask)
+            if (keys[slot] == key)
+                return values[slot] - 1;
+        return MISSING;
+    }
+
+    /**
+     * Set the value of a key
+     *
+     * @param key The key
+     * @param value The new, non-negative value
+     */
+    public void put(int key, int value) {
+        if (value < 0)
+            throw new IllegalArgumentException("Negative Werte koennen nicht gespeichert werden!");
+
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value + 1;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value + 1;
+
+        // Keep the load factor at 1/2 at most
+        if (++size * 2 > keys.length)
+            grow();
+    }
+
+    /**
+     * Remove a key
+     *
+     * @param key The key
+     *
+     * @return The value of the key, or {@link #MISSING} if the key wasn't part of the map
+     */
+    public int remove(int key) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != 0 && keys[slot] != key)
+            slot = (slot + 1) & mask;
+
+        if (values[slot] == 0)
+            return MISSING;
+
+        int value = values[slot] - 1;
+        size--;
+
+        // Move following entries of the same probe sequence into the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        values[gap] = 0;
+
+        return value;
+    }
+
+    /**
+     * Get the number of entries
+     *
+     * @return The number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get every key
+     *
+     * @return A new array containing every key in no particular order
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int pos = 0;
+        for (int i = 0; i < keys.length; i++)
+            if (values[i] != 0)
+                result[pos++] = keys[i];
+        return result;
+    }
+
+    /**
+     * Get the number of slots, which is at least twice the number of entries
+     *
+     * @return The number of slots
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Remove every entry
+     */
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    /**
+     * Doubles the number of slots and moves every entry to its new slot
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == 0)
+                continue;
+
+            int slot = slot(oldKeys[i], mask);
+            while (values[slot] != 0)
+                slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Get the first slot of a key
+     *
+     * @param key The key
+     * @param mask The number of slots minus one
+     *
+     * @return The slot
+     */
+    private static int slot(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,133 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints, which doesn't box its elements like a {@link java.util.List} would
+ */
+public class IntList {
+    /**
+     * Contains every element, followed by unused capacity
+     */
+    private int[] values;
+
+    /**
+     * Represents the number of elements
+     */
+    private int size;
+
+    /**
+     * Creates a new, empty list
+     */
+    public IntList() {
+        this(4);
+    }
+
+    /**
+     * Creates a new, empty list with the provided capacity
+     *
+     * @param capacity The initial capacity
+     */
+    public IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Add an element to the end of the list
+     *
+     * @param value The element to add
+     */
+    public void add(int value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    /**
+     * Add an element to a list, which is sorted in ascending order, if it isn't already part of it
+     *
+     * @param value The element to add
+     *
+     * @return {@code true} if the element was added, {@code false} otherwise
+     */
+    public boolean addSorted(int value) {
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos >= 0)
+            return false;
+
+        pos = -pos - 1;
+        if (size == values.length)
+            values = Arrays.copyOf(values, size * 2);
+
+        System.arraycopy(values, pos, values, pos + 1, size - pos);
+        values[pos] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * Remove an element from a list, which is sorted in ascending order
+     *
+     * @param value The element to remove
+     *
+     * @return {@code true} if the element was removed, {@code false} otherwise
+     */
+    public boolean removeSorted(int value) {
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos < 0)
+            return false;
+
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Checks whether a list, which is sorted in ascending order, contains an element
+     *
+     * @param value The element in question
+     *
+     * @return {@code true} if the element is part of the list, {@code false} otherwise
+     */
+    public boolean containsSorted(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    /**
+     * Get the element at the provided position
+     *
+     * @param index The position of the element
+     *
+     * @return The element
+     */
+    public int get(int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        return values[index];
+    }
+
+    /**
+     * Get the number of elements
+     *
+     * @return The number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove every element
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Creates an array containing every element
+     *
+     * @return A new array containing every element
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
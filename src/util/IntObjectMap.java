@@ -0,0 +1,226 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive int keys to objects, which doesn't box its keys like a {@link java.util.Map} would
+ * <p>
+ * As long as the keys are dense non-negative numbers, every value is stored directly at the position of its key.
+ * Once a key would leave too many positions unused, the map switches to open addressing with linear probing.
+ *
+ * @param <V> The type of the values
+ */
+public class IntObjectMap<V> {
+    /**
+     * The number of unused positions which are always allowed while the values are stored directly
+     */
+    private static final int DENSE_SLACK = 64;
+
+    /**
+     * Contains every key based on its slot, or null while the values are stored directly
+     */
+    private int[] keys;
+
+    /**
+     * Contains every value based on its slot or key, null marks an empty slot
+     */
+    private Object[] values;
+
+    /**
+     * Represents the number of entries
+     */
+    private int size;
+
+    /**
+     * Creates a new, empty map
+     */
+    public IntObjectMap() {
+        values = new Object[16];
+    }
+
+    /**
+     * Get the value of a key
+     *
+     * @param key The key
+     *
+     * @return The value, or null if the key isn't part of the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        Object[] values = this.values;
+
+        // Direct lookup
+        if (keys == null)
+            return key >= 0 && key < values.length ? (V) values[key] : null;
+
+        int mask = values.length - 1;
+        for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask)
+            if (keys[slot] == key)
+                return (V) values[slot];
+        return null;
+    }
+
+    /**
+     * Set the value of a key
+     *
+     * @param key The key
+     * @param value The new value
+     *
+     * @return The previous value of the key, or null if the key wasn't part of the map
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Der Wert darf nicht null sein!");
+
+        if (keys == null) {
+            if (key >= 0 && key < (size + 1) * 4L + DENSE_SLACK) {
+                if (key >= values.length)
+                    values = Arrays.copyOf(values, Math.max(values.length * 2, key + 1));
+
+                V previous = (V) values[key];
+                if (previous == null)
+                    size++;
+                values[key] = value;
+                return previous;
+            }
+
+            // The key is too far away from the others
+            toHashed();
+        }
+
+        int mask = values.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+
+        // Keep the load factor at 1/2 at most
+        if (++size * 2 > values.length)
+            rehash(values.length * 2);
+        return null;
+    }
+
+    /**
+     * Remove a key
+     *
+     * @param key The key
+     *
+     * @return The value of the key, or null if the key wasn't part of the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        Object[] values = this.values;
+
+        // Direct lookup
+        if (keys == null) {
+            if (key < 0 || key >= values.length || values[key] == null)
+                return null;
+            V previous = (V) values[key];
+            values[key] = null;
+            size--;
+            return previous;
+        }
+
+        int mask = values.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null && keys[slot] != key)
+            slot = (slot + 1) & mask;
+
+        if (values[slot] == null)
+            return null;
+
+        V previous = (V) values[slot];
+        size--;
+
+        // Move following entries of the same probe sequence into the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        values[gap] = null;
+
+        return previous;
+    }
+
+    /**
+     * Get the number of entries
+     *
+     * @return The number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Moves every directly stored value into the slots of a hash table
+     */
+    private void toHashed() {
+        Object[] direct = values;
+        int slots = Integer.highestOneBit(Math.max(size, 8) * 4 - 1);
+
+        keys = new int[slots];
+        values = new Object[slots];
+        int mask = slots - 1;
+        for (int key = 0; key < direct.length; key++) {
+            if (direct[key] == null)
+                continue;
+
+            int slot = slot(key, mask);
+            while (values[slot] != null)
+                slot = (slot + 1) & mask;
+            keys[slot] = key;
+            values[slot] = direct[key];
+        }
+    }
+
+    /**
+     * Moves every entry into a hash table with a new number of slots
+     *
+     * @param slots The new number of slots, a power of two
+     */
+    private void rehash(int slots) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[slots];
+        values = new Object[slots];
+
+        int mask = slots - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null)
+                continue;
+
+            int slot = slot(oldKeys[i], mask);
+            while (values[slot] != null)
+                slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Get the first slot of a key
+     *
+     * @param key The key
+     * @param mask The number of slots minus one
+     *
+     * @return The slot
+     */
+    private static int slot(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
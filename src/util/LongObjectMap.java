@@ -0,0 +1,173 @@
+package util;
+
+/**
+ * A hash map from primitive long keys to objects, which doesn't box its keys like a {@link java.util.Map} would
+ * <p>
+ * The entries are stored in two arrays using open addressing with linear probing.
+ *
+ * @param <V> The type of the values
+ */
+public class LongObjectMap<V> {
+    /**
+     * Contains every key based on its slot
+     */
+    private long[] keys;
+
+    /**
+     * Contains every value based on its slot, null marks an empty slot
+     */
+    private Object[] values;
+
+    /**
+     * Represents the number of entries
+     */
+    private int size;
+
+    /**
+     * Creates a new, empty map
+     *
+     * @param capacity The number of entries the map can hold without growing
+     */
+    public LongObjectMap(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(capacity, 4) * 2 - 1) << 1;
+        keys = new long[slots];
+        values = new Object[slots];
+    }
+
+    /**
+     * Get the value of a key
+     *
+     * @param key The key
+     *
+     * @return The value, or null if the key isn't part of the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask)
+            if (keys[slot] == key)
+                return (V) values[slot];
+        return null;
+    }
+
+    /**
+     * Set the value of a key
+     *
+     * @param key The key
+     * @param value The new value
+     *
+     * @return The previous value of the key, or null if the key wasn't part of the map
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Der Wert darf nicht null sein!");
+
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+
+        // Keep the load factor at 1/2 at most
+        if (++size * 2 > keys.length)
+            grow();
+        return null;
+    }
+
+    /**
+     * Remove a key
+     *
+     * @param key The key
+     *
+     * @return The value of the key, or null if the key wasn't part of the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null && keys[slot] != key)
+            slot = (slot + 1) & mask;
+
+        if (values[slot] == null)
+            return null;
+
+        V value = (V) values[slot];
+        size--;
+
+        // Move following entries of the same probe sequence into the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        values[gap] = null;
+
+        return value;
+    }
+
+    /**
+     * Get the number of entries
+     *
+     * @return The number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of slots, which is at least twice the number of entries
+     *
+     * @return The number of slots
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Doubles the number of slots and moves every entry to its new slot
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == null)
+                continue;
+
+            int slot = slot(oldKeys[i], mask);
+            while (values[slot] != null)
+                slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Get the first slot of a key
+     *
+     * @param key The key
+     * @param mask The number of slots minus one
+     *
+     * @return The slot
+     */
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
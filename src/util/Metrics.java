@@ -0,0 +1,149 @@
+package util;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters and {@link Histogram histograms} of the application, which are identified by their names
+ * <p>
+ * Metrics are only collected if the system property {@value #PROPERTY} is {@code true}. Every instrumented
+ * code path checks {@link #ENABLED} first, which is a constant, so disabled metrics are removed by the JIT compiler.
+ * Enabled metrics are exported as MXBeans in the domain {@value #DOMAIN} and can be written as text by {@link #dump()}.
+ * Durations are recorded in nanoseconds.
+ */
+public class Metrics implements MetricsMXBean {
+    /**
+     * The system property enabling the metrics
+     */
+    public static final String PROPERTY = "produktdatenbank.metrics";
+
+    /**
+     * Represents whether metrics are collected
+     */
+    public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    /**
+     * The domain of the exported MXBeans
+     */
+    private static final String DOMAIN = "produktdatenbank";
+
+    /**
+     * Contains every counter based on its name
+     */
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Contains every {@link Histogram} based on its name
+     */
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    // Export the counters, if metrics are collected
+    static {
+        if (ENABLED)
+            export(new Metrics(), "type=Counters");
+    }
+
+    // This class is only instantiated for the export
+    private Metrics() {
+    }
+
+    /**
+     * Get a counter, which is created if it doesn't exist yet
+     *
+     * @param name The name of the counter
+     *
+     * @return The counter
+     */
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Get a {@link Histogram}, which is created and exported if it doesn't exist yet
+     *
+     * @param name The name of the {@link Histogram}
+     *
+     * @return The {@link Histogram}
+     */
+    public static Histogram histogram(String name) {
+        Histogram h = histograms.get(name);
+        if (h != null)
+            return h;
+
+        return histograms.computeIfAbsent(name, n -> {
+            Histogram created = new Histogram(n);
+            if (ENABLED)
+                export(created, "type=Histogram,name=" + ObjectName.quote(n));
+            return created;
+        });
+    }
+
+    /**
+     * Get every counter and every {@link Histogram} as text
+     *
+     * @return The text, one metric per line in the order of their names
+     */
+    public static String dumpAll() {
+        StringBuilder out = new StringBuilder();
+        new TreeMap<>(counters).forEach((name, counter) -> out.append(name).append(": ").append(counter.sum()).append('\n'));
+        new TreeMap<>(histograms).forEach((name, histogram) -> out.append(histogram).append('\n'));
+        return out.toString();
+    }
+
+    /**
+     * Writes every metric in a fixed interval on a background thread
+     *
+     * @param seconds The interval in seconds
+     * @param out The stream to write to
+     *
+     * @return The {@link ScheduledExecutorService}, which can be shut down to stop writing
+     */
+    public static ScheduledExecutorService startDump(long seconds, PrintStream out) {
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> out.print(dumpAll()), seconds, seconds, TimeUnit.SECONDS);
+        return dumper;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    @Override
+    public String dump() {
+        return dumpAll();
+    }
+
+    /**
+     * Exports an MXBean to the platform {@link MBeanServer}
+     *
+     * @param bean The MXBean
+     * @param properties The key properties of its {@link ObjectName}
+     */
+    private static void export(Object bean, String properties) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            if (!server.isRegistered(name))
+                server.registerMBean(bean, name);
+        } catch (JMException | SecurityException e) {
+            System.err.println("Die Metrik " + properties + " konnte nicht exportiert werden: " + e.getMessage());
+        }
+    }
+}
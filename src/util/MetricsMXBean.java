@@ -0,0 +1,22 @@
+package util;
+
+import java.util.Map;
+
+/**
+ * The management interface of the counters of {@link Metrics}
+ */
+public interface MetricsMXBean {
+    /**
+     * Get the current value of every counter
+     *
+     * @return A {@link Map} from the name of every counter to its value
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Get every counter and every histogram as text
+     *
+     * @return The text, one metric per line
+     */
+    String dump();
+}
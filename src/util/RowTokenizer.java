@@ -0,0 +1,353 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A reusable tokenizer for a single entry of a database file, e.g. {@code "13","Raymond Wong","Male"}
+ * <p>
+ * The entry is split at ',' without creating any objects, quotes are ignored.
+ * Numbers are parsed straight to primitives and {@link String Strings} are only created for names.
+ * The results are the same as the ones of {@code line.replace("\"", "").split(",")}, but
+ * every attribute which doesn't fit the simple format is reported as invalid, so the caller
+ * can fall back to the {@link String} based parsing to find out what exactly is wrong.
+ */
+public class RowTokenizer {
+    /**
+     * Returned by the number parsing methods if the attribute isn't a valid number
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    /**
+     * The bytes of the entry, if the entry is read from a {@link ByteBuffer}
+     */
+    private ByteBuffer bytes;
+
+    /**
+     * The characters of the entry, if the entry is read from a {@link CharSequence}
+     */
+    private CharSequence chars;
+
+    /**
+     * The first position of every attribute
+     */
+    private int[] starts = new int[4];
+
+    /**
+     * The first position after every attribute
+     */
+    private int[] ends = new int[4];
+
+    /**
+     * The number of attributes
+     */
+    private int count;
+
+    /**
+     * A reusable buffer used to create names from bytes
+     */
+    private byte[] byteScratch = new byte[64];
+
+    /**
+     * A reusable buffer used to create names from characters
+     */
+    private char[] charScratch = new char[64];
+
+    /**
+     * Splits an entry which is stored as UTF-8 in a {@link ByteBuffer}
+     *
+     * @param buffer The {@link ByteBuffer} containing the entry
+     * @param from The first byte of the entry
+     * @param to The first byte after the entry
+     *
+     * @return This tokenizer
+     */
+    public RowTokenizer reset(ByteBuffer buffer, int from, int to) {
+        bytes = buffer;
+        chars = null;
+        split(from, to);
+        return this;
+    }
+
+    /**
+     * Splits an entry which is stored in a {@link CharSequence}
+     *
+     * @param line The entry
+     *
+     * @return This tokenizer
+     */
+    public RowTokenizer reset(CharSequence line) {
+        bytes = null;
+        chars = line;
+        split(0, line.length());
+        return this;
+    }
+
+    /**
+     * Get the number of attributes of the entry
+     *
+     * @return The number of attributes, without trailing empty attributes
+     */
+    public int getAttributeCount() {
+        return count;
+    }
+
+    /**
+     * Parses an attribute to an int, like {@link Integer#parseInt(String)}
+     *
+     * @param index The index of the attribute
+     *
+     * @return The parsed number or {@link #INVALID}
+     */
+    public long getInt(int index) {
+        return parseInt(starts[index], ends[index]);
+    }
+
+    /**
+     * Parses an attribute to an int after removing leading and trailing spaces
+     *
+     * @param index The index of the attribute
+     *
+     * @return The parsed number or {@link #INVALID}
+     */
+    public long getStrippedInt(int index) {
+        int from = skipWhitespace(starts[index], ends[index]);
+        int to = skipWhitespaceBackwards(from, ends[index]);
+        return parseInt(from, to);
+    }
+
+    /**
+     * Creates a {@link String} of an attribute without leading and trailing spaces
+     *
+     * @param index The index of the attribute
+     *
+     * @return The created {@link String}
+     */
+    public String getString(int index) {
+        int length = 0;
+
+        if (bytes != null) {
+            if (byteScratch.length < ends[index] - starts[index])
+                byteScratch = new byte[ends[index] - starts[index]];
+
+            // Copy every byte which isn't a quote
+            for (int i = starts[index]; i < ends[index]; i++) {
+                byte b = bytes.get(i);
+                if (b != '"')
+                    byteScratch[length++] = b;
+            }
+
+            int from = 0;
+            while (from < length && isWhitespace(byteScratch[from]))
+                from++;
+            while (length > from && isWhitespace(byteScratch[length - 1]))
+                length--;
+
+            // Characters outside of ASCII may also be spaces
+            return new String(byteScratch, from, length - from, StandardCharsets.UTF_8).strip();
+        } else {
+            if (charScratch.length < ends[index] - starts[index])
+                charScratch = new char[ends[index] - starts[index]];
+
+            // Copy every character which isn't a quote
+            for (int i = starts[index]; i < ends[index]; i++) {
+                char c = chars.charAt(i);
+                if (c != '"')
+                    charScratch[length++] = c;
+            }
+
+            return new String(charScratch, 0, length).strip();
+        }
+    }
+
+    /**
+     * Converts an attribute to a {@link Gender}, like {@link Gender#getGenderFromString(String)}
+     *
+     * @param index The index of the attribute
+     *
+     * @return The {@link Gender} or null, if the attribute can't be converted
+     */
+    public Gender getGender(int index) {
+        int from = skipWhitespace(starts[index], ends[index]);
+        int to = skipWhitespaceBackwards(from, ends[index]);
+
+        if (equalsIgnoreCase("male", from, to))
+            return Gender.MALE;
+        else if (equalsIgnoreCase("female", from, to))
+            return Gender.FEMALE;
+        else
+            return null;
+    }
+
+    /**
+     * Finds the bounds of every attribute
+     *
+     * @param from The first position of the entry
+     * @param to The first position after the entry
+     */
+    private void split(int from, int to) {
+        count = 0;
+        int start = from;
+
+        for (int i = from; i < to; i++) {
+            if (at(i) == ',') {
+                add(start, i);
+                start = i + 1;
+            }
+        }
+
+        // An entry without any ',' always has exactly one attribute
+        if (count == 0) {
+            add(start, to);
+            return;
+        }
+
+        add(start, to);
+
+        // Remove trailing empty attributes
+        while (count > 0 && isEmpty(count - 1))
+            count--;
+    }
+
+    /**
+     * Adds the bounds of an attribute
+     *
+     * @param from The first position of the attribute
+     * @param to The first position after the attribute
+     */
+    private void add(int from, int to) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+
+        starts[count] = from;
+        ends[count++] = to;
+    }
+
+    /**
+     * Checks whether an attribute consists only of quotes
+     *
+     * @param index The index of the attribute
+     *
+     * @return {@code true} if the attribute is empty, {@code false} otherwise
+     */
+    private boolean isEmpty(int index) {
+        for (int i = starts[index]; i < ends[index]; i++)
+            if (at(i) != '"')
+                return false;
+        return true;
+    }
+
+    /**
+     * Parses the provided range to an int, quotes are ignored
+     *
+     * @param from The first position of the range
+     * @param to The first position after the range
+     *
+     * @return The parsed number or {@link #INVALID}
+     */
+    private long parseInt(int from, int to) {
+        long result = 0;
+        int digits = 0;
+        boolean negative = false;
+        boolean first = true;
+
+        for (int i = from; i < to; i++) {
+            int c = at(i);
+
+            if (c == '"')
+                continue;
+
+            if (first && (c == '-' || c == '+'))
+                negative = c == '-';
+            else if (c >= '0' && c <= '9' && digits < 10) {
+                result = result * 10 + (c - '0');
+                digits++;
+            } else
+                return INVALID;
+
+            first = false;
+        }
+
+        if (digits == 0)
+            return INVALID;
+
+        result = negative ? -result : result;
+        return result < Integer.MIN_VALUE || result > Integer.MAX_VALUE ? INVALID : result;
+    }
+
+    /**
+     * Skips leading spaces and quotes
+     *
+     * @param from The first position of the range
+     * @param to The first position after the range
+     *
+     * @return The first position which isn't a space or a quote
+     */
+    private int skipWhitespace(int from, int to) {
+        while (from < to && (at(from) == '"' || isWhitespace(at(from))))
+            from++;
+        return from;
+    }
+
+    /**
+     * Skips trailing spaces and quotes
+     *
+     * @param from The first position of the range
+     * @param to The first position after the range
+     *
+     * @return The first position after the range which isn't followed by only spaces or quotes
+     */
+    private int skipWhitespaceBackwards(int from, int to) {
+        while (to > from && (at(to - 1) == '"' || isWhitespace(at(to - 1))))
+            to--;
+        return to;
+    }
+
+    /**
+     * Compares the provided range to a lowercase ASCII word, ignoring quotes and case
+     *
+     * @param word The lowercase word
+     * @param from The first position of the range
+     * @param to The first position after the range
+     *
+     * @return {@code true} if the range contains the word, {@code false} otherwise
+     */
+    private boolean equalsIgnoreCase(String word, int from, int to) {
+        int j = 0;
+        for (int i = from; i < to; i++) {
+            int c = at(i);
+
+            if (c == '"')
+                continue;
+
+            if (j == word.length() || (c | 0x20) != word.charAt(j++))
+                return false;
+        }
+        return j == word.length();
+    }
+
+    /**
+     * Get the character or byte at the provided position
+     *
+     * @param i The position
+     *
+     * @return The character or the unsigned byte
+     */
+    private int at(int i) {
+        return bytes != null ? bytes.get(i) & 0xFF : chars.charAt(i);
+    }
+
+    /**
+     * Checks whether a character is an ASCII space, like {@link Character#isWhitespace(int)}
+     *
+     * @param c The character
+     *
+     * @return {@code true} if the character is a space, {@code false} otherwise
+     */
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || (c >= '\t' && c <= '\r') || (c >= 0x1C && c <= 0x1F);
+    }
+}
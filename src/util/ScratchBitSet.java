@@ -0,0 +1,133 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * A reusable set of bits, which remembers the words it has touched
+ * <p>
+ * Iterating and clearing the set only costs time proportional to the touched words and not to its capacity,
+ * so one instance can be reused for many small sets over a very large range of numbers.
+ */
+public class ScratchBitSet {
+    /**
+     * Contains every bit
+     */
+    private long[] words;
+
+    /**
+     * Contains the index of every touched word once, a touched word may be empty again after a bit was cleared
+     */
+    private int[] touched = new int[16];
+
+    /**
+     * Contains one bit for every word, which is set while the word is part of the touched words
+     */
+    private long[] marks;
+
+    /**
+     * Represents the number of touched words
+     */
+    private int touchedCount;
+
+    /**
+     * Creates a new, empty set
+     *
+     * @param capacity The number of bits the set can hold without growing
+     */
+    public ScratchBitSet(int capacity) {
+        words = new long[Math.max((capacity + 63) >>> 6, 1)];
+        marks = new long[(words.length + 63) >>> 6];
+    }
+
+    /**
+     * Sets a bit
+     *
+     * @param bit The bit to set
+     *
+     * @return {@code true} if the bit wasn't set before, {@code false} otherwise
+     */
+    public boolean set(int bit) {
+        int word = bit >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(words.length * 2, word + 1));
+            marks = Arrays.copyOf(marks, (words.length + 63) >>> 6);
+        }
+
+        // Every word is added to the touched words once, even if it was emptied by clearing its bits
+        if ((marks[word >>> 6] & (1L << word)) == 0) {
+            marks[word >>> 6] |= 1L << word;
+            if (touchedCount == touched.length)
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            touched[touchedCount++] = word;
+        }
+
+        long before = words[word];
+
+        words[word] = before | (1L << bit);
+        return before != words[word];
+    }
+
+    /**
+     * Clears a bit
+     * The word of the bit stays touched until the set is cleared
+     *
+     * @param bit The bit to clear
+     */
+    public void clear(int bit) {
+        int word = bit >>> 6;
+        if (word < words.length)
+            words[word] &= ~(1L << bit);
+    }
+
+    /**
+     * Checks whether a bit is set
+     *
+     * @param bit The bit in question
+     *
+     * @return {@code true} if the bit is set, {@code false} otherwise
+     */
+    public boolean get(int bit) {
+        int word = bit >>> 6;
+        return word < words.length && (words[word] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Get every set bit in ascending order and clear the set afterwards
+     *
+     * @return An array containing every set bit
+     */
+    public int[] drain() {
+        Arrays.sort(touched, 0, touchedCount);
+
+        int count = 0;
+        for (int i = 0; i < touchedCount; i++)
+            count += Long.bitCount(words[touched[i]]);
+
+        int[] bits = new int[count];
+        int pos = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int word = touched[i];
+            long value = words[word];
+            while (value != 0) {
+                bits[pos++] = (word << 6) + Long.numberOfTrailingZeros(value);
+                value &= value - 1;
+            }
+            words[word] = 0;
+            marks[word >>> 6] = 0;
+        }
+
+        touchedCount = 0;
+        return bits;
+    }
+
+    /**
+     * Clears every bit
+     */
+    public void clear() {
+        for (int i = 0; i < touchedCount; i++) {
+            words[touched[i]] = 0;
+            marks[touched[i] >>> 6] = 0;
+        }
+        touchedCount = 0;
+    }
+}
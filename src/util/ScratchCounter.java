@@ -0,0 +1,114 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * A reusable array of counters, which remembers the counters it has touched
+ * <p>
+ * Like the {@link ScratchBitSet}, iterating and clearing the counters only costs time proportional to the touched
+ * counters and not to the capacity, so one instance can be reused for many small counts over a very large range of numbers.
+ * A counter can be excluded, which keeps it from being counted until the counters are cleared.
+ */
+public class ScratchCounter {
+    /**
+     * Contains every counter, excluded counters are negative
+     */
+    private int[] counts;
+
+    /**
+     * Contains the index of every touched counter
+     */
+    private int[] touched = new int[16];
+
+    /**
+     * Represents the number of touched counters
+     */
+    private int touchedCount;
+
+    /**
+     * Creates a new counter array, whose counters are 0
+     *
+     * @param capacity The number of counters the array can hold without growing
+     */
+    public ScratchCounter(int capacity) {
+        counts = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Increments a counter, unless it's excluded
+     *
+     * @param index The index of the counter
+     *
+     * @return The new value of the counter, or a negative value if it's excluded
+     */
+    public int increment(int index) {
+        touch(index);
+        return counts[index] < 0 ? counts[index] : ++counts[index];
+    }
+
+    /**
+     * Excludes a counter, which isn't counted until the counters are cleared
+     *
+     * @param index The index of the counter
+     */
+    public void exclude(int index) {
+        touch(index);
+        counts[index] = -1;
+    }
+
+    /**
+     * Get the value of a counter
+     *
+     * @param index The index of the counter
+     *
+     * @return The value, or a negative value if the counter is excluded
+     */
+    public int get(int index) {
+        return index < counts.length ? counts[index] : 0;
+    }
+
+    /**
+     * Get the number of touched counters
+     *
+     * @return The number of counters, which were incremented or excluded
+     */
+    public int touchedCount() {
+        return touchedCount;
+    }
+
+    /**
+     * Get the index of a touched counter
+     *
+     * @param i The position of the counter in the order in which the counters were first touched
+     *
+     * @return The index of the counter
+     */
+    public int touched(int i) {
+        return touched[i];
+    }
+
+    /**
+     * Resets every touched counter to 0
+     */
+    public void clear() {
+        for (int i = 0; i < touchedCount; i++)
+            counts[touched[i]] = 0;
+        touchedCount = 0;
+    }
+
+    /**
+     * Remembers a counter, if it wasn't touched yet
+     *
+     * @param index The index of the counter
+     */
+    private void touch(int index) {
+        if (index >= counts.length)
+            counts = Arrays.copyOf(counts, Math.max(counts.length * 2, index + 1));
+
+        if (counts[index] == 0) {
+            if (touchedCount == touched.length)
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            touched[touchedCount++] = index;
+        }
+    }
+}
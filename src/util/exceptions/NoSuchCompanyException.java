@@ -13,7 +13,7 @@ public class NoSuchCompanyException extends Exception {
     }
 
     public NoSuchCompanyException(int id) {
-        super("Konnte keine Firma mit der id " + id + " finden!");
+        super(message(id));
     }
 
     public NoSuchCompanyException(String message, Throwable cause) {
@@ -23,4 +23,15 @@ public class NoSuchCompanyException extends Exception {
     public NoSuchCompanyException(Throwable cause) {
         super(cause);
     }
+
+    /**
+     * Get the message of an exception for a missing {@code id}, without creating the exception
+     *
+     * @param id The missing {@code id}
+     *
+     * @return The message
+     */
+    public static String message(int id) {
+        return "Konnte keine Firma mit der id " + id + " finden!";
+    }
 }
@@ -13,7 +13,7 @@ public class NoSuchPersonException extends Exception {
     }
 
     public NoSuchPersonException(int id) {
-        super("Konnte keine Person mit der id " + id + " finden!");
+        super(message(id));
     }
 
     public NoSuchPersonException(String message, Throwable cause) {
@@ -23,4 +23,15 @@ public class NoSuchPersonException extends Exception {
     public NoSuchPersonException(Throwable cause) {
         super(cause);
     }
+
+    /**
+     * Get the message of an exception for a missing {@code id}, without creating the exception
+     *
+     * @param id The missing {@code id}
+     *
+     * @return The message
+     */
+    public static String message(int id) {
+        return "Konnte keine Person mit der id " + id + " finden!";
+    }
 }
@@ -13,7 +13,7 @@ public class NoSuchProductException extends Exception {
     }
 
     public NoSuchProductException(int id) {
-        super("Konnte kein Produkt mit der id " + id + " finden!");
+        super(message(id));
     }
 
     public NoSuchProductException(String message, Throwable cause) {
@@ -23,4 +23,15 @@ public class NoSuchProductException extends Exception {
     public NoSuchProductException(Throwable cause) {
         super(cause);
     }
+
+    /**
+     * Get the message of an exception for a missing {@code id}, without creating the exception
+     *
+     * @param id The missing {@code id}
+     *
+     * @return The message
+     */
+    public static String message(int id) {
+        return "Konnte kein Produkt mit der id " + id + " finden!";
+    }
 }
@@ -19,4 +19,15 @@ public class UnknownGenderException extends Exception {
     public UnknownGenderException(Throwable cause) {
         super(cause);
     }
+
+    /**
+     * Get the message of an exception for an unknown gender, without creating the exception
+     *
+     * @param gender The unknown gender without leading and trailing spaces
+     *
+     * @return The message
+     */
+    public static String message(String gender) {
+        return "Das angegebene Geschlecht '" + gender + "' kann nicht verarbeitet werden.";
+    }
 }